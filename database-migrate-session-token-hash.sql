@@ -0,0 +1,21 @@
+-- Migrate user_sessions from raw auth_token TEXT to a SHA-256 digest (bytea, 32 bytes)
+-- Run once against json_compare_db before deploying the hashed-token build.
+-- Requires PostgreSQL 11+ (built-in sha256()).
+
+BEGIN;
+
+ALTER TABLE user_sessions ADD COLUMN IF NOT EXISTS auth_token_hash bytea;
+
+UPDATE user_sessions
+SET auth_token_hash = sha256(convert_to(auth_token, 'UTF8'))
+WHERE auth_token_hash IS NULL;
+
+ALTER TABLE user_sessions ALTER COLUMN auth_token_hash SET NOT NULL;
+ALTER TABLE user_sessions ADD CONSTRAINT chk_auth_token_hash_length CHECK (octet_length(auth_token_hash) = 32);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_auth_token_hash ON user_sessions (auth_token_hash);
+
+DROP INDEX IF EXISTS idx_auth_token;
+ALTER TABLE user_sessions DROP COLUMN auth_token;
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- Partial indexes on comparison_diffs for live (not soft-deleted) rows
+-- The application creates these on startup (compare.partial-indexes.enabled=true);
+-- this script does the same by hand. Run outside a transaction block.
+-- On a partitioned comparison_diffs drop the CONCURRENTLY keywords.
+-- A failed CONCURRENTLY build leaves an INVALID index that IF NOT EXISTS keeps; check with
+--   SELECT c.relname, i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+--   WHERE c.relname IN ('idx_comparison_live_user_created', 'idx_comparison_deleted_updated');
+-- and DROP INDEX CONCURRENTLY an invalid one before running its CREATE again.
+
+-- Backs findByCreatedByIdAndDeletedFalse..., countByCreatedByIdAndDeletedFalse and keyset history pages
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_comparison_live_user_created
+    ON comparison_diffs (created_by_id, created_at DESC, id DESC)
+    WHERE deleted = false;
+
+-- Backs the soft-delete purge scan
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_comparison_deleted_updated
+    ON comparison_diffs (updated_at)
+    WHERE deleted = true;
+
+-- Superseded by idx_comparison_live_user_created; only drop it once that index is valid
+DROP INDEX CONCURRENTLY IF EXISTS idx_created_by_created;
@@ -0,0 +1,57 @@
+-- Convert comparison_diffs into a table range-partitioned by month on created_at
+-- Run once against json_compare_db during a maintenance window (the copy locks the old table).
+-- Requires PostgreSQL 13+ (declarative partitioning with FKs and partitioned indexes).
+--
+-- After migrating, set compare.partitioning.enabled=true so the application creates
+-- upcoming monthly partitions (and, optionally, detaches old ones).
+--
+-- Notes:
+--   * The primary key must include the partition key, so it becomes (id, created_at).
+--     Ids are time-ordered UUIDv7 values and stay unique in practice; lookups by id
+--     add a created_at range derived from the id so only one partition is probed.
+--   * comparison_diffs_default catches rows outside any monthly partition. It should
+--     stay empty; a new month cannot be created while it holds rows for that month.
+
+BEGIN;
+
+ALTER TABLE comparison_diffs RENAME TO comparison_diffs_legacy;
+ALTER INDEX IF EXISTS idx_created_by_created RENAME TO idx_created_by_created_legacy;
+ALTER INDEX IF EXISTS idx_comparison_status RENAME TO idx_comparison_status_legacy;
+
+CREATE TABLE comparison_diffs (
+    LIKE comparison_diffs_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (id, created_at),
+    FOREIGN KEY (created_by_id) REFERENCES users (id)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_created_by_created ON comparison_diffs (created_by_id, created_at, id);
+CREATE INDEX idx_comparison_status ON comparison_diffs (comparison_status);
+
+CREATE TABLE comparison_diffs_default PARTITION OF comparison_diffs DEFAULT;
+
+-- Monthly partitions from the oldest existing row up to three months ahead
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE((SELECT min(created_at) FROM comparison_diffs_legacy), now()));
+    last_month  date := date_trunc('month', now() + interval '3 months');
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF comparison_diffs FOR VALUES FROM (%L) TO (%L)',
+                       'comparison_diffs_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start, (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END
+$$;
+
+INSERT INTO comparison_diffs SELECT * FROM comparison_diffs_legacy;
+
+DROP TABLE comparison_diffs_legacy;
+
+COMMIT;
+
+ANALYZE comparison_diffs;
+
+-- Detaching an old month by hand (the application does this when
+-- compare.partitioning.detach-after-months > 0):
+--   ALTER TABLE comparison_diffs DETACH PARTITION comparison_diffs_p2025_01;
@@ -0,0 +1,139 @@
+package com.jsoncompare.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic document pairs for the diff benchmarks. The same shape, size and
+ * seed always produce the same pair, so results are comparable across runs and branches.
+ */
+public final class DiffCorpus {
+
+    public enum Shape {
+        // One object with many scalar fields, a share of them changed
+        WIDE,
+        // Deeply nested objects, changes near the leaves
+        DEEP,
+        // A long array of flat records (the typical API payload), some records edited
+        RECORDS,
+        // A large records array where only a handful of values differ
+        MOSTLY_IDENTICAL
+    }
+
+    public record Pair(String jsonA, String jsonB) {
+    }
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private DiffCorpus() {
+    }
+
+    /**
+     * @param size number of fields (WIDE), nesting depth (DEEP) or records (RECORDS, MOSTLY_IDENTICAL)
+     */
+    public static Pair generate(Shape shape, int size, long seed, ObjectMapper objectMapper) {
+        Random random = new Random(seed);
+        JsonNode a = switch (shape) {
+            case WIDE -> wide(size, random);
+            case DEEP -> deep(size, random);
+            case RECORDS, MOSTLY_IDENTICAL -> records(size, random);
+        };
+        JsonNode b = a.deepCopy();
+        double changeRate = shape == Shape.MOSTLY_IDENTICAL ? 0.01 : 0.2;
+        mutate(b, changeRate, random);
+        try {
+            return new Pair(objectMapper.writeValueAsString(a), objectMapper.writeValueAsString(b));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize corpus", e);
+        }
+    }
+
+    private static ObjectNode wide(int fields, Random random) {
+        ObjectNode node = NODES.objectNode();
+        for (int i = 0; i < fields; i++) {
+            node.set("field" + i, scalar(random));
+        }
+        return node;
+    }
+
+    private static ObjectNode deep(int depth, Random random) {
+        ObjectNode root = NODES.objectNode();
+        ObjectNode current = root;
+        for (int level = 0; level < depth; level++) {
+            current.put("level", level);
+            current.set("label", scalar(random));
+            ObjectNode child = NODES.objectNode();
+            current.set("child", child);
+            current = child;
+        }
+        current.set("leaf", scalar(random));
+        return root;
+    }
+
+    private static ArrayNode records(int count, Random random) {
+        ArrayNode array = NODES.arrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode record = NODES.objectNode();
+            record.put("id", i);
+            record.put("name", word(random) + " " + word(random));
+            record.put("email", word(random) + "@example.com");
+            record.put("active", random.nextBoolean());
+            record.put("score", random.nextInt(10_000) / 100.0);
+            ArrayNode tags = record.putArray("tags");
+            for (int t = random.nextInt(4); t > 0; t--) {
+                tags.add(word(random));
+            }
+            array.add(record);
+        }
+        return array;
+    }
+
+    // Replace a share of the scalar leaves, walking the tree in a fixed order
+    private static void mutate(JsonNode node, double changeRate, Random random) {
+        if (node instanceof ObjectNode object) {
+            object.fieldNames().forEachRemaining(name -> {
+                JsonNode child = object.get(name);
+                if (child.isValueNode()) {
+                    if (random.nextDouble() < changeRate) {
+                        object.set(name, scalar(random));
+                    }
+                } else {
+                    mutate(child, changeRate, random);
+                }
+            });
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                JsonNode child = array.get(i);
+                if (child.isValueNode()) {
+                    if (random.nextDouble() < changeRate) {
+                        array.set(i, scalar(random));
+                    }
+                } else {
+                    mutate(child, changeRate, random);
+                }
+            }
+        }
+    }
+
+    private static JsonNode scalar(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> NODES.numberNode(random.nextInt(1_000_000));
+            case 1 -> NODES.booleanNode(random.nextBoolean());
+            case 2 -> NODES.numberNode(random.nextInt(100_000) / 100.0);
+            default -> NODES.textNode(word(random));
+        };
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,129 @@
+package com.jsoncompare.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.jsoncompare.dto.compare.CompareResponse;
+import com.jsoncompare.dto.compare.DiffDetail;
+import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.service.JsonDiffEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of the compare hot path in isolation, over the synthetic {@link DiffCorpus}.
+ * Run with ./gradlew jmh; allocation rate per operation comes from the GC profiler
+ * (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffHotPathBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"WIDE", "DEEP", "RECORDS", "MOSTLY_IDENTICAL"})
+    public DiffCorpus.Shape shape;
+
+    // Fields (WIDE), records (RECORDS, MOSTLY_IDENTICAL) or five times the nesting depth (DEEP)
+    @Param({"100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private JsonDiffEngine engine;
+
+    private String jsonA;
+    private String jsonB;
+    private JsonNode nodeA;
+    private JsonNode nodeB;
+    private JsonNode diffNode;
+    private List<JsonNode> diffValues;
+    private CompareResponse response;
+
+    @Setup
+    public void setUp() {
+        // Mirrors the application's Jackson settings (ISO dates, nulls omitted)
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        engine = new JsonDiffEngine(objectMapper);
+
+        // Keeps DEEP within realistic nesting (and Jackson's default depth limit)
+        int shapeSize = shape == DiffCorpus.Shape.DEEP ? size / 5 : size;
+        DiffCorpus.Pair pair = DiffCorpus.generate(shape, shapeSize, SEED, objectMapper);
+        jsonA = pair.jsonA();
+        jsonB = pair.jsonB();
+        nodeA = engine.parseJson(jsonA, "JSON A");
+        nodeB = engine.parseJson(jsonB, "JSON B");
+        diffNode = engine.diff(nodeA, nodeB);
+
+        diffValues = new ArrayList<>();
+        for (JsonNode op : diffNode) {
+            if (op.has("fromValue")) {
+                diffValues.add(op.get("fromValue"));
+            }
+            if (op.has("value")) {
+                diffValues.add(op.get("value"));
+            }
+        }
+
+        List<DiffDetail> differences = engine.parseDiffDetails(diffNode);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 0, 0);
+        response = CompareResponse.builder()
+                .id(new UUID(SEED, SEED))
+                .jsonA(jsonA)
+                .jsonB(jsonB)
+                .identical(differences.isEmpty())
+                .differences(differences)
+                .rawDiff(diffNode.toString())
+                .diffCount(differences.size())
+                .status(ComparisonStatus.COMPLETED)
+                .createdAt(now)
+                .lastComparedAt(now)
+                .build();
+    }
+
+    @Benchmark
+    public JsonNode parseJson() {
+        return engine.parseJson(jsonA, "JSON A");
+    }
+
+    @Benchmark
+    public JsonNode diff() {
+        return engine.diff(nodeA, nodeB);
+    }
+
+    @Benchmark
+    public List<DiffDetail> parseDiffDetails() {
+        return engine.parseDiffDetails(diffNode);
+    }
+
+    @Benchmark
+    public void nodeToObject(Blackhole blackhole) {
+        for (JsonNode value : diffValues) {
+            blackhole.consume(JsonDiffEngine.nodeToObject(value));
+        }
+    }
+
+    @Benchmark
+    public String serializeResponse() throws Exception {
+        return objectMapper.writeValueAsString(response);
+    }
+}
@@ -0,0 +1,81 @@
+package com.jsoncompare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Saturation of every Hikari pool in use: the workload, replica or shard pools behind a
+ * routing DataSource, or the single auto-configured pool.
+ * Also publishes the standard hikaricp.* meters for pools behind a routing DataSource, which
+ * Spring Boot only binds for DataSource beans.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolMonitor implements MeterBinder {
+
+    private final DataSource dataSource;
+    private final ObjectProvider<AbstractRoutingDataSource> routingDataSources;
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        routingDataSources.orderedStream()
+                .flatMap(routing -> routing.getResolvedDataSources().values().stream())
+                .forEach(target -> addPool(stats, target));
+        if (stats.isEmpty()) {
+            addPool(stats, dataSource);
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        routingDataSources.orderedStream()
+                .flatMap(routing -> routing.getResolvedDataSources().values().stream())
+                .forEach(target -> {
+                    // Hikari forwards the tracker to a pool that has already started
+                    if (target instanceof HikariDataSource hikari
+                            && hikari.getMetricRegistry() == null && hikari.getMetricsTrackerFactory() == null) {
+                        hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                    }
+                });
+    }
+
+    static Map<String, Object> poolStats(HikariDataSource pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int maximum = pool.getMaximumPoolSize();
+        stats.put("maximumPoolSize", maximum);
+        stats.put("connectionTimeoutMs", pool.getConnectionTimeout());
+
+        // Pools start on the first connection request
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        if (mxBean == null) {
+            stats.put("started", false);
+            return stats;
+        }
+        int active = mxBean.getActiveConnections();
+        stats.put("started", true);
+        stats.put("active", active);
+        stats.put("idle", mxBean.getIdleConnections());
+        stats.put("total", mxBean.getTotalConnections());
+        stats.put("awaitingConnection", mxBean.getThreadsAwaitingConnection());
+        stats.put("saturation", maximum > 0 ? Math.round(active * 100.0 / maximum) / 100.0 : 0.0);
+        return stats;
+    }
+
+    private static void addPool(Map<String, Object> stats, DataSource candidate) {
+        if (candidate instanceof HikariDataSource hikari) {
+            stats.put(hikari.getPoolName(), poolStats(hikari));
+        }
+    }
+}
@@ -1,9 +1,131 @@
 package com.jsoncompare.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Database configuration is handled via application.properties and Spring Boot's HikariCP
+ * auto-configuration. When datasource.replica.enabled=true the DataSource is replaced by a
+ * primary/replica router: read-only transactions go to the replica pools, everything else
+ * (and a caller's reads right after their own write) to the primary. User-id sharding
+ * (datasource.shards.enabled) is configured in {@link ShardingConfig}.
+ * With datasource.pools.enabled=true the single database is instead served by one pool per
+ * {@link WorkloadPool}, chosen through {@link WorkloadContext}.
+ */
 @Configuration
 public class DatabaseConfig {
-    // Database configuration is handled via application.properties
-    // Connection pooling is managed by HikariCP (default in Spring Boot)
+
+    // Replica routing and sharding each replace the DataSource; sharding takes precedence
+    @Configuration
+    @ConditionalOnExpression("${datasource.replica.enabled:false} and !${datasource.shards.enabled:false}")
+    static class ReplicaRoutingConfig {
+
+        @Bean
+        public ReplicaRoutingDataSource replicaRoutingDataSource(
+                DataSourceProperties properties,
+                Environment environment,
+                ReadYourWritesTracker tracker,
+                @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                @Value("${datasource.replica.username:}") String replicaUsername,
+                @Value("${datasource.replica.password:}") String replicaPassword,
+                @Value("${datasource.replica.maximum-pool-size:10}") int replicaPoolSize) {
+
+            // Primary keeps every spring.datasource.hikari.* setting
+            HikariDataSource primary = primaryPool(properties, environment, "primary");
+
+            List<DataSource> replicas = new ArrayList<>();
+            for (int i = 0; i < replicaUrls.size(); i++) {
+                HikariDataSource replica = pool(properties, ReplicaRoutingDataSource.REPLICA_PREFIX + i,
+                        replicaUrls.get(i), replicaUsername, replicaPassword, replicaPoolSize);
+                replica.setReadOnly(true);
+                replicas.add(replica);
+            }
+
+            return new ReplicaRoutingDataSource(primary, replicas, tracker);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+            return lazyRoutingProxy(replicaRoutingDataSource);
+        }
+    }
+
+    // Workload pools split a single database; with replicas or shards the per-database pools apply
+    @Configuration
+    @ConditionalOnExpression("${datasource.pools.enabled:false} and !${datasource.replica.enabled:false}"
+            + " and !${datasource.shards.enabled:false}")
+    static class WorkloadPoolConfig {
+
+        @Bean
+        public WorkloadRoutingDataSource workloadRoutingDataSource(DataSourceProperties properties,
+                                                                   Environment environment) {
+            Map<WorkloadPool, DataSource> pools = new EnumMap<>(WorkloadPool.class);
+            for (WorkloadPool workload : WorkloadPool.values()) {
+                // spring.datasource.hikari.* first, then datasource.pools.<workload>.* on top
+                HikariDataSource pool = primaryPool(properties, environment, "pool-" + workload.key());
+                Binder.get(environment).bind("datasource.pools." + workload.key(), Bindable.ofInstance(pool));
+                pools.put(workload, pool);
+            }
+            return new WorkloadRoutingDataSource(pools);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(WorkloadRoutingDataSource workloadRoutingDataSource) {
+            return lazyRoutingProxy(workloadRoutingDataSource);
+        }
+    }
+
+    /**
+     * Defers fetching the physical connection until the first statement, when the transaction's
+     * read-only flag is already set
+     */
+    static DataSource lazyRoutingProxy(DataSource routingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routingDataSource);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    /**
+     * Pool built from spring.datasource.* with every spring.datasource.hikari.* setting applied
+     */
+    static HikariDataSource primaryPool(DataSourceProperties properties, Environment environment, String poolName) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(poolName);
+        return pool;
+    }
+
+    /**
+     * Additional pool on another database; blank credentials default to the primary's
+     */
+    static HikariDataSource pool(DataSourceProperties properties, String poolName, String url,
+                                 String username, String password, int maximumPoolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(poolName);
+        pool.setJdbcUrl(url.trim());
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setUsername(username.isBlank() ? properties.determineUsername() : username);
+        pool.setPassword(password.isBlank() ? properties.determinePassword() : password);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        return pool;
+    }
 }
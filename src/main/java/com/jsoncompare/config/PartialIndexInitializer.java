@@ -0,0 +1,97 @@
+package com.jsoncompare.config;
+
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the PostgreSQL partial indexes on comparison_diffs that JPA cannot declare:
+ * live-row history/count lookups (WHERE deleted = false) and the purge scan (WHERE deleted = true).
+ * Once the live-row index is valid the old full idx_created_by_created is dropped, so soft-deleted
+ * rows no longer occupy the hot index. Indexes are built CONCURRENTLY unless the table is
+ * partitioned (PostgreSQL does not support that on a partitioned parent). A concurrent build that
+ * failed leaves an INVALID index behind, which IF NOT EXISTS would keep; such an index is dropped
+ * and built again.
+ * Other databases are left untouched.
+ */
+@Component
+@ConditionalOnProperty(name = "compare.partial-indexes.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class PartialIndexInitializer {
+
+    static final String LIVE_INDEX = "idx_comparison_live_user_created";
+
+    static final List<String> INDEXES = List.of(
+            LIVE_INDEX + " ON comparison_diffs (created_by_id, created_at DESC, id DESC) "
+                    + "WHERE deleted = false",
+            "idx_comparison_deleted_updated ON comparison_diffs (updated_at) WHERE deleted = true"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void createIndexes() {
+        for (String shard : shardRouter.shardNames()) {
+            shardRouter.onShard(shard, () -> {
+                createIndexesOnCurrentShard();
+                return null;
+            });
+        }
+    }
+
+    private void createIndexesOnCurrentShard() {
+        try {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(product)) {
+                return;
+            }
+
+            String relkind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('comparison_diffs')", String.class);
+            String concurrently = "p".equals(relkind) ? "" : "CONCURRENTLY ";
+
+            for (String index : INDEXES) {
+                String name = index.substring(0, index.indexOf(' '));
+                Boolean valid = isValid(name);
+                if (Boolean.FALSE.equals(valid)) {
+                    log.warn("Index {} is invalid (left by a failed build), rebuilding it", name);
+                    jdbcTemplate.execute("DROP INDEX " + concurrently + "IF EXISTS " + name);
+                }
+                if (!Boolean.TRUE.equals(valid)) {
+                    jdbcTemplate.execute("CREATE INDEX " + concurrently + "IF NOT EXISTS " + index);
+                }
+            }
+            // The old index keeps serving the history queries until its replacement can
+            if (!Boolean.TRUE.equals(isValid(LIVE_INDEX))) {
+                log.warn("Index {} is not valid, keeping idx_created_by_created", LIVE_INDEX);
+                return;
+            }
+            jdbcTemplate.execute("DROP INDEX " + concurrently + "IF EXISTS idx_created_by_created");
+            log.info("Partial indexes on comparison_diffs are in place");
+        } catch (DataAccessException e) {
+            // Never block startup on index maintenance; the SQL script can be run by hand
+            log.warn("Could not create partial indexes on comparison_diffs: {}", e.getMessage());
+        }
+    }
+
+    // pg_index.indisvalid of the index, or null if there is no such index
+    private Boolean isValid(String indexName) {
+        List<Boolean> valid = jdbcTemplate.queryForList(
+                "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                        + "WHERE c.relname = ? AND pg_table_is_visible(c.oid)", Boolean.class, indexName);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+}
@@ -0,0 +1,29 @@
+package com.jsoncompare.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Clears the caller bound for {@link ReadYourWritesTracker} (by the controller, once it has
+ * authenticated the request) when the request thread is released
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private final ReadYourWritesTracker tracker;
+
+    // Async handlers (compare, recompare) release the request thread here instead of in afterCompletion
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        tracker.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        tracker.clear();
+    }
+}
@@ -0,0 +1,72 @@
+package com.jsoncompare.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Remembers which callers wrote recently so their reads stay on the primary for a short window,
+ * hiding replica lag from the user who made the change.
+ * Callers are keyed by their authenticated user id, bound once the request is authenticated (so
+ * every token and session of a user shares the window) and cleared by {@link ReadYourWritesInterceptor}.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final ThreadLocal<UUID> currentCaller = new ThreadLocal<>();
+    private final Cache<UUID, Boolean> recentWriters;
+    private final boolean enabled;
+
+    public ReadYourWritesTracker(@Value("${datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.enabled = !window.isZero();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(enabled ? window : Duration.ofMillis(1))
+                .build();
+    }
+
+    public void bind(UUID userId) {
+        if (userId != null) {
+            currentCaller.set(userId);
+        }
+    }
+
+    public void clear() {
+        currentCaller.remove();
+    }
+
+    /**
+     * Start (or extend) the read-your-writes window for the caller bound to this thread
+     */
+    public void recordWrite() {
+        UUID caller = currentCaller.get();
+        if (enabled && caller != null) {
+            recentWriters.put(caller, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Run the task with this thread's caller bound, for work handed to another thread
+     */
+    public Runnable propagate(Runnable task) {
+        UUID caller = currentCaller.get();
+        return () -> {
+            if (caller != null) {
+                currentCaller.set(caller);
+            }
+            try {
+                task.run();
+            } finally {
+                currentCaller.remove();
+            }
+        };
+    }
+
+    public boolean isWithinWindow() {
+        UUID caller = currentCaller.get();
+        return caller != null && recentWriters.getIfPresent(caller) != null;
+    }
+}
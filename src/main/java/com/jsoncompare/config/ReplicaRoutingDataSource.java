@@ -0,0 +1,74 @@
+package com.jsoncompare.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replica pools (round robin) and everything else to the primary.
+ * Only read-write transactions start a caller's read-your-writes window, during which the caller
+ * stays on the primary; statements outside any transaction (startup DDL, unannotated queries) use
+ * the primary without counting as writes.
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is fetched after the
+ * transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA_PREFIX = "replica-";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker tracker) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.tracker = tracker;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean readOnly = inTransaction && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+        if (!readOnly) {
+            if (inTransaction) {
+                // Conservatively treat every read-write transaction as a write
+                tracker.recordWrite();
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || tracker.isWithinWindow()) {
+            return PRIMARY;
+        }
+        return REPLICA_PREFIX + Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.jsoncompare.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+    // Enables @Scheduled background tasks (revocation refresh, maintenance jobs);
+    // off in offline commands such as ShardRebalanceCommand
+}
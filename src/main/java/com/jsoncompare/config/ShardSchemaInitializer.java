@@ -0,0 +1,99 @@
+package com.jsoncompare.config;
+
+import com.jsoncompare.shard.ShardRouter;
+import com.jsoncompare.shard.ShardRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Table;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives every shard the entity schema. Hibernate's spring.jpa.hibernate.ddl-auto runs while the
+ * EntityManagerFactory starts, with no shard bound, so it only reaches the directory; once all
+ * beans exist the same schema action is repeated with each other shard bound. Startup then fails
+ * if a shard still lacks a mapped table (e.g. ddl-auto=none without running the SQL scripts there),
+ * rather than failing the first request of every user homed on it.
+ * Registered with Hibernate as an {@link Integrator} to get hold of the boot metadata.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    private final ShardRoutingDataSource routing;
+    private final ShardRouter shardRouter;
+
+    private Metadata metadata;
+    private SessionFactoryImplementor sessionFactory;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource routing, ShardRouter shardRouter) {
+        this.routing = routing;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (metadata == null) {
+            throw new IllegalStateException("Hibernate did not register the shard schema initializer");
+        }
+        // The settings Hibernate used for the directory, including hibernate.hbm2ddl.auto
+        Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+        for (String shard : shardRouter.shardNames()) {
+            if (shard.equals(shardRouter.directoryShard())) {
+                continue;
+            }
+            shardRouter.onShard(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings, action -> {
+                });
+                return null;
+            });
+            requireTables(shard);
+        }
+    }
+
+    private void requireTables(String shard) {
+        Set<String> present = new HashSet<>();
+        new JdbcTemplate(routing.getShards().get(shard)).execute((ConnectionCallback<Void>) connection -> {
+            try (ResultSet tables = connection.getMetaData().getTables(null, null, "%", null)) {
+                while (tables.next()) {
+                    present.add(tables.getString("TABLE_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            return null;
+        });
+
+        List<String> missing = metadata.collectTableMappings().stream()
+                .map(Table::getName)
+                .map(name -> name.replace("\"", "").replace("`", "").toLowerCase(Locale.ROOT))
+                .filter(name -> !present.contains(name))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Shard " + shard + " is missing tables " + missing
+                    + "; set spring.jpa.hibernate.ddl-auto=update or run the database-*.sql scripts on it");
+        }
+        log.info("Schema in place on {}", shard);
+    }
+}
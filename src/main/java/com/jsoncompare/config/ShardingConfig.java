@@ -0,0 +1,90 @@
+package com.jsoncompare.config;
+
+import com.jsoncompare.shard.ShardRebalanceCommand;
+import com.jsoncompare.shard.ShardRing;
+import com.jsoncompare.shard.ShardRouter;
+import com.jsoncompare.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User-id sharding. Shard "shard0" is the spring.datasource database and doubles as the
+ * directory (global users table); datasource.shards.urls adds shard1..N. Users are placed on
+ * the ring of all configured shards; {@link ShardSchemaInitializer} gives every shard the schema
+ * at startup. After adding a shard, stop the application and run {@link ShardRebalanceCommand}
+ * with datasource.shards.rebalance-from set to the previous shard names to move affected users.
+ */
+@Configuration
+@Slf4j
+public class ShardingConfig {
+
+    static final String SHARD_PREFIX = "shard";
+
+    // Hibernate setting for integrators contributed by the application
+    private static final String INTEGRATOR_PROVIDER = "hibernate.integrator_provider";
+
+    @Bean
+    public ShardRouter shardRouter(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource) {
+        ShardRoutingDataSource routing = shardRoutingDataSource.getIfAvailable();
+        return routing != null ? new ShardRouter(routing) : ShardRouter.disabled();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "datasource.shards.enabled", havingValue = "true")
+    static class ShardRoutingConfig {
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(
+                DataSourceProperties properties,
+                Environment environment,
+                @Value("${datasource.shards.urls}") List<String> shardUrls,
+                @Value("${datasource.shards.username:}") String username,
+                @Value("${datasource.shards.password:}") String password,
+                @Value("${datasource.shards.maximum-pool-size:10}") int poolSize) {
+
+            Map<String, DataSource> shards = new LinkedHashMap<>();
+            shards.put(SHARD_PREFIX + 0, DatabaseConfig.primaryPool(properties, environment, SHARD_PREFIX + 0));
+            for (int i = 0; i < shardUrls.size(); i++) {
+                String name = SHARD_PREFIX + (i + 1);
+                HikariDataSource shard = DatabaseConfig.pool(properties, name, shardUrls.get(i), username, password, poolSize);
+                shards.put(name, shard);
+            }
+            log.info("User-id sharding enabled across {}", shards.keySet());
+            return new ShardRoutingDataSource(shards, new ShardRing(List.copyOf(shards.keySet())));
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return DatabaseConfig.lazyRoutingProxy(shardRoutingDataSource);
+        }
+
+        @Bean
+        public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource,
+                                                             ShardRouter shardRouter) {
+            return new ShardSchemaInitializer(shardRoutingDataSource, shardRouter);
+        }
+
+        // Hands Hibernate's boot metadata to the initializer
+        @Bean
+        public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+            return properties -> properties.put(INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+        }
+    }
+}
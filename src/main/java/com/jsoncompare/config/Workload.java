@@ -0,0 +1,20 @@
+package com.jsoncompare.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated bean method (or every public method of the annotated bean) with the given
+ * workload pool bound in {@link WorkloadContext}; see {@link WorkloadConfig}. Like @Transactional,
+ * it applies to calls through the bean, not to calls from within the same class.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadPool value();
+}
@@ -0,0 +1,54 @@
+package com.jsoncompare.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Binds the workload pool of {@link Workload}-annotated beans and methods around each call, the one
+ * place services and jobs select their connection pool. An infrastructure advisor, so it needs
+ * no AspectJ; it runs outside any transaction advice, before a connection is taken.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WorkloadConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor workloadAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Workload.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(Workload.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, workloadInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    private static MethodInterceptor workloadInterceptor() {
+        return invocation -> {
+            try (WorkloadContext.Scope ignored = WorkloadContext.enter(workloadOf(invocation.getMethod(), invocation.getThis()))) {
+                return invocation.proceed();
+            }
+        };
+    }
+
+    // The method's own annotation wins over the class's
+    private static WorkloadPool workloadOf(Method method, Object target) {
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass();
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        Workload workload = AnnotatedElementUtils.findMergedAnnotation(specific, Workload.class);
+        if (workload == null) {
+            workload = AnnotatedElementUtils.findMergedAnnotation(targetClass, Workload.class);
+        }
+        return workload.value();
+    }
+}
@@ -0,0 +1,48 @@
+package com.jsoncompare.config;
+
+/**
+ * Workload pool bound to the current thread; read by {@link WorkloadRoutingDataSource} when a
+ * connection is first used. Work without a binding runs on {@link WorkloadPool#INTERACTIVE}.
+ * Services and jobs declare theirs with {@link Workload}; enter() is for code outside beans.
+ * <pre>
+ * try (WorkloadContext.Scope ignored = WorkloadContext.enter(WorkloadPool.HISTORY)) {
+ *     ...
+ * }
+ * </pre>
+ * Binding is harmless when workload pools are disabled.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadPool> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static WorkloadPool current() {
+        return CURRENT.get();
+    }
+
+    public static Scope enter(WorkloadPool pool) {
+        WorkloadPool previous = CURRENT.get();
+        CURRENT.set(pool);
+        return new Scope(previous);
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final WorkloadPool previous;
+
+        private Scope(WorkloadPool previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
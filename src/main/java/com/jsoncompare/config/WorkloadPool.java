@@ -0,0 +1,30 @@
+package com.jsoncompare.config;
+
+/**
+ * Operation classes that get their own connection pool when datasource.pools.enabled=true,
+ * so a burst in one (e.g. large history reads) cannot starve another (token validation).
+ */
+public enum WorkloadPool {
+
+    // Session and user lookups in AuthService
+    AUTH("auth"),
+    // Compare, recompare, single-comparison reads and edits (the default)
+    INTERACTIVE("interactive"),
+    // History listing
+    HISTORY("history"),
+    // Scheduled and startup jobs
+    MAINTENANCE("maintenance");
+
+    private final String key;
+
+    WorkloadPool(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Name used in datasource.pools.&lt;key&gt;.* properties and in the Hikari pool name
+     */
+    public String key() {
+        return key;
+    }
+}
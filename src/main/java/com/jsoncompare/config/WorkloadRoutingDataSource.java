@@ -0,0 +1,52 @@
+package com.jsoncompare.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes each connection to the pool of the workload bound in {@link WorkloadContext}.
+ * All pools point at the same database; they differ only in size and timeouts.
+ * Must sit behind a LazyConnectionDataSourceProxy so the workload is read at the first
+ * statement, not when a transaction begins.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final Map<WorkloadPool, DataSource> pools;
+
+    public WorkloadRoutingDataSource(Map<WorkloadPool, DataSource> pools) {
+        for (WorkloadPool pool : WorkloadPool.values()) {
+            if (!pools.containsKey(pool)) {
+                throw new IllegalArgumentException("Missing connection pool for workload: " + pool.key());
+            }
+        }
+        this.pools = new EnumMap<>(pools);
+
+        setTargetDataSources(new HashMap<>(this.pools));
+        setDefaultTargetDataSource(this.pools.get(WorkloadPool.INTERACTIVE));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public Map<WorkloadPool, DataSource> getPools() {
+        return pools;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        WorkloadPool pool = WorkloadContext.current();
+        return pool != null ? pool : WorkloadPool.INTERACTIVE;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource pool : pools.values()) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.jsoncompare.controller;
 
+import com.jsoncompare.config.ReadYourWritesTracker;
 import com.jsoncompare.dto.compare.*;
+import com.jsoncompare.exception.ComparisonAbortedException;
 import com.jsoncompare.service.AuthService;
+import com.jsoncompare.service.AuthenticatedPrincipal;
+import com.jsoncompare.service.CompareExecutor;
+import com.jsoncompare.service.CompareRateLimiter;
 import com.jsoncompare.service.CompareService;
+import com.jsoncompare.service.DiffDeadline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,9 +17,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/compare")
@@ -23,16 +32,32 @@ public class CompareController {
 
     private final CompareService compareService;
     private final AuthService authService;
+    private final CompareRateLimiter rateLimiter;
+    private final CompareExecutor compareExecutor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public static final String DEADLINE_HEADER = "X-Deadline-Ms";
+    public static final String DEADLINE_PARAM = "deadlineMs";
+    // Async timeout backstop; the comparison's own deadline normally fires first
+    private static final Duration ASYNC_TIMEOUT_GRACE = Duration.ofSeconds(5);
 
     @PostMapping
-    @Operation(summary = "Compare two JSON objects")
-    public ResponseEntity<CompareResponse> compare(
+    @Operation(summary = "Compare two JSON objects",
+            description = "The comparison is abandoned and recorded as FAILED (504) once its deadline passes: "
+                    + DEADLINE_HEADER + " header or " + DEADLINE_PARAM + " parameter, capped by the server maximum.")
+    public DeferredResult<ResponseEntity<CompareResponse>> compare(
             @Valid @RequestBody CompareRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-
-        UUID userId = getUserIdFromToken(authHeader);
-        CompareResponse response = compareService.compare(request, userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = DEADLINE_HEADER, required = false) Long deadlineHeader,
+            @RequestParam(value = DEADLINE_PARAM, required = false) Long deadlineParam) {
+
+        AuthenticatedPrincipal principal = authenticate(authHeader);
+        // Weighted by payload size, so large pairs use up the user's budget faster
+        long payloadBytes = (long) request.getJsonA().length() + request.getJsonB().length();
+        rateLimiter.acquire(principal.getUserId(), principal.getRoles(), payloadBytes);
+        DiffDeadline deadline = compareExecutor.deadline(deadlineHeader != null ? deadlineHeader : deadlineParam);
+        return runWithDeadline(deadline, () -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(compareService.compare(request, principal.getUserId(), deadline)));
     }
 
     @GetMapping("/{id}")
@@ -58,17 +83,38 @@ public class CompareController {
         return ResponseEntity.ok(response);
     }
 
-    @PostMapping("/{id}/recompare")
-    @Operation(summary = "Re-run comparison with existing JSON inputs")
-    public ResponseEntity<CompareResponse> recompare(
-            @PathVariable UUID id,
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Get comparisons for the current user using cursor (keyset) pagination",
+            description = "Pass an empty cursor for the first page, then the returned nextCursor. "
+                    + "The total count is only computed when includeTotal=true.")
+    public ResponseEntity<ComparisonCursorPageResponse> getUserComparisonsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @RequestHeader("Authorization") String authHeader) {
 
         UUID userId = getUserIdFromToken(authHeader);
-        CompareResponse response = compareService.recompare(id, userId);
+        ComparisonCursorPageResponse response = compareService.getUserComparisonsByCursor(userId, cursor, size, includeTotal);
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/{id}/recompare")
+    @Operation(summary = "Re-run comparison with existing JSON inputs")
+    public DeferredResult<ResponseEntity<CompareResponse>> recompare(
+            @PathVariable UUID id,
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = DEADLINE_HEADER, required = false) Long deadlineHeader,
+            @RequestParam(value = DEADLINE_PARAM, required = false) Long deadlineParam) {
+
+        AuthenticatedPrincipal principal = authenticate(authHeader);
+        // Charged like a new comparison of the stored inputs, which is what it re-runs
+        long payloadBytes = compareService.storedInputSize(id, principal.getUserId());
+        rateLimiter.acquire(principal.getUserId(), principal.getRoles(), payloadBytes);
+        DiffDeadline deadline = compareExecutor.deadline(deadlineHeader != null ? deadlineHeader : deadlineParam);
+        return runWithDeadline(deadline,
+                () -> ResponseEntity.ok(compareService.recompare(id, principal.getUserId(), deadline)));
+    }
+
     @PatchMapping("/{id}")
     @Operation(summary = "Update comparison description")
     public ResponseEntity<CompareResponse> updateDescription(
@@ -95,9 +141,38 @@ public class CompareController {
 
     // ==================== Helper Methods ====================
 
+    /**
+     * Run the work on the compare executor and release the request thread. A client disconnect
+     * (reported by the container as an async error) or the async timeout cancels the deadline,
+     * so the diff stops at its next check.
+     */
+    private <T> DeferredResult<ResponseEntity<T>> runWithDeadline(DiffDeadline deadline, Supplier<ResponseEntity<T>> work) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(deadline.getBudget().plus(ASYNC_TIMEOUT_GRACE).toMillis());
+        result.onTimeout(() -> {
+            deadline.cancel("Request timed out");
+            result.setErrorResult(new ComparisonAbortedException("Request timed out"));
+        });
+        result.onError(e -> deadline.cancel("Client disconnected"));
+
+        compareExecutor.submit(work).whenComplete((response, e) -> {
+            if (e != null) {
+                result.setErrorResult(e);
+            } else {
+                result.setResult(response);
+            }
+        });
+        return result;
+    }
+
     private UUID getUserIdFromToken(String authHeader) {
-        String token = extractToken(authHeader);
-        return authService.getCurrentUser(token).getId();
+        return authenticate(authHeader).getUserId();
+    }
+
+    // Also binds the user for read-your-writes routing of the reads that follow
+    private AuthenticatedPrincipal authenticate(String authHeader) {
+        AuthenticatedPrincipal principal = authService.authenticate(extractToken(authHeader));
+        readYourWritesTracker.bind(principal.getUserId());
+        return principal;
     }
 
     private String extractToken(String authHeader) {
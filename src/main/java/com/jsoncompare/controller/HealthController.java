@@ -1,18 +1,31 @@
 package com.jsoncompare.controller;
 
+import com.jsoncompare.config.ConnectionPoolMonitor;
+import com.jsoncompare.job.MaintenanceJob;
+import com.jsoncompare.service.ComparisonResponseCache;
+import com.jsoncompare.service.SessionTokenCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 @Tag(name = "Health", description = "Health check endpoints")
 public class HealthController {
 
+    private final ComparisonResponseCache comparisonResponseCache;
+    private final SessionTokenCache sessionTokenCache;
+    private final List<MaintenanceJob> maintenanceJobs;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+
     @GetMapping("/health")
     @Operation(summary = "Health check endpoint")
     public ResponseEntity<Map<String, Object>> health() {
@@ -33,5 +46,27 @@ public class HealthController {
                 "api", "v1"
         ));
     }
-}
 
+    @GetMapping("/api/health/caches")
+    @Operation(summary = "In-memory cache statistics (hit ratio, entries, estimated memory)")
+    public ResponseEntity<Map<String, Object>> caches() {
+        return ResponseEntity.ok(Map.of(
+                "comparisonResponses", comparisonResponseCache.stats(),
+                "sessionTokens", sessionTokenCache.stats()
+        ));
+    }
+
+    @GetMapping("/api/health/jobs")
+    @Operation(summary = "Background maintenance job statistics")
+    public ResponseEntity<Map<String, Object>> jobs() {
+        Map<String, Object> jobs = new LinkedHashMap<>();
+        maintenanceJobs.forEach(job -> jobs.put(job.getName(), job.stats()));
+        return ResponseEntity.ok(jobs);
+    }
+
+    @GetMapping("/api/health/pools")
+    @Operation(summary = "Database connection pool saturation (active, idle, waiting threads)")
+    public ResponseEntity<Map<String, Object>> pools() {
+        return ResponseEntity.ok(connectionPoolMonitor.stats());
+    }
+}
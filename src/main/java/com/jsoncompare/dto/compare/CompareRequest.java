@@ -1,5 +1,6 @@
 package com.jsoncompare.dto.compare;
 
+import com.jsoncompare.model.enums.ResultFormat;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,5 +18,9 @@ public class CompareRequest {
     private String jsonB;
 
     private String description;
+
+    // PATCH (default) returns and stores every operation, RANGES coalesces array runs into ranges,
+    // NESTED groups operations by path, SUMMARY keeps only their aggregates
+    private ResultFormat format;
 }
 
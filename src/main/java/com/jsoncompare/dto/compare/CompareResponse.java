@@ -1,6 +1,9 @@
 package com.jsoncompare.dto.compare;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.model.enums.DiffStrategy;
+import com.jsoncompare.model.enums.ResultFormat;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,7 +26,15 @@ public class CompareResponse {
     private List<DiffDetail> differences;
     private String rawDiff;
     private int diffCount;
+    private ResultFormat resultFormat;
+    // Set for the SUMMARY format, whose differences list is empty
+    private DiffSummary summary;
+    // The NESTED format's result, embedded as JSON (not repeated as rawDiff); differences is empty
+    @JsonRawValue
+    private String nestedDiff;
     private ComparisonStatus status;
+    private String failureReason;
+    private DiffStrategy diffStrategy;
     private String description;
     private LocalDateTime createdAt;
     private LocalDateTime lastComparedAt;
@@ -0,0 +1,29 @@
+package com.jsoncompare.dto.compare;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComparisonCursorPageResponse {
+
+    private List<ComparisonListResponse> content;
+    private int size;
+    private boolean hasNext;
+
+    /**
+     * Opaque cursor to pass as the "cursor" parameter for the next page (null on the last page)
+     */
+    private String nextCursor;
+
+    /**
+     * Total number of comparisons, only populated when explicitly requested (includeTotal=true)
+     */
+    private Long totalElements;
+}
@@ -21,6 +21,11 @@ public class DiffDetail {
      */
     private String path;
 
+    /**
+     * Where the value comes from (for move/copy operations)
+     */
+    private String from;
+
     /**
      * The value in JSON A (for remove/replace operations)
      */
@@ -30,5 +35,11 @@ public class DiffDetail {
      * The value in JSON B (for add/replace operations)
      */
     private Object toValue;
+
+    /**
+     * Number of array elements a range operation covers (path ending in "first..last");
+     * null for single operations
+     */
+    private Integer count;
 }
 
@@ -0,0 +1,62 @@
+package com.jsoncompare.dto.compare;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates of a diff, computed during the diff walk (result format SUMMARY)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiffSummary {
+
+    private long totalChanges;
+
+    /**
+     * Changes by operation: add, remove, replace, copy
+     */
+    private Map<String, Long> byOperation;
+
+    /**
+     * Number of leading path segments the byPath buckets keep
+     */
+    private int pathDepth;
+
+    /**
+     * Changes by path prefix (e.g. "/data/items" at depth 2)
+     */
+    private Map<String, Long> byPath;
+
+    /**
+     * Changes under prefixes that arrived once the bucket limit was reached
+     */
+    private long otherPaths;
+
+    /**
+     * Replaces that changed the value's type, e.g. "string->number"
+     */
+    private Map<String, Long> typeChanges;
+
+    /**
+     * The changed values with the most nodes, largest first
+     */
+    private List<ChangedSubtree> largestChanges;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChangedSubtree {
+
+        private String path;
+        private String operation;
+        private long nodeCount;
+    }
+}
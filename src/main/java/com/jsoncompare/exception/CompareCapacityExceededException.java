@@ -0,0 +1,19 @@
+package com.jsoncompare.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The compare worker pool and its queue are full; mapped to 503 with a Retry-After header
+ */
+@Getter
+public class CompareCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CompareCapacityExceededException(Duration retryAfter) {
+        super("Too many comparisons in progress, retry after " + Math.max(1, (retryAfter.toMillis() + 999) / 1000) + "s");
+        this.retryAfter = retryAfter;
+    }
+}
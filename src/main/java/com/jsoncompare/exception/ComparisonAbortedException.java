@@ -0,0 +1,28 @@
+package com.jsoncompare.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * A comparison was abandoned before it finished: its deadline passed or the client went away.
+ * Carries the id of the comparison recorded as FAILED, once there is one.
+ */
+@Getter
+public class ComparisonAbortedException extends RuntimeException {
+
+    private final UUID comparisonId;
+
+    public ComparisonAbortedException(String reason) {
+        this(reason, null);
+    }
+
+    public ComparisonAbortedException(String reason, UUID comparisonId) {
+        super(reason);
+        this.comparisonId = comparisonId;
+    }
+
+    public ComparisonAbortedException withComparisonId(UUID id) {
+        return new ComparisonAbortedException(getMessage(), id);
+    }
+}
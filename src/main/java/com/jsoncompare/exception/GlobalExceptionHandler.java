@@ -2,6 +2,7 @@ package com.jsoncompare.exception;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -29,6 +30,47 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimitExceeded(RateLimitExceededException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        log.debug("Rate limited: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of(
+                        "error", "Too Many Requests",
+                        "message", ex.getMessage(),
+                        "timestamp", LocalDateTime.now().toString()
+                ));
+    }
+
+    // Shed load instead of running the diff on the request thread
+    @ExceptionHandler(CompareCapacityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleCompareCapacityExceeded(CompareCapacityExceededException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        log.warn("Compare capacity exceeded: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of(
+                        "error", "Service Unavailable",
+                        "message", ex.getMessage(),
+                        "timestamp", LocalDateTime.now().toString()
+                ));
+    }
+
+    // Deadline exceeded maps to 504 (as gRPC maps DEADLINE_EXCEEDED); the FAILED comparison's id is included
+    @ExceptionHandler(ComparisonAbortedException.class)
+    public ResponseEntity<Map<String, Object>> handleComparisonAborted(ComparisonAbortedException ex) {
+        log.warn("Comparison aborted: {}", ex.getMessage());
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Gateway Timeout");
+        body.put("message", ex.getMessage());
+        if (ex.getComparisonId() != null) {
+            body.put("comparisonId", ex.getComparisonId());
+        }
+        body.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(body);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,19 @@
+package com.jsoncompare.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The caller's rate limit is exhausted; mapped to 429 with a Retry-After header
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(Duration retryAfter) {
+        super("Rate limit exceeded, retry after " + Math.max(1, (retryAfter.toMillis() + 999) / 1000) + "s");
+        this.retryAfter = retryAfter;
+    }
+}
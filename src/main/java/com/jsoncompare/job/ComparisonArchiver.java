@@ -0,0 +1,90 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.service.ComparisonArchiveService;
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Archives completed comparisons that have not been created, re-compared or restored within the
+ * configured age. Each batch runs in its own transaction; an archived comparison is
+ * restored transparently the next time it is read.
+ */
+@Component
+@ConditionalOnProperty(name = "compare.archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ComparisonArchiver implements MaintenanceJob {
+
+    private final ComparisonDiffRepository comparisonDiffRepository;
+    private final ComparisonArchiveService archiveService;
+    private final ShardRouter shardRouter;
+
+    private final JobRunStats stats = new JobRunStats();
+
+    @Value("${compare.archive.after:P90D}")
+    private Duration archiveAfter;
+
+    @Value("${compare.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${compare.archive.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(fixedDelayString = "${compare.archive.interval:PT1H}",
+            initialDelayString = "${compare.archive.initial-delay:PT5M}")
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void archive() {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        long archived = 0;
+        for (String shard : shardRouter.shardNames()) {
+            archived += shardRouter.onShard(shard, () -> archiveShard(cutoff));
+        }
+
+        stats.recordRun(archived, System.currentTimeMillis() - started);
+        if (archived > 0) {
+            log.info("Archived {} comparisons (inactive since {})", archived, cutoff);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "comparisonArchiver";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return stats.toMap("rowsArchived");
+    }
+
+    private long archiveShard(LocalDateTime cutoff) {
+        long archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<UUID> ids = comparisonDiffRepository.findIdsToArchive(cutoff, PageRequest.ofSize(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            archived += archiveService.archive(ids);
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+}
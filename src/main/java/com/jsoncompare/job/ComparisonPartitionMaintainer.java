@@ -0,0 +1,143 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps monthly range partitions of comparison_diffs (PostgreSQL, see database-partition-comparison-diffs.sql).
+ * Creates partitions for the current month and the configured number of months ahead, so inserts
+ * never land in the default partition, and optionally detaches partitions older than the retention.
+ * Detached partitions become standalone tables that can be archived or dropped separately.
+ */
+@Component
+@ConditionalOnProperty(name = "compare.partitioning.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ComparisonPartitionMaintainer implements MaintenanceJob {
+
+    static final String PARENT_TABLE = "comparison_diffs";
+    static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    private final JobRunStats stats = new JobRunStats();
+
+    @Value("${compare.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${compare.partitioning.detach-after-months:0}")
+    private int detachAfterMonths;
+
+    @Scheduled(fixedDelayString = "${compare.partitioning.interval:PT6H}",
+            initialDelayString = "${compare.partitioning.initial-delay:PT10S}")
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void maintain() {
+        long started = System.currentTimeMillis();
+        YearMonth current = YearMonth.now();
+        long changed = 0;
+        for (String shard : shardRouter.shardNames()) {
+            changed += shardRouter.onShard(shard, () -> maintainShard(current));
+        }
+
+        stats.recordRun(changed, System.currentTimeMillis() - started);
+    }
+
+    @Override
+    public String getName() {
+        return "comparisonPartitionMaintainer";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return stats.toMap("partitionsChanged");
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    static YearMonth parseMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private long maintainShard(YearMonth current) {
+        long changed = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            if (createPartitionIfMissing(current.plusMonths(i))) {
+                changed++;
+            }
+        }
+
+        if (detachAfterMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(detachAfterMonths);
+            for (String partition : listPartitions()) {
+                YearMonth month = parseMonth(partition);
+                if (month != null && month.isBefore(oldestKept) && detach(partition)) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean createPartitionIfMissing(YearMonth month) {
+        String name = partitionName(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, name) != null) {
+            return false;
+        }
+        try {
+            // Names and bounds are generated from YearMonth, never from user input
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT_TABLE
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            log.info("Created partition {}", name);
+            return true;
+        } catch (DataAccessException e) {
+            // Typically rows for this month already sit in the default partition
+            log.warn("Could not create partition {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = '" + PARENT_TABLE + "'::regclass ORDER BY c.relname",
+                String.class);
+    }
+
+    private boolean detach(String partition) {
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            log.info("Detached partition {}", partition);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Could not detach partition {}: {}", partition, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
+import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deletes user_sessions rows whose expiry is older than the retention period.
+ * Logged-out, refreshed and revoked sessions are removed by the same rule once they have
+ * expired, so unexpired revocations stay visible to the revocation list until then.
+ * Work is done in bounded batches walking idx_expires_at, with a pause between batches.
+ */
+@Component
+@ConditionalOnProperty(name = "session.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ExpiredSessionSweeper implements MaintenanceJob {
+
+    private final UserSessionRepository userSessionRepository;
+    private final ShardRouter shardRouter;
+
+    private final JobRunStats stats = new JobRunStats();
+
+    @Value("${session.sweeper.retention:P7D}")
+    private Duration retention;
+
+    @Value("${session.sweeper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${session.sweeper.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${session.sweeper.pause-between-batches:100ms}")
+    private Duration pauseBetweenBatches;
+
+    @Scheduled(fixedDelayString = "${session.sweeper.interval:PT10M}",
+            initialDelayString = "${session.sweeper.initial-delay:PT1M}")
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void sweep() {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long removed = 0;
+        for (String shard : shardRouter.shardNames()) {
+            removed += shardRouter.onShard(shard, () -> sweepShard(cutoff));
+        }
+
+        stats.recordRun(removed, System.currentTimeMillis() - started);
+        if (removed > 0) {
+            log.info("Expired session sweep removed {} sessions (expired before {})", removed, cutoff);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "expiredSessionSweeper";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return stats.toMap("rowsRemoved");
+    }
+
+    private long sweepShard(LocalDateTime cutoff) {
+        long removed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<UUID> ids = userSessionRepository.findIdsExpiredBefore(cutoff, PageRequest.ofSize(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            userSessionRepository.deleteAllByIdInBatch(ids);
+            removed += ids.size();
+
+            if (ids.size() < batchSize || !MaintenanceJob.pause(pauseBetweenBatches)) {
+                break;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jsoncompare.job;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe counters for a maintenance job: runs, rows processed and last run details
+ */
+public class JobRunStats {
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalRows = new AtomicLong();
+    private final AtomicLong lastRunRows = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+
+    public void recordRun(long rows, long durationMillis) {
+        runs.incrementAndGet();
+        totalRows.addAndGet(rows);
+        lastRunRows.set(rows);
+        lastRunMillis.set(durationMillis);
+        lastRunAt.set(LocalDateTime.now());
+    }
+
+    public long getTotalRows() {
+        return totalRows.get();
+    }
+
+    public Map<String, Object> toMap(String rowsLabel) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runs", runs.get());
+        result.put(rowsLabel + "Total", totalRows.get());
+        result.put(rowsLabel + "LastRun", lastRunRows.get());
+        result.put("lastRunMillis", lastRunMillis.get());
+        result.put("lastRunAt", lastRunAt.get() == null ? null : lastRunAt.get().toString());
+        return result;
+    }
+}
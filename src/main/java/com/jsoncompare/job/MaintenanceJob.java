@@ -0,0 +1,32 @@
+package com.jsoncompare.job;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Background maintenance task whose run statistics are reported on /api/health/jobs
+ */
+public interface MaintenanceJob {
+
+    String getName();
+
+    Map<String, Object> stats();
+
+    /**
+     * Sleep between two batches of a run, so a long run leaves room for request traffic
+     *
+     * @return false if the thread was interrupted; the run should stop there
+     */
+    static boolean pause(Duration pauseBetweenBatches) {
+        if (pauseBetweenBatches.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseBetweenBatches.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
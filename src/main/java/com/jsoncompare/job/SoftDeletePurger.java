@@ -0,0 +1,95 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
+import com.jsoncompare.repository.ComparisonArchiveRepository;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hard-deletes comparisons that were soft-deleted longer ago than the grace period,
+ * together with any archived payload. Works in bounded batches walking
+ * idx_comparison_deleted_updated, with a pause between batches.
+ */
+@Component
+@ConditionalOnProperty(name = "compare.purge.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SoftDeletePurger implements MaintenanceJob {
+
+    private final ComparisonDiffRepository comparisonDiffRepository;
+    private final ComparisonArchiveRepository comparisonArchiveRepository;
+    private final ShardRouter shardRouter;
+
+    private final JobRunStats stats = new JobRunStats();
+
+    @Value("${compare.purge.grace-period:P30D}")
+    private Duration gracePeriod;
+
+    @Value("${compare.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${compare.purge.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${compare.purge.pause-between-batches:200ms}")
+    private Duration pauseBetweenBatches;
+
+    @Scheduled(fixedDelayString = "${compare.purge.interval:PT1H}",
+            initialDelayString = "${compare.purge.initial-delay:PT2M}")
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void purge() {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        long removed = 0;
+        for (String shard : shardRouter.shardNames()) {
+            removed += shardRouter.onShard(shard, () -> purgeShard(cutoff));
+        }
+
+        stats.recordRun(removed, System.currentTimeMillis() - started);
+        if (removed > 0) {
+            log.info("Soft-delete purge removed {} comparisons (deleted before {})", removed, cutoff);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "softDeletePurger";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        return stats.toMap("rowsPurged");
+    }
+
+    private long purgeShard(LocalDateTime cutoff) {
+        long removed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<UUID> ids = comparisonDiffRepository.findIdsSoftDeletedBefore(cutoff, PageRequest.ofSize(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            comparisonArchiveRepository.deleteAllByIdInBatch(ids);
+            comparisonDiffRepository.deleteAllByIdInBatch(ids);
+            removed += ids.size();
+
+            if (ids.size() < batchSize || !MaintenanceJob.pause(pauseBetweenBatches)) {
+                break;
+            }
+        }
+        return removed;
+    }
+}
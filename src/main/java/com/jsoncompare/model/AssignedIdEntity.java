@@ -0,0 +1,30 @@
+package com.jsoncompare.model;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+/**
+ * Entity whose id is assigned by the application before the row is written. Spring Data would
+ * take such a row for an existing one and merge it (a SELECT before every INSERT); tracking
+ * newness here lets save() persist it directly.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity implements Persistable<UUID> {
+
+    private transient boolean newEntity = true;
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+}
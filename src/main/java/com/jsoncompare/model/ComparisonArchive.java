@@ -0,0 +1,41 @@
+package com.jsoncompare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cold storage for an archived comparison: inputs and result as one gzip-compressed JSON document.
+ * Keyed by the comparison id; the row is removed again when the comparison is restored.
+ */
+@Entity
+@Table(name = "comparison_archives")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComparisonArchive extends AssignedIdEntity {
+
+    @Id
+    @Column(name = "comparison_id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID comparisonId;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    @Column(name = "original_bytes", nullable = false)
+    private Long originalBytes;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Override
+    public UUID getId() {
+        return comparisonId;
+    }
+}
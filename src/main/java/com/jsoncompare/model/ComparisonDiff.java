@@ -1,30 +1,37 @@
 package com.jsoncompare.model;
 
 import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.model.enums.DiffStrategy;
+import com.jsoncompare.model.enums.ResultFormat;
+import com.jsoncompare.model.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+// History lookups use partial indexes on live rows (deleted = false), which JPA cannot
+// declare; see PartialIndexInitializer and database-partial-indexes.sql
 @Table(name = "comparison_diffs", indexes = {
-        @Index(name = "idx_created_by_created", columnList = "created_by_id, created_at"),
         @Index(name = "idx_comparison_status", columnList = "comparison_status")
 })
 @Data
+@EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
 @AllArgsConstructor
-public class ComparisonDiff {
+public class ComparisonDiff extends AssignedIdEntity {
 
+    // Characters of each input shown in history lists
+    public static final int PREVIEW_LENGTH = 100;
+
+    // Time-ordered UUIDv7, assigned by the application (or on persist) so the id is known before the row is written
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
     @Column(updatable = false, nullable = false, columnDefinition = "uuid")
     private UUID id;
 
@@ -65,8 +72,66 @@ public class ComparisonDiff {
     @Column(nullable = false)
     private Boolean deleted = false;
 
+    // Diff summary kept on the row so list views never need to parse (or restore) the result
+    @Column(name = "diff_count")
+    private Integer diffCount;
+
+    // SHA-256 (hex) of each input, recorded when the comparison is archived
+    @Column(name = "fingerprint_a", length = 64)
+    private String fingerprintA;
+
+    @Column(name = "fingerprint_b", length = 64)
+    private String fingerprintB;
+
+    // Start of each input for history lists, kept on the row while the inputs are archived
+    @Column(name = "preview_a", length = PREVIEW_LENGTH + 3)
+    private String previewA;
+
+    @Column(name = "preview_b", length = PREVIEW_LENGTH + 3)
+    private String previewB;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    // Last time the row was brought back from the archive; it is not archived again for a full period
+    @Column(name = "restored_at")
+    private LocalDateTime restoredAt;
+
+    // How the diff was computed and the pre-scan estimate that chose it (null for older rows)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "diff_strategy", length = 30)
+    private DiffStrategy diffStrategy;
+
+    @Embedded
+    private DiffCostEstimate costEstimate;
+
+    // What result holds: the full patch or only a summary of it
+    @Enumerated(EnumType.STRING)
+    @Column(name = "result_format", length = 30)
+    private ResultFormat resultFormat = ResultFormat.PATCH;
+
+    // Why the last run ended FAILED (deadline exceeded, client disconnected); null otherwise
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    // Persistence lifecycle
+
+    @PrePersist
+    void assignIdIfMissing() {
+        if (this.id == null) {
+            this.id = UuidV7.generate();
+        }
+    }
+
     // Helper methods
 
+    /**
+     * Rows written before result formats existed hold a patch
+     */
+    public ResultFormat getResultFormat() {
+        return resultFormat != null ? resultFormat : ResultFormat.PATCH;
+    }
+
     /**
      * Soft delete the comparison
      * Sets deleted flag and archives the status
@@ -95,6 +160,7 @@ public class ComparisonDiff {
     public void markAsCompared() {
         this.lastComparedAt = LocalDateTime.now();
         this.comparisonStatus = ComparisonStatus.COMPLETED;
+        this.failureReason = null;
     }
 
     /**
@@ -105,17 +171,67 @@ public class ComparisonDiff {
     }
 
     /**
-     * Mark comparison as failed
+     * Mark comparison as failed, recording why
      */
-    public void markAsFailed() {
+    public void markAsFailed(String reason) {
+        this.lastComparedAt = LocalDateTime.now();
         this.comparisonStatus = ComparisonStatus.FAILED;
+        this.failureReason = reason;
     }
 
     /**
      * Archive the comparison
+     * Inputs and result move to comparison_archives; the row keeps metadata, fingerprints and previews
      */
     public void archive() {
         this.comparisonStatus = ComparisonStatus.ARCHIVED;
+        this.archivedAt = LocalDateTime.now();
+        this.previewA = preview(inputStringA);
+        this.previewB = preview(inputStringB);
+        this.inputStringA = "";
+        this.inputStringB = "";
+        this.result = "";
+    }
+
+    /**
+     * Bring an archived comparison back to the hot table
+     */
+    public void unarchive(String inputStringA, String inputStringB, String result) {
+        this.inputStringA = inputStringA;
+        this.inputStringB = inputStringB;
+        this.result = result;
+        this.previewA = null;
+        this.previewB = null;
+        this.archivedAt = null;
+        this.restoredAt = LocalDateTime.now();
+        this.comparisonStatus = ComparisonStatus.COMPLETED;
+    }
+
+    /**
+     * Start of input A for history lists, also while the input itself is archived
+     */
+    public String getInputPreviewA() {
+        return isArchived() ? previewA : preview(inputStringA);
+    }
+
+    /**
+     * Start of input B for history lists, also while the input itself is archived
+     */
+    public String getInputPreviewB() {
+        return isArchived() ? previewB : preview(inputStringB);
+    }
+
+    private static String preview(String input) {
+        if (input == null) return null;
+        if (input.length() <= PREVIEW_LENGTH) return input;
+        return input.substring(0, PREVIEW_LENGTH) + "...";
+    }
+
+    /**
+     * Check if comparison is archived
+     */
+    public boolean isArchived() {
+        return this.comparisonStatus == ComparisonStatus.ARCHIVED;
     }
 
     /**
@@ -0,0 +1,36 @@
+package com.jsoncompare.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-scan estimate a comparison's diff strategy was chosen from, kept on the row so the
+ * selection thresholds can be tuned from real traffic
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiffCostEstimate {
+
+    // Values (scalars, objects and arrays) in both inputs together
+    @Column(name = "est_node_count")
+    private Long nodeCount;
+
+    @Column(name = "est_max_depth")
+    private Integer maxDepth;
+
+    @Column(name = "est_max_array_length")
+    private Integer maxArrayLength;
+
+    // Estimated Jaccard similarity of the inputs' (field, value) pairs, 0..1
+    @Column(name = "est_similarity")
+    private Double similarity;
+
+    // Share of objects directly inside arrays that carry an id-like field, 0..1
+    @Column(name = "est_keyed_ratio")
+    private Double keyedArrayRatio;
+}
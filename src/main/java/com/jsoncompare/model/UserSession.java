@@ -1,6 +1,7 @@
 package com.jsoncompare.model;
 
 import com.jsoncompare.model.enums.UserSessionStatus;
+import com.jsoncompare.model.id.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,12 +9,15 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "user_sessions", indexes = {
-        @Index(name = "idx_auth_token", columnList = "auth_token"),
+        @Index(name = "idx_auth_token_hash", columnList = "auth_token_hash", unique = true),
         @Index(name = "idx_expires_at", columnList = "expires_at"),
         @Index(name = "idx_user_status", columnList = "user_id, status")
 })
@@ -22,9 +26,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class UserSession {
 
+    public static final int TOKEN_HASH_LENGTH = 32;
+
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue(generator = "UUIDv7")
+    @GenericGenerator(name = "UUIDv7", type = UuidV7Generator.class)
     @Column(updatable = false, nullable = false, columnDefinition = "uuid")
     private UUID id;
 
@@ -32,8 +38,17 @@ public class UserSession {
     @JoinColumn(name = "user_id", nullable = false, columnDefinition = "uuid")
     private User user;
 
-    @Column(name = "auth_token", nullable = false, columnDefinition = "TEXT")
-    private String authToken;
+    // Read-only view of user_id, available without touching the lazy association (shard routing)
+    @Column(name = "user_id", insertable = false, updatable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    // SHA-256 digest of the token; the raw token is never stored
+    @Column(name = "auth_token_hash", nullable = false, length = TOKEN_HASH_LENGTH)
+    private byte[] authTokenHash;
+
+    // JWT id ("jti") of the signed access token issued for this session
+    @Column(name = "token_id", unique = true, columnDefinition = "uuid")
+    private UUID tokenId;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -54,6 +69,24 @@ public class UserSession {
 
     // Helper methods
 
+    /**
+     * Set the session token, storing only its digest
+     */
+    public void setAuthToken(String authToken) {
+        this.authTokenHash = hashToken(authToken);
+    }
+
+    /**
+     * Fixed-width SHA-256 digest used to store and look up session tokens
+     */
+    public static byte[] hashToken(String authToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(authToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Check if the session is still valid
      * Valid = not deleted AND status is ACTIVE AND not expired
@@ -0,0 +1,28 @@
+package com.jsoncompare.model.enums;
+
+/**
+ * How a comparison's diff was computed; chosen per request from a cost estimate
+ */
+public enum DiffStrategy {
+    // zjsonpatch over both parsed trees (LCS on arrays, smallest patches)
+    TREE(true),
+    // Both inputs walked token by token in lockstep; only diverging subtrees are materialized
+    STREAMING(false),
+    // Arrays of records matched by an id-like field instead of LCS; other arrays as TREE
+    KEYED_ARRAY(true),
+    // Likely identical inputs confirmed token by token; falls back to TREE if they differ after all
+    IDENTICAL_ONLY(false);
+
+    private final boolean buildsTrees;
+
+    DiffStrategy(boolean buildsTrees) {
+        this.buildsTrees = buildsTrees;
+    }
+
+    /**
+     * Whether both inputs are parsed into trees before diffing
+     */
+    public boolean buildsTrees() {
+        return buildsTrees;
+    }
+}
@@ -0,0 +1,17 @@
+package com.jsoncompare.model.enums;
+
+/**
+ * What a comparison's result holds; chosen per request and kept on the row
+ */
+public enum ResultFormat {
+    // The full JSON Patch (RFC 6902), one operation per difference
+    PATCH,
+    // Only aggregates (counts by operation and path prefix, type changes, largest changes)
+    SUMMARY,
+    // The patch's operations grouped under their path segments, each segment written once
+    NESTED,
+    // The patch with runs on contiguous array elements coalesced into range operations (/arr/3..9)
+    RANGES,
+    // As RANGES, with range operations carrying only their count, not the values
+    RANGES_WITHOUT_VALUES
+}
@@ -0,0 +1,59 @@
+package com.jsoncompare.model.id;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUID version 7 (RFC 9562): 48-bit Unix epoch milliseconds followed by
+ * 74 random bits. Ids sort by creation time, so primary-key inserts are append-mostly,
+ * while the random part keeps them globally unique without coordination.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static UUID generate(long epochMillis) {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        long mostSigBits = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | 0x7000L                              // version 7
+                | (random[0] & 0x0FL) << 8
+                | (random[1] & 0xFFL);
+
+        long leastSigBits = 0;
+        for (int i = 2; i < 10; i++) {
+            leastSigBits = leastSigBits << 8 | (random[i] & 0xFFL);
+        }
+        leastSigBits = leastSigBits & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L; // IETF variant
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Creation time embedded in a version 7 UUID
+     */
+    public static long timestampMillis(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Creation time of a version 7 UUID as a local date-time (system zone, like created_at columns)
+     */
+    public static LocalDateTime toLocalDateTime(UUID uuid) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis(uuid)), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,15 @@
+package com.jsoncompare.model.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate identifier generator producing time-ordered {@link UuidV7} ids
+ */
+public class UuidV7Generator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return UuidV7.generate();
+    }
+}
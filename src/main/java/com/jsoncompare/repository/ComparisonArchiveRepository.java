@@ -0,0 +1,11 @@
+package com.jsoncompare.repository;
+
+import com.jsoncompare.model.ComparisonArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ComparisonArchiveRepository extends JpaRepository<ComparisonArchive, UUID> {
+}
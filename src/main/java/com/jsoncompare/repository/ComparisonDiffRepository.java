@@ -2,11 +2,17 @@ package com.jsoncompare.repository;
 
 import com.jsoncompare.model.ComparisonDiff;
 import com.jsoncompare.model.enums.ComparisonStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,9 +23,16 @@ public interface ComparisonDiffRepository extends JpaRepository<ComparisonDiff,
     // Find by ID and not deleted
     Optional<ComparisonDiff> findByIdAndDeletedFalse(UUID id);
 
-    // Find by ID, user, and not deleted
+    // Find by ID, user, and not deleted. Read-only (replica-eligible) when called outside a transaction;
+    // declared query methods get no transaction of their own otherwise
+    @Transactional(readOnly = true)
     Optional<ComparisonDiff> findByIdAndCreatedByIdAndDeletedFalse(UUID id, UUID userId);
 
+    // Same lookup bounded on created_at so a partitioned table only probes the matching partition(s)
+    @Transactional(readOnly = true)
+    Optional<ComparisonDiff> findByIdAndCreatedByIdAndDeletedFalseAndCreatedAtBetween(
+            UUID id, UUID userId, LocalDateTime from, LocalDateTime to);
+
     // Find all by user (paginated)
     Page<ComparisonDiff> findByCreatedByIdAndDeletedFalseOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
@@ -32,5 +45,64 @@ public interface ComparisonDiffRepository extends JpaRepository<ComparisonDiff,
 
     // Count by user
     long countByCreatedByIdAndDeletedFalse(UUID userId);
-}
 
+    // Keyset pagination (newest first, no count query) restricted to rows created on or after
+    // :since (recent partitions only): first page, then rows strictly after the (createdAt, id) cursor
+    @Query("SELECT c FROM ComparisonDiff c " +
+            "WHERE c.createdBy.id = :userId AND c.deleted = false " +
+            "AND c.createdAt >= :since " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ComparisonDiff> findKeysetFirstPageSince(@Param("userId") UUID userId,
+                                                  @Param("since") LocalDateTime since,
+                                                  Pageable pageable);
+
+    @Query("SELECT c FROM ComparisonDiff c " +
+            "WHERE c.createdBy.id = :userId AND c.deleted = false " +
+            "AND c.createdAt >= :since AND c.createdAt <= :createdAt " +
+            "AND (c.createdAt < :createdAt OR c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ComparisonDiff> findKeysetPageAfterSince(@Param("userId") UUID userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") UUID id,
+                                                  @Param("since") LocalDateTime since,
+                                                  Pageable pageable);
+
+    // Keyset pagination: rows created before :before, continuing a page the recent window could not fill
+    @Query("SELECT c FROM ComparisonDiff c " +
+            "WHERE c.createdBy.id = :userId AND c.deleted = false " +
+            "AND c.createdAt < :before " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ComparisonDiff> findKeysetPageBefore(@Param("userId") UUID userId,
+                                              @Param("before") LocalDateTime before,
+                                              Pageable pageable);
+
+    // Size of the stored inputs, without loading them; for an archived row the uncompressed archive
+    // document (inputs and result), which a re-compare restores in full
+    @Transactional(readOnly = true)
+    @Query("SELECT COALESCE(a.originalBytes, CAST(LENGTH(c.inputStringA) AS Long) + LENGTH(c.inputStringB)) " +
+            "FROM ComparisonDiff c LEFT JOIN ComparisonArchive a ON a.comparisonId = c.id " +
+            "WHERE c.id = :id AND c.createdBy.id = :userId AND c.deleted = false")
+    Optional<Long> findStoredInputSize(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    // Archival: completed comparisons neither created, re-compared nor restored since the cutoff, oldest first
+    @Query("SELECT c.id FROM ComparisonDiff c " +
+            "WHERE c.comparisonStatus = com.jsoncompare.model.enums.ComparisonStatus.COMPLETED " +
+            "AND c.deleted = false AND c.createdAt < :cutoff " +
+            "AND (c.lastComparedAt IS NULL OR c.lastComparedAt < :cutoff) " +
+            "AND (c.restoredAt IS NULL OR c.restoredAt < :cutoff) " +
+            "ORDER BY c.createdAt")
+    List<UUID> findIdsToArchive(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Row locks so archiving and restoring never interleave on the same comparison
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ComparisonDiff c WHERE c.id IN :ids")
+    List<ComparisonDiff> findAllByIdForUpdate(@Param("ids") List<UUID> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ComparisonDiff c WHERE c.id = :id")
+    Optional<ComparisonDiff> findByIdForUpdate(@Param("id") UUID id);
+
+    // Purge: soft-deleted rows whose deletion is older than the cutoff, oldest first
+    @Query("SELECT c.id FROM ComparisonDiff c WHERE c.deleted = true AND c.updatedAt < :cutoff ORDER BY c.updatedAt")
+    List<UUID> findIdsSoftDeletedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
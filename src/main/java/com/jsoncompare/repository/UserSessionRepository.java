@@ -2,9 +2,15 @@ package com.jsoncompare.repository;
 
 import com.jsoncompare.model.UserSession;
 import com.jsoncompare.model.enums.UserSessionStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,14 +18,47 @@ import java.util.UUID;
 @Repository
 public interface UserSessionRepository extends JpaRepository<UserSession, UUID> {
 
-    Optional<UserSession> findByAuthToken(String authToken);
+    // Tokens are stored as SHA-256 digests; the String variants hash before looking up
 
-    Optional<UserSession> findByAuthTokenAndDeletedFalse(String authToken);
+    Optional<UserSession> findByAuthTokenHash(byte[] authTokenHash);
 
-    Optional<UserSession> findByAuthTokenAndStatus(String authToken, UserSessionStatus status);
+    // These fetch the user in the same query so the session can be used outside a transaction
+    @EntityGraph(attributePaths = "user")
+    Optional<UserSession> findByAuthTokenHashAndDeletedFalse(byte[] authTokenHash);
+
+    // Read-only (replica-eligible) for the uncached session lookup of getCurrentUser
+    @EntityGraph(attributePaths = "user")
+    @Transactional(readOnly = true)
+    Optional<UserSession> findByAuthTokenHashAndStatus(byte[] authTokenHash, UserSessionStatus status);
+
+    default Optional<UserSession> findByAuthToken(String authToken) {
+        return findByAuthTokenHash(UserSession.hashToken(authToken));
+    }
+
+    default Optional<UserSession> findByAuthTokenAndDeletedFalse(String authToken) {
+        return findByAuthTokenHashAndDeletedFalse(UserSession.hashToken(authToken));
+    }
+
+    default Optional<UserSession> findByAuthTokenAndStatus(String authToken, UserSessionStatus status) {
+        return findByAuthTokenHashAndStatus(UserSession.hashToken(authToken), status);
+    }
 
     List<UserSession> findByUserIdAndDeletedFalse(UUID userId);
 
     List<UserSession> findByUserIdAndStatus(UUID userId, UserSessionStatus status);
+
+    // Signed tokens of sessions that are no longer active but whose tokens have not expired yet
+    List<RevokedTokenView> findByStatusNotAndTokenIdNotNullAndExpiresAtAfter(UserSessionStatus status,
+                                                                              LocalDateTime now);
+
+    // Oldest sessions that expired before the cutoff, walking idx_expires_at (used by the sweeper)
+    @Query("SELECT s.id FROM UserSession s WHERE s.expiresAt < :cutoff ORDER BY s.expiresAt")
+    List<UUID> findIdsExpiredBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    interface RevokedTokenView {
+        UUID getTokenId();
+
+        LocalDateTime getExpiresAt();
+    }
 }
 
@@ -0,0 +1,106 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and verifies HMAC-signed JWT access tokens.
+ * Verification is CPU only; revocation is checked separately against {@link SessionRevocationList}.
+ */
+@Component
+public class AccessTokenService {
+
+    private static final String CLAIM_EMAIL = "email";
+    private static final String CLAIM_ROLES = "roles";
+
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    public AccessTokenService(@Value("${jwt.secret}") String secret) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+    }
+
+    public String issue(User user, UUID tokenId, LocalDateTime expiresAt) {
+        return Jwts.builder()
+                .id(tokenId.toString())
+                .subject(user.getId().toString())
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_ROLES, user.getRoles())
+                .issuedAt(new Date())
+                .expiration(Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant()))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * Verify the signature and expiry of a token and extract its principal
+     */
+    public AuthenticatedPrincipal verify(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return AuthenticatedPrincipal.builder()
+                    .userId(toUuid(claims.getSubject()))
+                    .email(claims.get(CLAIM_EMAIL, String.class))
+                    .roles(toRoles(claims.get(CLAIM_ROLES)))
+                    .tokenId(toUuid(claims.getId()))
+                    .expiresAt(LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()))
+                    .build();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid or expired session");
+        }
+    }
+
+    /**
+     * User id of a correctly signed token, even if it has expired (used to locate its session);
+     * null for tokens that are not valid signed tokens
+     */
+    public UUID peekUserId(String token) {
+        try {
+            return toUuid(parser.parseSignedClaims(token).getPayload().getSubject());
+        } catch (ExpiredJwtException e) {
+            // Signature was verified before the expiry check
+            String subject = e.getClaims().getSubject();
+            return subject == null ? null : UUID.fromString(subject);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Signed tokens have three dot-separated parts; legacy session tokens are UUID pairs
+     */
+    public boolean isSignedToken(String token) {
+        int first = token.indexOf('.');
+        return first > 0 && token.indexOf('.', first + 1) > first;
+    }
+
+    private UUID toUuid(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing claim");
+        }
+        return UUID.fromString(value);
+    }
+
+    private List<String> toRoles(Object claim) {
+        if (claim instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+}
@@ -1,5 +1,7 @@
 package com.jsoncompare.service;
 
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
 import com.jsoncompare.dto.auth.*;
 import com.jsoncompare.model.User;
 import com.jsoncompare.model.UserSession;
@@ -7,35 +9,44 @@ import com.jsoncompare.model.enums.UserSessionStatus;
 import com.jsoncompare.model.enums.UserStatus;
 import com.jsoncompare.repository.UserRepository;
 import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.shard.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
+@Workload(WorkloadPool.AUTH)
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
     private final UserRepository userRepository;
     private final UserSessionRepository userSessionRepository;
+    private final SessionTokenCache sessionTokenCache;
+    private final AccessTokenService accessTokenService;
+    private final SessionRevocationList sessionRevocationList;
+    private final ShardRouter shardRouter;
+    private final CompareMetrics compareMetrics;
 
     // Token expiration: 24 hours
     private static final long TOKEN_EXPIRATION_HOURS = 24;
 
-    @Transactional
+    // Not @Transactional: with sharding the user (directory) and its session (home shard)
+    // may live in different databases, so each write commits on its own
     public AuthResponse register(RegisterRequest request) {
         // Validate passwords match
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new IllegalArgumentException("Passwords do not match");
         }
 
-        // Check if email already exists
-        if (userRepository.existsByEmailAndDeletedFalse(request.getEmail())) {
+        // Check if email already exists (the directory holds every user)
+        if (shardRouter.onDirectory(() -> userRepository.existsByEmailAndDeletedFalse(request.getEmail()))) {
             throw new IllegalArgumentException("Email already registered");
         }
 
@@ -47,17 +58,18 @@ public class AuthService {
         user.setRoles(List.of("USER"));
         user.setDeleted(false);
 
-        user = userRepository.save(user);
-        log.info("User registered successfully: {}", user.getEmail());
+        User saved = shardRouter.onDirectory(() -> userRepository.save(user));
+        shardRouter.copyUserToHomeShard(saved.getId());
+        log.info("User registered successfully: {}", saved.getEmail());
 
         // Create session and return auth response
-        return createSessionAndResponse(user, "Registration successful");
+        return createSessionAndResponse(saved, "Registration successful");
     }
 
-    @Transactional
     public AuthResponse login(LoginRequest request) {
         // Find user by email
-        User user = userRepository.findByEmailAndDeletedFalse(request.getEmail().toLowerCase().trim())
+        String email = request.getEmail().toLowerCase().trim();
+        User user = shardRouter.onDirectory(() -> userRepository.findByEmailAndDeletedFalse(email))
                 .orElseThrow(() -> new IllegalArgumentException("Invalid email or password"));
 
         // Verify password
@@ -76,29 +88,47 @@ public class AuthService {
         return createSessionAndResponse(user, "Login successful");
     }
 
-    @Transactional
     public void logout(String token) {
-        UserSession session = userSessionRepository.findByAuthTokenAndDeletedFalse(token)
+        UserSession session = findSession(token, userSessionRepository::findByAuthTokenAndDeletedFalse)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid session"));
 
         session.logout();
-        userSessionRepository.save(session);
+        shardRouter.runOnUserShard(session.getUserId(), () -> userSessionRepository.save(session));
+        sessionTokenCache.invalidate(token);
+        sessionRevocationList.revoke(session.getTokenId(), session.getExpiresAt());
 
         log.info("User logged out successfully");
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Resolve the caller of an API request.
+     * Signed tokens are verified locally (signature, expiry and revocation list) without touching
+     * the database; legacy opaque tokens fall back to the cached session lookup.
+     */
+    public AuthenticatedPrincipal authenticate(String token) {
+        return compareMetrics.time(CompareMetrics.Phase.AUTH, CompareMetrics.NO_SIZE, () -> resolvePrincipal(token));
+    }
+
+    // Not @Transactional so that a cache hit costs no database round trip or pool checkout;
+    // on a miss the session and its user are loaded by a single repository query (the user
+    // from the directory by a second one when sharded)
     public UserResponse getCurrentUser(String token) {
-        UserSession session = userSessionRepository.findByAuthTokenAndStatus(token, UserSessionStatus.ACTIVE)
+        UserResponse cached = sessionTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        UserSession session = findSession(token,
+                        t -> userSessionRepository.findByAuthTokenAndStatus(t, UserSessionStatus.ACTIVE))
                 .orElseThrow(() -> new IllegalArgumentException("Invalid or expired session"));
 
         if (session.isExpired()) {
             throw new IllegalArgumentException("Session expired");
         }
 
-        User user = session.getUser();
+        User user = userOf(session);
 
-        return UserResponse.builder()
+        UserResponse response = UserResponse.builder()
                 .id(user.getId())
                 .email(user.getEmail())
                 .status(user.getStatus())
@@ -106,18 +136,22 @@ public class AuthService {
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
                 .build();
+
+        sessionTokenCache.put(token, response, session.getExpiresAt());
+        return response;
     }
 
-    @Transactional
     public AuthResponse refreshToken(String token) {
-        UserSession oldSession = userSessionRepository.findByAuthTokenAndDeletedFalse(token)
+        UserSession oldSession = findSession(token, userSessionRepository::findByAuthTokenAndDeletedFalse)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid session"));
 
-        User user = oldSession.getUser();
+        User user = userOf(oldSession);
 
         // Invalidate old session
         oldSession.invalidate();
-        userSessionRepository.save(oldSession);
+        shardRouter.runOnUserShard(oldSession.getUserId(), () -> userSessionRepository.save(oldSession));
+        sessionTokenCache.invalidate(token);
+        sessionRevocationList.revoke(oldSession.getTokenId(), oldSession.getExpiresAt());
 
         // Create new session
         return createSessionAndResponse(user, "Token refreshed successfully");
@@ -125,21 +159,40 @@ public class AuthService {
 
     // ==================== Helper Methods ====================
 
+    private AuthenticatedPrincipal resolvePrincipal(String token) {
+        if (accessTokenService.isSignedToken(token)) {
+            AuthenticatedPrincipal principal = accessTokenService.verify(token);
+            if (sessionRevocationList.isRevoked(principal.getTokenId())) {
+                throw new IllegalArgumentException("Invalid or expired session");
+            }
+            return principal;
+        }
+
+        UserResponse user = getCurrentUser(token);
+        return AuthenticatedPrincipal.builder()
+                .userId(user.getId())
+                .email(user.getEmail())
+                .roles(user.getRoles())
+                .build();
+    }
+
     private AuthResponse createSessionAndResponse(User user, String message) {
-        // Generate token
-        String token = generateToken();
+        // Generate signed access token
+        UUID tokenId = UUID.randomUUID();
         LocalDateTime expiresAt = LocalDateTime.now().plusHours(TOKEN_EXPIRATION_HOURS);
+        String token = accessTokenService.issue(user, tokenId, expiresAt);
 
-        // Create session
+        // Create session (kept for revocation and /me lookups)
         UserSession session = new UserSession();
         session.setUser(user);
         session.setAuthToken(token);
+        session.setTokenId(tokenId);
         session.setExpiresAt(expiresAt);
         session.setAdminLogin(user.hasRole("ADMIN"));
         session.setStatus(UserSessionStatus.ACTIVE);
         session.setDeleted(false);
 
-        userSessionRepository.save(session);
+        shardRouter.runOnUserShard(user.getId(), () -> userSessionRepository.save(session));
 
         return AuthResponse.builder()
                 .userId(user.getId())
@@ -151,10 +204,28 @@ public class AuthService {
                 .build();
     }
 
-    private String generateToken() {
-        // Simple UUID-based token for now
-        // TODO: Replace with JWT when Spring Security is enabled
-        return UUID.randomUUID().toString() + "-" + UUID.randomUUID().toString();
+    /**
+     * The session's user as the directory has it. With sharding the home shard only holds a copy
+     * of the users row (for foreign keys) that is not kept up to date after registration.
+     */
+    private User userOf(UserSession session) {
+        if (!shardRouter.isEnabled()) {
+            return session.getUser();
+        }
+        return shardRouter.onDirectory(() -> userRepository.findById(session.getUserId()))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid or expired session"));
+    }
+
+    /**
+     * Look up a session on the shard that owns it: signed tokens name their user,
+     * legacy opaque tokens are searched shard by shard
+     */
+    private Optional<UserSession> findSession(String token, Function<String, Optional<UserSession>> lookup) {
+        UUID userId = accessTokenService.isSignedToken(token) ? accessTokenService.peekUserId(token) : null;
+        if (userId != null) {
+            return shardRouter.onUserShard(userId, () -> lookup.apply(token));
+        }
+        return shardRouter.findOnAnyShard(() -> lookup.apply(token));
     }
 
     private String hashPassword(String password) {
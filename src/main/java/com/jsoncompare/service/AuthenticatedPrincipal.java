@@ -0,0 +1,27 @@
+package com.jsoncompare.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Identity resolved from an access token, used on the request hot path
+ */
+@Value
+@Builder
+public class AuthenticatedPrincipal {
+
+    UUID userId;
+    String email;
+    List<String> roles;
+
+    /**
+     * Token id (JWT "jti"), null for legacy opaque session tokens
+     */
+    UUID tokenId;
+
+    LocalDateTime expiresAt;
+}
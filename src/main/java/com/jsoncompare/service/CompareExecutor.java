@@ -0,0 +1,107 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.config.ReadYourWritesTracker;
+import com.jsoncompare.exception.CompareCapacityExceededException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs compare and recompare work off the request thread, each under a {@link DiffDeadline}.
+ * The deadline is the caller's request (header or parameter), defaulting to compare.deadline.default
+ * and capped at compare.deadline.max.
+ * When the queue is full the work is refused with {@link CompareCapacityExceededException} (503,
+ * Retry-After compare.execution.retry-after) rather than run on the request thread;
+ * compare.execution.threads=0 always runs it there.
+ */
+@Component
+@Slf4j
+public class CompareExecutor {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Duration defaultDeadline;
+    private final Duration maxDeadline;
+    private final Duration retryAfter;
+    private final ThreadPoolExecutor executor;
+
+    public CompareExecutor(
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${compare.deadline.default:10s}") Duration defaultDeadline,
+            @Value("${compare.deadline.max:60s}") Duration maxDeadline,
+            @Value("${compare.execution.threads:8}") int threads,
+            @Value("${compare.execution.queue-capacity:100}") int queueCapacity,
+            @Value("${compare.execution.retry-after:1s}") Duration retryAfter) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.defaultDeadline = defaultDeadline.compareTo(maxDeadline) > 0 ? maxDeadline : defaultDeadline;
+        this.maxDeadline = maxDeadline;
+        this.retryAfter = retryAfter;
+        this.executor = threads <= 0 ? null : new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), workerThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Deadline for a request that asked for the given budget (null for the default)
+     */
+    public DiffDeadline deadline(Long requestedMillis) {
+        if (requestedMillis == null) {
+            return DiffDeadline.after(defaultDeadline);
+        }
+        if (requestedMillis <= 0) {
+            throw new IllegalArgumentException("Deadline must be a positive number of milliseconds");
+        }
+        Duration requested = Duration.ofMillis(requestedMillis);
+        return DiffDeadline.after(requested.compareTo(maxDeadline) > 0 ? maxDeadline : requested);
+    }
+
+    /**
+     * @throws CompareCapacityExceededException if every worker is busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(work.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(readYourWritesTracker.propagate(task));
+            } catch (RejectedExecutionException e) {
+                throw new CompareCapacityExceededException(retryAfter);
+            }
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger sequence = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "compare-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
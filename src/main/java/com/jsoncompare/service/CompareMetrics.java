@@ -0,0 +1,127 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.exception.ComparisonAbortedException;
+import com.jsoncompare.model.enums.DiffStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer timers for each phase of the compare pipeline, tagged by phase, input-size
+ * bucket and outcome, plus distribution summaries of input size and diff size.
+ * Exported on /actuator/prometheus; histogram buckets are configured in application.properties.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompareMetrics {
+
+    static final String PHASE_TIMER = "compare.phase";
+    static final String INPUT_SIZE = "compare.input.size";
+    static final String DIFF_OPERATIONS = "compare.diff.operations";
+    static final String STRATEGY = "compare.strategy";
+
+    // Size tag for phases that do not depend on the compared documents
+    public static final String NO_SIZE = "none";
+
+    private static final long[] SIZE_BOUNDS = {1_024, 10_240, 102_400, 1_048_576};
+    private static final String[] SIZE_BUCKETS = {"lt_1kb", "lt_10kb", "lt_100kb", "lt_1mb", "gte_1mb"};
+
+    public enum Phase {
+        AUTH("auth"),
+        ESTIMATE("estimate"),
+        PARSE_A("parse_a"),
+        PARSE_B("parse_b"),
+        DIFF("diff"),
+        PARSE_DIFF_DETAILS("parse_diff_details"),
+        SERIALIZE("serialize"),
+        PERSIST("persist");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Run one phase and record its duration. Invalid input (IllegalArgumentException) is
+     * tagged separately from other failures so client errors do not count against the SLO;
+     * so is work abandoned at its deadline or on disconnect.
+     */
+    public <T> T time(Phase phase, String sizeBucket, Supplier<T> work) {
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (ComparisonAbortedException e) {
+            outcome = "aborted";
+            throw e;
+        } finally {
+            Timer.builder(PHASE_TIMER)
+                    .description("Duration of one compare pipeline phase")
+                    .tag("phase", phase.tag)
+                    .tag("size", sizeBucket)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(Phase phase, String sizeBucket, Runnable work) {
+        time(phase, sizeBucket, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Record the size of a completed comparison's inputs (characters of A plus B) and result
+     */
+    public void recordComparison(String sizeBucket, long inputChars, int diffOperations) {
+        DistributionSummary.builder(INPUT_SIZE)
+                .description("Combined length of the compared documents")
+                .baseUnit("characters")
+                .tag("size", sizeBucket)
+                .register(meterRegistry)
+                .record(inputChars);
+        DistributionSummary.builder(DIFF_OPERATIONS)
+                .description("Number of diff operations per comparison")
+                .tag("size", sizeBucket)
+                .register(meterRegistry)
+                .record(diffOperations);
+    }
+
+    /**
+     * Count the diff strategy chosen for a comparison, per size bucket
+     */
+    public void recordStrategy(String sizeBucket, DiffStrategy strategy) {
+        Counter.builder(STRATEGY)
+                .description("Comparisons by chosen diff strategy")
+                .tag("strategy", strategy.name().toLowerCase())
+                .tag("size", sizeBucket)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public static String sizeBucket(long inputChars) {
+        for (int i = 0; i < SIZE_BOUNDS.length; i++) {
+            if (inputChars < SIZE_BOUNDS[i]) {
+                return SIZE_BUCKETS[i];
+            }
+        }
+        return SIZE_BUCKETS[SIZE_BUCKETS.length - 1];
+    }
+}
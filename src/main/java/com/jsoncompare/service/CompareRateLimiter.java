@@ -0,0 +1,155 @@
+package com.jsoncompare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jsoncompare.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user token buckets for compare traffic, sized in bytes: a request costs a fixed
+ * request-cost plus its payload size, so one client sending 10 MB pairs drains its bucket
+ * long before a client sending small documents. Buckets are lock-free (CAS on an immutable
+ * state) and live in memory per instance; idle ones expire.
+ * Limits come from compare.rate-limit.roles.&lt;ROLE&gt;.*; a user with several roles gets the
+ * most generous one, and roles without an entry fall back to USER.
+ */
+@Component
+@Slf4j
+public class CompareRateLimiter {
+
+    static final String DEFAULT_ROLE = "USER";
+
+    public record RoleLimit(DataSize capacity, DataSize refillPerSecond) {
+    }
+
+    private final boolean enabled;
+    private final long requestCost;
+    private final Map<String, RoleLimit> limits;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final Cache<UUID, TokenBucket> buckets;
+
+    @Autowired
+    public CompareRateLimiter(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${compare.rate-limit.enabled:true}") boolean enabled,
+            @Value("${compare.rate-limit.request-cost:1KB}") DataSize requestCost,
+            @Value("${compare.rate-limit.idle-expiry:10m}") Duration idleExpiry) {
+        this(enabled, requestCost, Binder.get(environment)
+                        .bind("compare.rate-limit.roles", Bindable.mapOf(String.class, RoleLimit.class))
+                        .orElse(Map.of()),
+                idleExpiry, System::nanoTime, meterRegistry);
+    }
+
+    CompareRateLimiter(boolean enabled, DataSize requestCost, Map<String, RoleLimit> limits,
+                       Duration idleExpiry, LongSupplier nanoClock, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.requestCost = requestCost.toBytes();
+        // Property binding lower-cases map keys; roles are matched case-insensitively
+        this.limits = limits.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(entry -> entry.getKey().toUpperCase(Locale.ROOT), Map.Entry::getValue));
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        // An idle bucket is full again well before it expires, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .build();
+        if (enabled) {
+            log.info("Compare rate limits per role: {}", this.limits);
+        }
+    }
+
+    /**
+     * Charge a request to the user's bucket.
+     *
+     * @param payloadBytes size of the compared documents (0 when the request carries none)
+     * @throws RateLimitExceededException when the bucket cannot cover the cost yet
+     */
+    public void acquire(UUID userId, List<String> roles, long payloadBytes) {
+        if (!enabled) {
+            return;
+        }
+        RoleLimit limit = limitFor(roles);
+        if (limit == null) {
+            return;
+        }
+        TokenBucket bucket = buckets.get(userId,
+                id -> new TokenBucket(limit.capacity().toBytes(), limit.refillPerSecond().toBytes(), nanoClock.getAsLong()));
+
+        // A request larger than the whole bucket is still allowed once the bucket is full
+        long cost = Math.min(requestCost + payloadBytes, bucket.capacity);
+        long waitNanos = bucket.tryConsume(cost, nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            meterRegistry.counter("compare.rate_limit.rejected").increment();
+            throw new RateLimitExceededException(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    RoleLimit limitFor(List<String> roles) {
+        RoleLimit best = null;
+        if (roles != null) {
+            for (String role : roles) {
+                RoleLimit limit = limits.get(role.toUpperCase(Locale.ROOT));
+                if (limit != null && (best == null || limit.capacity().toBytes() > best.capacity().toBytes())) {
+                    best = limit;
+                }
+            }
+        }
+        return best != null ? best : limits.get(DEFAULT_ROLE);
+    }
+
+    static final class TokenBucket {
+
+        private record State(double tokens, long updatedNanos) {
+        }
+
+        private final long capacity;
+        private final double refillPerNano;
+        private final AtomicReference<State> state;
+
+        TokenBucket(long capacity, long refillPerSecond, long nowNanos) {
+            if (capacity <= 0 || refillPerSecond <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity and refill must be positive");
+            }
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+            this.state = new AtomicReference<>(new State(capacity, nowNanos));
+        }
+
+        /**
+         * @return 0 when the cost was taken, otherwise nanoseconds until it could be
+         */
+        long tryConsume(long cost, long nowNanos) {
+            while (true) {
+                State current = state.get();
+                double available = Math.min(capacity,
+                        current.tokens() + Math.max(0, nowNanos - current.updatedNanos()) * refillPerNano);
+                if (available < cost) {
+                    return (long) Math.ceil((cost - available) / refillPerNano);
+                }
+                if (state.compareAndSet(current, new State(available - cost, Math.max(nowNanos, current.updatedNanos())))) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -1,26 +1,36 @@
 package com.jsoncompare.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.flipkart.zjsonpatch.JsonDiff;
-import com.flipkart.zjsonpatch.DiffFlags;
+import com.jsoncompare.config.ReadYourWritesTracker;
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
 import com.jsoncompare.dto.compare.*;
+import com.jsoncompare.exception.ComparisonAbortedException;
 import com.jsoncompare.model.ComparisonDiff;
-import com.jsoncompare.model.User;
 import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.model.enums.DiffStrategy;
+import com.jsoncompare.model.enums.ResultFormat;
+import com.jsoncompare.model.id.UuidV7;
 import com.jsoncompare.repository.ComparisonDiffRepository;
 import com.jsoncompare.repository.UserRepository;
+import com.jsoncompare.service.CompareMetrics.Phase;
+import com.jsoncompare.shard.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -29,187 +39,401 @@ public class CompareService {
 
     private final ComparisonDiffRepository comparisonDiffRepository;
     private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
-
-    private static final int PREVIEW_LENGTH = 100;
-    private static final EnumSet<DiffFlags> DIFF_FLAGS = EnumSet.of(
-            DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE,
-            DiffFlags.OMIT_MOVE_OPERATION
-    );
-
-    @Transactional
-    public CompareResponse compare(CompareRequest request, UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        // Parse and validate JSON inputs
-        JsonNode jsonNodeA = parseJson(request.getJsonA(), "JSON A");
-        JsonNode jsonNodeB = parseJson(request.getJsonB(), "JSON B");
-
-        // Compute diff using zjsonpatch
-        JsonNode diffNode = JsonDiff.asJson(jsonNodeA, jsonNodeB, DIFF_FLAGS);
-
-        // Parse differences into structured format
-        List<DiffDetail> differences = parseDiffDetails(diffNode, jsonNodeA, jsonNodeB);
-        boolean identical = differences.isEmpty();
+    private final JsonDiffEngine diffEngine;
+    private final DiffSummarizer diffSummarizer;
+    private final MoveDetector moveDetector;
+    private final ComparisonResponseCache responseCache;
+    private final ComparisonWriteBehindQueue writeBehindQueue;
+    private final ComparisonArchiveService archiveService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ShardRouter shardRouter;
+    private final CompareMetrics compareMetrics;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "|";
+    // History pages are first read from this recent window, which partition pruning keeps to the newest partitions
+    private static final Duration RECENT_HISTORY_WINDOW = Duration.ofDays(31);
+    // created_at is stamped at insert, so it trails a UUIDv7 id's timestamp slightly (write-behind, clock zone)
+    private static final Duration ID_TIMESTAMP_TOLERANCE = Duration.ofDays(1);
+
+    // Not @Transactional: parsing and diffing must not hold a pooled connection.
+    // Only the final save runs in a (short) transaction of its own.
+    // Past the deadline (or on cancel) the work is abandoned and a FAILED comparison is recorded.
+    public CompareResponse compare(CompareRequest request, UUID userId, DiffDeadline deadline) {
+        long inputChars = (long) request.getJsonA().length() + request.getJsonB().length();
+        String size = CompareMetrics.sizeBucket(inputChars);
+        ResultFormat format = request.getFormat() != null ? request.getFormat() : ResultFormat.PATCH;
+
+        DiffRun run;
+        try {
+            run = runDiff(request.getJsonA(), request.getJsonB(), format, size, deadline);
+        } catch (ComparisonAbortedException e) {
+            throw recordFailedComparison(request, userId, format, e);
+        } finally {
+            deadline.finish();
+        }
+        boolean identical = run.diffCount() == 0;
 
-        // Create and save comparison entity
+        // Create and save comparison entity; the user id comes from an authenticated
+        // token, so reference it by id instead of loading it
+        LocalDateTime now = LocalDateTime.now();
         ComparisonDiff comparison = new ComparisonDiff();
-        comparison.setCreatedBy(user);
+        comparison.setId(UuidV7.generate());
+        comparison.setCreatedBy(userRepository.getReferenceById(userId));
         comparison.setInputStringA(request.getJsonA());
         comparison.setInputStringB(request.getJsonB());
-        comparison.setResult(diffNode.toString());
+        comparison.setResult(run.result());
+        comparison.setResultFormat(format);
         comparison.setIdentical(identical);
+        comparison.setDiffCount(run.diffCount());
+        comparison.setDiffStrategy(run.plan().strategy());
+        comparison.setCostEstimate(run.plan().estimate());
         comparison.setComparisonStatus(ComparisonStatus.COMPLETED);
         comparison.setDescription(request.getDescription());
-        comparison.setLastComparedAt(LocalDateTime.now());
+        comparison.setCreatedAt(now);
+        comparison.setLastComparedAt(now);
         comparison.setDeleted(false);
 
-        comparison = comparisonDiffRepository.save(comparison);
-        log.info("Comparison created: {} (identical: {})", comparison.getId(), identical);
+        // Write-behind (when enabled and not saturated) answers before the INSERT happens
+        ComparisonDiff unsaved = comparison;
+        boolean queued = compareMetrics.time(Phase.PERSIST, size, () -> writeBehindQueue.offer(unsaved, userId));
+        if (queued) {
+            // The INSERT happens on the writer thread; keep this caller's reads on the primary
+            readYourWritesTracker.recordWrite();
+            log.info("Comparison created: {} (identical: {}, write-behind)", comparison.getId(), identical);
+        } else {
+            comparison = compareMetrics.time(Phase.PERSIST, size,
+                    () -> shardRouter.onUserShard(userId, () -> comparisonDiffRepository.save(unsaved)));
+            log.info("Comparison created: {} (identical: {})", comparison.getId(), identical);
+        }
+        compareMetrics.recordComparison(size, inputChars, run.diffCount());
 
-        return buildCompareResponse(comparison, differences);
+        return buildCompareResponse(comparison, run.diffCount(), run.differences(), run.summary());
     }
 
-    @Transactional(readOnly = true)
+    // Not @Transactional so that a cache hit never checks out a connection;
+    // on a miss the lookup runs in the repository's own read-only transaction
     public CompareResponse getComparison(UUID comparisonId, UUID userId) {
-        ComparisonDiff comparison = comparisonDiffRepository
-                .findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
+        Optional<CompareResponse> cached = responseCache.get(comparisonId, userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
 
-        List<DiffDetail> differences = parseDiffDetailsFromResult(comparison.getResult(),
-                comparison.getInputStringA(), comparison.getInputStringB());
+        ComparisonResponseCache.ReadStamp stamp = responseCache.readStamp();
+        ComparisonDiff comparison = writeBehindQueue.findPending(comparisonId, userId)
+                .or(() -> shardRouter.onUserShard(userId,
+                        () -> findOwnedComparison(comparisonId, userId).map(this::restoreIfArchived)))
+                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
 
-        return buildCompareResponse(comparison, differences);
+        CompareResponse response = buildStoredResponse(comparison);
+        responseCache.put(userId, response, stamp);
+        return response;
     }
 
     @Transactional(readOnly = true)
+    @Workload(WorkloadPool.HISTORY)
     public Page<ComparisonListResponse> getUserComparisons(UUID userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        return shardRouter.onUserShard(userId, () -> {
+            Pageable pageable = PageRequest.of(page, size);
 
-        return comparisonDiffRepository
-                .findByCreatedByIdAndDeletedFalseOrderByCreatedAtDesc(userId, pageable)
-                .map(this::toListResponse);
+            return comparisonDiffRepository
+                    .findByCreatedByIdAndDeletedFalseOrderByCreatedAtDesc(userId, pageable)
+                    .map(this::toListResponse);
+        });
     }
 
-    @Transactional
-    public CompareResponse recompare(UUID comparisonId, UUID userId) {
-        ComparisonDiff comparison = comparisonDiffRepository
-                .findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
-
-        // Re-parse and compute diff
-        JsonNode jsonNodeA = parseJson(comparison.getInputStringA(), "JSON A");
-        JsonNode jsonNodeB = parseJson(comparison.getInputStringB(), "JSON B");
-        JsonNode diffNode = JsonDiff.asJson(jsonNodeA, jsonNodeB, DIFF_FLAGS);
+    @Transactional(readOnly = true)
+    @Workload(WorkloadPool.HISTORY)
+    public ComparisonCursorPageResponse getUserComparisonsByCursor(UUID userId, String cursor, int size,
+                                                                   boolean includeTotal) {
+        return shardRouter.onUserShard(userId, () -> {
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            // Fetch one extra row to detect whether another page exists without a COUNT query
+            Pageable limit = PageRequest.ofSize(pageSize + 1);
+
+            KeysetCursor position = (cursor == null || cursor.isBlank()) ? null : decodeCursor(cursor);
+
+            // Try the recent window first; only when it cannot fill the page, continue with the
+            // rows older than the window (which also come after the cursor)
+            LocalDateTime since = (position == null ? LocalDateTime.now() : position.createdAt()).minus(RECENT_HISTORY_WINDOW);
+            List<ComparisonDiff> rows = position == null
+                    ? comparisonDiffRepository.findKeysetFirstPageSince(userId, since, limit)
+                    : comparisonDiffRepository.findKeysetPageAfterSince(userId, position.createdAt(), position.id(), since, limit);
+
+            if (rows.size() <= pageSize) {
+                List<ComparisonDiff> older = comparisonDiffRepository.findKeysetPageBefore(
+                        userId, since, PageRequest.ofSize(pageSize + 1 - rows.size()));
+                if (!older.isEmpty()) {
+                    rows = new ArrayList<>(rows);
+                    rows.addAll(older);
+                }
+            }
 
-        List<DiffDetail> differences = parseDiffDetails(diffNode, jsonNodeA, jsonNodeB);
-        boolean identical = differences.isEmpty();
+            boolean hasNext = rows.size() > pageSize;
+            if (hasNext) {
+                rows = rows.subList(0, pageSize);
+            }
 
-        // Update comparison
-        comparison.setResult(diffNode.toString());
-        comparison.setIdentical(identical);
-        comparison.markAsCompared();
+            return ComparisonCursorPageResponse.builder()
+                    .content(rows.stream().map(this::toListResponse).toList())
+                    .size(pageSize)
+                    .hasNext(hasNext)
+                    .nextCursor(hasNext ? encodeCursor(rows.get(rows.size() - 1)) : null)
+                    .totalElements(includeTotal ? comparisonDiffRepository.countByCreatedByIdAndDeletedFalse(userId) : null)
+                    .build();
+        });
+    }
 
-        comparison = comparisonDiffRepository.save(comparison);
-        log.info("Comparison re-compared: {}", comparison.getId());
+    /**
+     * Size of the inputs a re-compare of the comparison would diff, for rate limiting before the
+     * work is queued; 0 when the user has no such comparison (the re-compare then fails anyway)
+     */
+    public long storedInputSize(UUID comparisonId, UUID userId) {
+        Optional<ComparisonDiff> pending = writeBehindQueue.findPending(comparisonId, userId);
+        if (pending.isPresent()) {
+            return (long) pending.get().getInputStringA().length() + pending.get().getInputStringB().length();
+        }
+        return shardRouter.onUserShard(userId,
+                () -> comparisonDiffRepository.findStoredInputSize(comparisonId, userId)).orElse(0L);
+    }
 
-        return buildCompareResponse(comparison, differences);
+    // Not @Transactional: the load and the save each run in a short repository transaction,
+    // and the diff in between runs without holding a connection
+    public CompareResponse recompare(UUID comparisonId, UUID userId, DiffDeadline deadline) {
+        writeBehindQueue.awaitPersisted(comparisonId);
+        return shardRouter.onUserShard(userId, () -> {
+            ComparisonDiff comparison = findOwnedComparison(comparisonId, userId)
+                    .map(this::restoreIfArchived)
+                    .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
+
+            // Re-parse and compute diff
+            String inputA = comparison.getInputStringA();
+            String inputB = comparison.getInputStringB();
+            long inputChars = (long) inputA.length() + inputB.length();
+            String size = CompareMetrics.sizeBucket(inputChars);
+            DiffRun run;
+            try {
+                run = runDiff(inputA, inputB, comparison.getResultFormat(), size, deadline);
+            } catch (ComparisonAbortedException e) {
+                // The stored result still matches the inputs; only the status records the failed run
+                comparison.markAsFailed(e.getMessage());
+                comparisonDiffRepository.save(comparison);
+                responseCache.invalidate(comparisonId);
+                log.warn("Comparison re-compare abandoned: {} ({})", comparisonId, e.getMessage());
+                throw e.withComparisonId(comparisonId);
+            } finally {
+                deadline.finish();
+            }
+            boolean identical = run.diffCount() == 0;
+
+            // Update comparison (in the format it was created with)
+            comparison.setResult(run.result());
+            comparison.setIdentical(identical);
+            comparison.setDiffCount(run.diffCount());
+            comparison.setDiffStrategy(run.plan().strategy());
+            comparison.setCostEstimate(run.plan().estimate());
+            comparison.markAsCompared();
+
+            ComparisonDiff updated = comparison;
+            comparison = compareMetrics.time(Phase.PERSIST, size, () -> comparisonDiffRepository.save(updated));
+            compareMetrics.recordComparison(size, inputChars, run.diffCount());
+            responseCache.invalidate(comparisonId);
+            log.info("Comparison re-compared: {}", comparison.getId());
+
+            return buildCompareResponse(comparison, run.diffCount(), run.differences(), run.summary());
+        });
     }
 
-    @Transactional
+    // Not @Transactional: a comparison still in the write-behind queue is waited for first,
+    // without holding a connection; the lookup and the update then share one transaction
     public CompareResponse updateDescription(UUID comparisonId, UUID userId, String description) {
-        ComparisonDiff comparison = comparisonDiffRepository
-                .findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
-
-        comparison.setDescription(description);
-        comparison = comparisonDiffRepository.save(comparison);
-
-        List<DiffDetail> differences = parseDiffDetailsFromResult(comparison.getResult(),
-                comparison.getInputStringA(), comparison.getInputStringB());
-
-        return buildCompareResponse(comparison, differences);
+        writeBehindQueue.awaitPersisted(comparisonId);
+        return shardRouter.onUserShard(userId, () -> inTransaction(() -> {
+            ComparisonDiff comparison = findOwnedComparison(comparisonId, userId)
+                    .map(this::restoreIfArchived)
+                    .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
+
+            comparison.setDescription(description);
+            comparison = comparisonDiffRepository.save(comparison);
+            responseCache.invalidate(comparisonId);
+
+            return buildStoredResponse(comparison);
+        }));
     }
 
-    @Transactional
+    // Not @Transactional, for the same reason as updateDescription
     public void deleteComparison(UUID comparisonId, UUID userId) {
-        ComparisonDiff comparison = comparisonDiffRepository
-                .findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
-
-        comparison.softDelete();
-        comparisonDiffRepository.save(comparison);
-        log.info("Comparison soft deleted: {}", comparisonId);
+        writeBehindQueue.awaitPersisted(comparisonId);
+        shardRouter.runOnUserShard(userId, () -> inTransaction(() -> {
+            ComparisonDiff comparison = findOwnedComparison(comparisonId, userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
+
+            comparison.softDelete();
+            comparisonDiffRepository.save(comparison);
+            responseCache.invalidate(comparisonId);
+            log.info("Comparison soft deleted: {}", comparisonId);
+            return null;
+        }));
     }
 
     // ==================== Helper Methods ====================
 
-    private JsonNode parseJson(String json, String fieldName) {
-        try {
-            return objectMapper.readTree(json);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException(fieldName + " is not valid JSON: " + e.getMessage());
-        }
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
     }
 
-    private List<DiffDetail> parseDiffDetails(JsonNode diffNode, JsonNode sourceA, JsonNode sourceB) {
-        List<DiffDetail> details = new ArrayList<>();
+    /**
+     * Owner-scoped lookup. UUIDv7 ids carry their creation time, so the query is bounded on
+     * created_at and a range-partitioned comparison_diffs only probes the matching partition.
+     */
+    private Optional<ComparisonDiff> findOwnedComparison(UUID comparisonId, UUID userId) {
+        if (comparisonId.version() != 7) {
+            return comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId);
+        }
+        LocalDateTime idTime = UuidV7.toLocalDateTime(comparisonId);
+        return comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalseAndCreatedAtBetween(
+                comparisonId, userId, idTime.minus(ID_TIMESTAMP_TOLERANCE), idTime.plus(ID_TIMESTAMP_TOLERANCE));
+    }
 
-        if (diffNode.isArray()) {
-            for (JsonNode op : diffNode) {
-                DiffDetail detail = DiffDetail.builder()
-                        .operation(op.has("op") ? op.get("op").asText() : "unknown")
-                        .path(op.has("path") ? op.get("path").asText() : "")
-                        .fromValue(op.has("fromValue") ? nodeToObject(op.get("fromValue")) : null)
-                        .toValue(op.has("value") ? nodeToObject(op.get("value")) : null)
-                        .build();
-                details.add(detail);
+    /**
+     * Estimate, pick a strategy, diff and build the result in the requested format. Tree strategies
+     * time their parses as PARSE_A/PARSE_B; streaming ones read the inputs inside DIFF.
+     */
+    private DiffRun runDiff(String inputA, String inputB, ResultFormat format, String size, DiffDeadline deadline) {
+        // The pre-scan also validates both inputs
+        DiffPlan plan = compareMetrics.time(Phase.ESTIMATE, size, () -> diffEngine.plan(inputA, inputB, deadline));
+        compareMetrics.recordStrategy(size, plan.strategy());
+
+        switch (format) {
+            case SUMMARY -> {
+                // Aggregated as the operations are found; none of them is kept
+                SummarySink sink = diffSummarizer.newSink();
+                diffInto(sink, plan.strategy(), inputA, inputB, size, deadline);
+                DiffSummary summary = sink.summary();
+                String result = compareMetrics.time(Phase.SERIALIZE, size, () -> diffEngine.writeSummary(summary));
+                return new DiffRun(plan, result, (int) summary.getTotalChanges(), List.of(), summary);
+            }
+            case NESTED -> {
+                // Written out during the walk; SERIALIZE only finishes the document
+                NestedPatchSink sink = diffEngine.newNestedSink();
+                diffWithMoves(sink, plan.strategy(), inputA, inputB, size, deadline);
+                String result = compareMetrics.time(Phase.SERIALIZE, size, sink::result);
+                return new DiffRun(plan, result, sink.operations(), List.of(), null);
+            }
+            case RANGES, RANGES_WITHOUT_VALUES -> {
+                RangePatchSink sink = new RangePatchSink(format == ResultFormat.RANGES);
+                diffWithMoves(sink, plan.strategy(), inputA, inputB, size, deadline);
+                // diffCount counts every element of a range, as the PATCH format would
+                return patchRun(plan, sink.patch(), sink.operations(), size, deadline);
+            }
+            default -> {
+                PatchSink sink = new PatchSink();
+                diffWithMoves(sink, plan.strategy(), inputA, inputB, size, deadline);
+                return patchRun(plan, sink.patch(), sink.patch().size(), size, deadline);
             }
         }
+    }
 
-        return details;
+    private DiffRun patchRun(DiffPlan plan, JsonNode diffNode, int diffCount, String size, DiffDeadline deadline) {
+        // Parse differences into structured format
+        List<DiffDetail> differences = compareMetrics.time(Phase.PARSE_DIFF_DETAILS, size, () -> diffEngine.parseDiffDetails(diffNode, deadline));
+        String result = compareMetrics.time(Phase.SERIALIZE, size, diffNode::toString);
+        return new DiffRun(plan, result, diffCount, differences, null);
     }
 
-    private List<DiffDetail> parseDiffDetailsFromResult(String resultJson, String jsonA, String jsonB) {
-        try {
-            JsonNode diffNode = objectMapper.readTree(resultJson);
-            JsonNode sourceA = objectMapper.readTree(jsonA);
-            JsonNode sourceB = objectMapper.readTree(jsonB);
-            return parseDiffDetails(diffNode, sourceA, sourceB);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to parse stored diff result: {}", e.getMessage());
-            return Collections.emptyList();
+    /**
+     * Diff with relocated values turned into move and copy operations. Detection runs as part of
+     * the diff and holds back only the last compare.moves.max-distance operations; SUMMARY (which
+     * keeps no operations to store once) diffs straight into its sink.
+     */
+    private void diffWithMoves(DiffSink sink, DiffStrategy strategy, String inputA, String inputB, String size, DiffDeadline deadline) {
+        if (!moveDetector.isEnabled()) {
+            diffInto(sink, strategy, inputA, inputB, size, deadline);
+            return;
         }
+        MoveDetectingSink moves = moveDetector.newSink(sink, deadline);
+        diffInto(moves, strategy, inputA, inputB, size, deadline);
+        moves.finish();
     }
 
-    private Object nodeToObject(JsonNode node) {
-        if (node == null || node.isNull()) {
-            return null;
-        }
-        if (node.isTextual()) {
-            return node.asText();
-        }
-        if (node.isNumber()) {
-            return node.numberValue();
+    private void diffInto(DiffSink sink, DiffStrategy strategy, String inputA, String inputB, String size, DiffDeadline deadline) {
+        if (strategy.buildsTrees()) {
+            JsonNode jsonNodeA = compareMetrics.time(Phase.PARSE_A, size, () -> diffEngine.parseJson(inputA, "JSON A", deadline));
+            JsonNode jsonNodeB = compareMetrics.time(Phase.PARSE_B, size, () -> diffEngine.parseJson(inputB, "JSON B", deadline));
+            compareMetrics.time(Phase.DIFF, size, () -> diffEngine.diff(strategy, jsonNodeA, jsonNodeB, deadline, sink));
+        } else {
+            compareMetrics.time(Phase.DIFF, size, () -> diffEngine.diff(strategy, inputA, inputB, deadline, sink));
         }
-        if (node.isBoolean()) {
-            return node.asBoolean();
-        }
-        // For arrays and objects, return as string representation
-        return node.toString();
     }
 
-    private CompareResponse buildCompareResponse(ComparisonDiff comparison, List<DiffDetail> differences) {
+    /**
+     * The stored result and what the response shows of it: details for PATCH and RANGES, the summary for SUMMARY
+     */
+    private record DiffRun(DiffPlan plan, String result, int diffCount, List<DiffDetail> differences, DiffSummary summary) {
+    }
+
+    /**
+     * Keep a record of a comparison abandoned at its deadline (or on disconnect) so the caller
+     * can see what happened; the result is left empty
+     */
+    private ComparisonAbortedException recordFailedComparison(CompareRequest request, UUID userId, ResultFormat format,
+                                                              ComparisonAbortedException cause) {
+        ComparisonDiff comparison = new ComparisonDiff();
+        comparison.setId(UuidV7.generate());
+        comparison.setCreatedBy(userRepository.getReferenceById(userId));
+        comparison.setInputStringA(request.getJsonA());
+        comparison.setInputStringB(request.getJsonB());
+        comparison.setResult("");
+        comparison.setResultFormat(format);
+        comparison.setIdentical(false);
+        comparison.setDiffCount(0);
+        comparison.setDescription(request.getDescription());
+        comparison.setCreatedAt(LocalDateTime.now());
+        comparison.setDeleted(false);
+        comparison.markAsFailed(cause.getMessage());
+
+        shardRouter.onUserShard(userId, () -> comparisonDiffRepository.save(comparison));
+        log.warn("Comparison abandoned: {} ({})", comparison.getId(), cause.getMessage());
+        return cause.withComparisonId(comparison.getId());
+    }
+
+    // Archived rows only hold metadata; bring the inputs and result back before using them
+    private ComparisonDiff restoreIfArchived(ComparisonDiff comparison) {
+        return comparison.isArchived() ? archiveService.restore(comparison.getId()) : comparison;
+    }
+
+    private CompareResponse buildStoredResponse(ComparisonDiff comparison) {
+        return switch (comparison.getResultFormat()) {
+            case SUMMARY -> buildCompareResponse(comparison, comparison.getDiffCount(), List.of(),
+                    diffEngine.parseSummaryFromResult(comparison.getResult()));
+            case NESTED -> buildCompareResponse(comparison, comparison.getDiffCount(), List.of(), null);
+            case RANGES, RANGES_WITHOUT_VALUES -> buildCompareResponse(comparison, comparison.getDiffCount(),
+                    diffEngine.parseDiffDetailsFromResult(comparison.getResult()), null);
+            default -> {
+                List<DiffDetail> differences = diffEngine.parseDiffDetailsFromResult(comparison.getResult());
+                yield buildCompareResponse(comparison, differences.size(), differences, null);
+            }
+        };
+    }
+
+    private CompareResponse buildCompareResponse(ComparisonDiff comparison, int diffCount,
+                                                 List<DiffDetail> differences, DiffSummary summary) {
+        boolean nested = comparison.getResultFormat() == ResultFormat.NESTED;
         return CompareResponse.builder()
                 .id(comparison.getId())
                 .jsonA(comparison.getInputStringA())
                 .jsonB(comparison.getInputStringB())
                 .identical(comparison.getIdentical())
                 .differences(differences)
-                .rawDiff(comparison.getResult())
-                .diffCount(differences.size())
+                .rawDiff(nested ? null : comparison.getResult())
+                .diffCount(diffCount)
+                .resultFormat(comparison.getResultFormat())
+                .summary(summary)
+                .nestedDiff(nested && !comparison.getResult().isEmpty() ? comparison.getResult() : null)
                 .status(comparison.getComparisonStatus())
+                .failureReason(comparison.getFailureReason())
+                .diffStrategy(comparison.getDiffStrategy())
                 .description(comparison.getDescription())
                 .createdAt(comparison.getCreatedAt())
                 .lastComparedAt(comparison.getLastComparedAt())
@@ -220,29 +444,37 @@ public class CompareService {
         return ComparisonListResponse.builder()
                 .id(comparison.getId())
                 .identical(comparison.getIdentical())
-                .diffCount(countDifferences(comparison.getResult()))
+                .diffCount(comparison.getDiffCount() != null
+                        ? comparison.getDiffCount() : diffEngine.countDifferences(comparison.getResult()))
                 .status(comparison.getComparisonStatus())
                 .description(comparison.getDescription())
                 .createdAt(comparison.getCreatedAt())
                 .lastComparedAt(comparison.getLastComparedAt())
-                .jsonAPreview(truncate(comparison.getInputStringA(), PREVIEW_LENGTH))
-                .jsonBPreview(truncate(comparison.getInputStringB(), PREVIEW_LENGTH))
+                .jsonAPreview(comparison.getInputPreviewA())
+                .jsonBPreview(comparison.getInputPreviewB())
                 .build();
     }
 
-    private int countDifferences(String resultJson) {
+    private String encodeCursor(ComparisonDiff last) {
+        String raw = last.getCreatedAt() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private KeysetCursor decodeCursor(String cursor) {
         try {
-            JsonNode diffNode = objectMapper.readTree(resultJson);
-            return diffNode.isArray() ? diffNode.size() : 0;
-        } catch (JsonProcessingException e) {
-            return 0;
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
         }
     }
 
-    private String truncate(String str, int maxLength) {
-        if (str == null) return null;
-        if (str.length() <= maxLength) return str;
-        return str.substring(0, maxLength) + "...";
+    private record KeysetCursor(LocalDateTime createdAt, UUID id) {
     }
 }
 
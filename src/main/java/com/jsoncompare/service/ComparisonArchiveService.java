@@ -0,0 +1,157 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.model.ComparisonArchive;
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.repository.ComparisonArchiveRepository;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves comparison inputs and results between the hot comparison_diffs table and
+ * the compressed comparison_archives table
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ComparisonArchiveService {
+
+    private final ComparisonDiffRepository comparisonDiffRepository;
+    private final ComparisonArchiveRepository comparisonArchiveRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Archive the given comparisons; rows that are no longer completed and live are skipped
+     *
+     * @return number of comparisons archived
+     */
+    @Transactional
+    public int archive(List<UUID> comparisonIds) {
+        List<ComparisonArchive> archives = new ArrayList<>();
+
+        for (ComparisonDiff comparison : comparisonDiffRepository.findAllByIdForUpdate(comparisonIds)) {
+            if (!comparison.isCompleted() || comparison.isDeleted()) {
+                continue;
+            }
+
+            ArchivedPayload payload = new ArchivedPayload(
+                    comparison.getInputStringA(), comparison.getInputStringB(), comparison.getResult());
+            byte[] json = toJson(payload);
+
+            ComparisonArchive archive = new ComparisonArchive();
+            archive.setComparisonId(comparison.getId());
+            archive.setPayload(gzip(json));
+            archive.setOriginalBytes((long) json.length);
+            archive.setArchivedAt(LocalDateTime.now());
+            archives.add(archive);
+
+            if (comparison.getDiffCount() == null) {
+                comparison.setDiffCount(countDifferences(comparison.getResult()));
+            }
+            comparison.setFingerprintA(fingerprint(comparison.getInputStringA()));
+            comparison.setFingerprintB(fingerprint(comparison.getInputStringB()));
+            comparison.archive();
+        }
+
+        comparisonArchiveRepository.saveAll(archives);
+        return archives.size();
+    }
+
+    /**
+     * Restore an archived comparison into the hot table; a comparison that is not (or no longer)
+     * archived is returned unchanged
+     */
+    @Transactional
+    public ComparisonDiff restore(UUID comparisonId) {
+        ComparisonDiff comparison = comparisonDiffRepository.findByIdForUpdate(comparisonId)
+                .orElseThrow(() -> new IllegalArgumentException("Comparison not found"));
+        if (!comparison.isArchived()) {
+            return comparison;
+        }
+
+        ComparisonArchive archive = comparisonArchiveRepository.findById(comparisonId)
+                .orElseThrow(() -> new IllegalStateException("Archived data missing for comparison " + comparisonId));
+        ArchivedPayload payload = fromJson(gunzip(archive.getPayload()));
+
+        comparison.unarchive(payload.inputStringA(), payload.inputStringB(), payload.result());
+        comparisonArchiveRepository.delete(archive);
+        log.info("Comparison restored from archive: {}", comparisonId);
+        return comparison;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private byte[] toJson(ArchivedPayload payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize archive payload", e);
+        }
+    }
+
+    private ArchivedPayload fromJson(byte[] json) {
+        try {
+            return objectMapper.readValue(json, ArchivedPayload.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read archive payload", e);
+        }
+    }
+
+    private int countDifferences(String resultJson) {
+        try {
+            return objectMapper.readTree(resultJson).size();
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compress archive payload", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] data) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decompress archive payload", e);
+        }
+    }
+
+    private static String fingerprint(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    record ArchivedPayload(String inputStringA, String inputStringB, String result) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.jsoncompare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jsoncompare.dto.compare.CompareResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of built {@link CompareResponse} objects keyed by comparison id.
+ * Entries are weighted by their approximate heap size so the bound is expressed in bytes.
+ * A response read before its comparison was last invalidated is never cached: readers take a
+ * {@link ReadStamp} before the lookup and hand it back to {@link #put}.
+ */
+@Component
+public class ComparisonResponseCache {
+
+    // Rough per-entry overhead for the response object, its DiffDetail list and the cache node
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+    private static final long DIFF_DETAIL_OVERHEAD_BYTES = 96;
+
+    // How long invalidations are remembered; a read taking longer than this is not cached
+    private static final Duration INVALIDATION_MEMORY = Duration.ofMinutes(1);
+
+    private final Cache<UUID, CachedComparison> cache;
+    // Bumped on every invalidation; lastInvalidation holds the value for recently invalidated ids
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Cache<UUID, Long> lastInvalidation;
+    private volatile long allInvalidated;
+
+    public ComparisonResponseCache(
+            @Value("${compare.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${compare.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        // Expiry counts from the put, so an entry a dashboard keeps polling is still reloaded
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((UUID id, CachedComparison entry) -> entry.weight())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.lastInvalidation = Caffeine.newBuilder()
+                .expireAfterWrite(INVALIDATION_MEMORY)
+                .build();
+    }
+
+    /**
+     * Look up a cached response, only returning it to the user that owns the comparison
+     */
+    public Optional<CompareResponse> get(UUID comparisonId, UUID userId) {
+        CachedComparison entry = cache.getIfPresent(comparisonId);
+        if (entry == null || !entry.ownerId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.response());
+    }
+
+    /**
+     * Take before reading a comparison that may then be put into the cache
+     */
+    public ReadStamp readStamp() {
+        return new ReadStamp(invalidations.get(), System.nanoTime());
+    }
+
+    /**
+     * Cache a response read after stamp was taken, unless its comparison has been invalidated
+     * since (the response may then predate the change)
+     */
+    public void put(UUID userId, CompareResponse response, ReadStamp stamp) {
+        if (System.nanoTime() - stamp.takenAt() >= INVALIDATION_MEMORY.toNanos()) {
+            return;
+        }
+        CachedComparison entry = new CachedComparison(userId, response, estimateWeight(response));
+        // Checked inside compute, so an invalidation either sees the entry and removes it or is seen here
+        cache.asMap().compute(response.getId(), (id, existing) -> {
+            Long invalidated = lastInvalidation.getIfPresent(id);
+            boolean stale = allInvalidated > stamp.generation()
+                    || invalidated != null && invalidated > stamp.generation();
+            return stale ? existing : entry;
+        });
+    }
+
+    /**
+     * Evict an entry now and, when called inside a transaction, again after commit so a
+     * concurrent reader cannot re-populate it with the pre-commit state.
+     */
+    public void invalidate(UUID comparisonId) {
+        evict(comparisonId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(comparisonId);
+                }
+            });
+        }
+    }
+
+    private void evict(UUID comparisonId) {
+        // Recorded first, so a put racing this call either sees it or is removed below
+        lastInvalidation.put(comparisonId, invalidations.incrementAndGet());
+        cache.invalidate(comparisonId);
+    }
+
+    public void invalidateAll() {
+        allInvalidated = invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRatio", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        cache.policy().eviction().ifPresent(eviction -> {
+            result.put("estimatedBytes", eviction.weightedSize().orElse(0L));
+            result.put("maxBytes", eviction.getMaximum());
+        });
+        return result;
+    }
+
+    private int estimateWeight(CompareResponse response) {
+        // Strings are stored as UTF-16 (worst case) and the parsed differences roughly mirror rawDiff
+        long chars = length(response.getJsonA()) + length(response.getJsonB()) + 2L * length(response.getRawDiff())
+                + length(response.getNestedDiff()) + length(response.getDescription());
+        long details = response.getDifferences() == null ? 0 : response.getDifferences().size();
+        long bytes = ENTRY_OVERHEAD_BYTES + 2 * chars + details * DIFF_DETAIL_OVERHEAD_BYTES;
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    public record ReadStamp(long generation, long takenAt) {
+    }
+
+    private record CachedComparison(UUID ownerId, CompareResponse response, int weight) {
+    }
+}
@@ -0,0 +1,374 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.job.MaintenanceJob;
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.shard.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in write-behind persistence for new comparisons (compare.write-behind.enabled).
+ * The caller gets its response as soon as the diff is computed; a background writer inserts
+ * queued rows in batches (Hibernate JDBC batching via saveAll in one transaction).
+ * Memory is bounded by row count and by estimated bytes. When either bound is reached,
+ * {@link #offer} refuses and the caller persists synchronously (backpressure).
+ * Edits of a queued row wait for the writer to insert it ({@link #awaitPersisted}).
+ * A row whose insert fails stays pending and is retried with exponential backoff, since its
+ * caller has already been told it was created; while rows wait for a retry they keep their
+ * share of the memory bounds. Pending rows are flushed on graceful shutdown.
+ */
+@Component
+@Slf4j
+public class ComparisonWriteBehindQueue implements MaintenanceJob {
+
+    // How long shutdown keeps retrying rows whose insert failed
+    private static final Duration SHUTDOWN_RETRY_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ComparisonDiffRepository comparisonDiffRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final long maxPendingBytes;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration awaitTimeout;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    private final BlockingQueue<ComparisonDiff> queue;
+    private final Map<UUID, PendingComparison> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Rows whose insert failed, waiting for their next attempt; only written under writeLock
+    private final Queue<FailedWrite> retries = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean accepting;
+    private Thread writer;
+
+    public ComparisonWriteBehindQueue(
+            ComparisonDiffRepository comparisonDiffRepository,
+            ShardRouter shardRouter,
+            PlatformTransactionManager transactionManager,
+            @Value("${compare.write-behind.enabled:false}") boolean enabled,
+            @Value("${compare.write-behind.max-pending-rows:10000}") int maxPendingRows,
+            @Value("${compare.write-behind.max-pending-bytes:268435456}") long maxPendingBytes,
+            @Value("${compare.write-behind.batch-size:50}") int batchSize,
+            @Value("${compare.write-behind.flush-interval:50ms}") Duration flushInterval,
+            @Value("${compare.write-behind.await-timeout:10s}") Duration awaitTimeout,
+            @Value("${compare.write-behind.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${compare.write-behind.max-retry-backoff:1m}") Duration maxRetryBackoff) {
+        this.comparisonDiffRepository = comparisonDiffRepository;
+        this.shardRouter = shardRouter;
+        // Each batch commits on its own, whichever thread writes it
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxPendingBytes = maxPendingBytes;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.awaitTimeout = awaitTimeout;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.queue = new LinkedBlockingQueue<>(maxPendingRows);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        writer = new Thread(this::runWriter, "comparison-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Comparison write-behind enabled (batch size {}, max pending {} bytes)", batchSize, maxPendingBytes);
+    }
+
+    /**
+     * Queue a new comparison for background insertion.
+     *
+     * @return false if write-behind is disabled or full; the caller must then save it itself
+     */
+    public boolean offer(ComparisonDiff comparison, UUID ownerId) {
+        if (!accepting) {
+            return false;
+        }
+        long bytes = estimateBytes(comparison);
+        if (!reserve(bytes)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        pending.put(comparison.getId(), new PendingComparison(ownerId, comparison, bytes, new CompletableFuture<>(),
+                new AtomicInteger()));
+        if (!queue.offer(comparison)) {
+            pending.remove(comparison.getId());
+            pendingBytes.addAndGet(-bytes);
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A comparison that has been accepted but not yet written, visible only to its owner
+     */
+    public Optional<ComparisonDiff> findPending(UUID comparisonId, UUID ownerId) {
+        PendingComparison entry = pending.get(comparisonId);
+        if (entry == null || !entry.ownerId().equals(ownerId)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.comparison());
+    }
+
+    /**
+     * Block until the writer thread has written the given comparison (no-op if it is not pending).
+     * Used before updates so they never race the background insert; call it before opening a
+     * transaction, so no connection is held while waiting.
+     *
+     * @throws IllegalStateException if the row is still pending after compare.write-behind.await-timeout
+     */
+    public void awaitPersisted(UUID comparisonId) {
+        PendingComparison entry = pending.get(comparisonId);
+        if (entry == null) {
+            return;
+        }
+        try {
+            entry.written().get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Comparison " + comparisonId + " is still being saved", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for comparison " + comparisonId, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Comparison " + comparisonId + " could not be saved", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        // Stop accepting; the writer exits after its current batch (not interrupted mid-insert)
+        accepting = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQueued();
+        if (!pending.isEmpty()) {
+            log.error("Comparison write-behind stopped with {} comparisons not persisted: {}",
+                    pending.size(), pending.keySet());
+        } else {
+            log.info("Comparison write-behind stopped ({} rows persisted)", persisted.get());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "comparisonWriteBehind";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("pendingRows", pending.size());
+        result.put("pendingBytes", pendingBytes.get());
+        result.put("persistedTotal", persisted.get());
+        result.put("rejectedTotal", rejected.get());
+        result.put("failedTotal", failed.get());
+        result.put("retryingRows", retries.size());
+        return result;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void runWriter() {
+        List<ComparisonDiff> batch = new ArrayList<>(batchSize);
+        while (accepting) {
+            try {
+                ComparisonDiff first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                writeLock.lock();
+                try {
+                    retryDue(false);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                } finally {
+                    batch.clear();
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Comparison write-behind writer error", e);
+            }
+        }
+    }
+
+    // Write what is queued, then keep retrying failed rows until they are written or the wait is over
+    private void flushQueued() {
+        List<ComparisonDiff> batch = new ArrayList<>(batchSize);
+        long giveUpAt = System.nanoTime() + SHUTDOWN_RETRY_TIMEOUT.toNanos();
+        writeLock.lock();
+        try {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+            retryDue(true);
+            while (!retries.isEmpty() && System.nanoTime() - giveUpAt < 0) {
+                if (!MaintenanceJob.pause(retryBackoff)) {
+                    break;
+                }
+                retryDue(true);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Rows whose backoff has passed (all of them with now), written again
+    private void retryDue(boolean now) {
+        if (retries.isEmpty()) {
+            return;
+        }
+        long time = System.nanoTime();
+        List<ComparisonDiff> due = new ArrayList<>();
+        for (Iterator<FailedWrite> it = retries.iterator(); it.hasNext(); ) {
+            FailedWrite retry = it.next();
+            if (now || time - retry.retryAt() >= 0) {
+                due.add(retry.comparison());
+                it.remove();
+            }
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            write(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    private void write(List<ComparisonDiff> batch) {
+        // A batch may mix users living on different shards; each shard gets its own transaction
+        Map<String, List<ComparisonDiff>> byShard = new LinkedHashMap<>();
+        for (ComparisonDiff comparison : batch) {
+            PendingComparison entry = pending.get(comparison.getId());
+            String shard = entry == null ? shardRouter.directoryShard() : shardRouter.shardFor(entry.ownerId());
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(comparison);
+        }
+        byShard.forEach((shard, rows) -> shardRouter.onShard(shard, () -> {
+            writeShard(rows);
+            return null;
+        }));
+    }
+
+    private void writeShard(List<ComparisonDiff> batch) {
+        try {
+            writeTransaction.executeWithoutResult(status -> comparisonDiffRepository.saveAll(batch));
+            persisted.addAndGet(batch.size());
+            batch.forEach(comparison -> release(comparison.getId()));
+        } catch (RuntimeException e) {
+            // Isolate the failing row(s) so one bad insert does not hold back the whole batch
+            log.warn("Batch insert of {} comparisons failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (ComparisonDiff comparison : batch) {
+                try {
+                    writeTransaction.executeWithoutResult(status -> comparisonDiffRepository.save(comparison));
+                    persisted.incrementAndGet();
+                    release(comparison.getId());
+                } catch (RuntimeException single) {
+                    retryLater(comparison, single);
+                }
+            }
+        }
+    }
+
+    // The caller was already answered, so the row is never given up on; it stays pending
+    private void retryLater(ComparisonDiff comparison, RuntimeException error) {
+        failed.incrementAndGet();
+        PendingComparison entry = pending.get(comparison.getId());
+        int attempts = entry == null ? 1 : entry.failedAttempts().incrementAndGet();
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxRetryBackoff) > 0) {
+            backoff = maxRetryBackoff;
+        }
+        log.error("Failed to persist comparison {} (attempt {}), retrying in {}", comparison.getId(), attempts, backoff, error);
+        retries.add(new FailedWrite(comparison, System.nanoTime() + backoff.toNanos()));
+    }
+
+    private boolean reserve(long bytes) {
+        while (true) {
+            long current = pendingBytes.get();
+            if (current + bytes > maxPendingBytes) {
+                return false;
+            }
+            if (pendingBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(UUID comparisonId) {
+        PendingComparison entry = pending.remove(comparisonId);
+        if (entry != null) {
+            pendingBytes.addAndGet(-entry.bytes());
+            entry.written().complete(null);
+        }
+    }
+
+    private long estimateBytes(ComparisonDiff comparison) {
+        // UTF-16 worst case for the three large text columns
+        return 2L * (length(comparison.getInputStringA()) + length(comparison.getInputStringB())
+                + length(comparison.getResult()) + length(comparison.getDescription()));
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    // written completes once the row has been inserted
+    private record PendingComparison(UUID ownerId, ComparisonDiff comparison, long bytes,
+                                     CompletableFuture<Void> written, AtomicInteger failedAttempts) {
+    }
+
+    private record FailedWrite(ComparisonDiff comparison, long retryAt) {
+    }
+}
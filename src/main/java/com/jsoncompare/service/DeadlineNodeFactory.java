@@ -0,0 +1,106 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Builds JSON trees whose container and text nodes check a {@link DiffDeadline}.
+ * zjsonpatch cannot be interrupted, but everything expensive it does (the top-level equality
+ * test, LCS over array elements, per-field recursion) goes through equals() on these nodes,
+ * so the deadline is honoured inside JsonDiff.asJson as well as while parsing.
+ */
+class DeadlineNodeFactory extends JsonNodeFactory {
+
+    private final transient DiffDeadline deadline;
+
+    DeadlineNodeFactory(DiffDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public ObjectNode objectNode() {
+        deadline.check();
+        return new CheckedObjectNode(this);
+    }
+
+    @Override
+    public ArrayNode arrayNode() {
+        deadline.check();
+        return new CheckedArrayNode(this);
+    }
+
+    @Override
+    public ArrayNode arrayNode(int capacity) {
+        deadline.check();
+        return new CheckedArrayNode(this, capacity);
+    }
+
+    @Override
+    public TextNode textNode(String text) {
+        deadline.check();
+        return text == null ? null : new CheckedTextNode(text, deadline);
+    }
+
+    private static final class CheckedObjectNode extends ObjectNode {
+
+        CheckedObjectNode(DeadlineNodeFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            ((DeadlineNodeFactory) _nodeFactory).deadline.check();
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    private static final class CheckedArrayNode extends ArrayNode {
+
+        CheckedArrayNode(DeadlineNodeFactory factory) {
+            super(factory);
+        }
+
+        CheckedArrayNode(DeadlineNodeFactory factory, int capacity) {
+            super(factory, capacity);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            ((DeadlineNodeFactory) _nodeFactory).deadline.check();
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    private static final class CheckedTextNode extends TextNode {
+
+        private final transient DiffDeadline deadline;
+
+        CheckedTextNode(String text, DiffDeadline deadline) {
+            super(text);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            deadline.check();
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Cheap pre-scan of one input: a single streaming pass (no tree) that also validates the JSON.
+ * Counts values, nesting depth, array lengths and id-carrying array elements, hashes the token
+ * stream and keeps a bottom-k sketch of (field, value) pairs for estimating similarity.
+ */
+final class DiffCostEstimator {
+
+    // Fields that identify a record inside an array, in the order KEYED_ARRAY tries them
+    static final List<String> ID_FIELDS = List.of("id", "_id", "uuid", "key");
+
+    private static final int SKETCH_SIZE = 256;
+
+    private DiffCostEstimator() {
+    }
+
+    /**
+     * What one scan learned about an input
+     */
+    record InputProfile(long nodeCount, int maxDepth, int maxArrayLength,
+                        long arrayObjects, long keyedArrayObjects, long tokenHash, TreeSet<Long> sketch) {
+    }
+
+    static InputProfile scan(JsonParser parser, DiffDeadline deadline) throws IOException {
+        long nodeCount = 0;
+        int maxDepth = 0;
+        int maxArrayLength = 0;
+        long arrayObjects = 0;
+        long keyedArrayObjects = 0;
+        long tokenHash = 0;
+        long fieldHash = 0;
+        TreeSet<Long> sketch = new TreeSet<>();
+        Deque<Frame> open = new ArrayDeque<>();
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            deadline.check();
+            tokenHash = mix(tokenHash, token.id());
+            Frame parent = open.peek();
+
+            if (token == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                fieldHash = name.hashCode();
+                tokenHash = mix(tokenHash, fieldHash);
+                if (parent != null && parent.arrayElement && ID_FIELDS.contains(name)) {
+                    parent.keyed = true;
+                }
+                continue;
+            }
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                Frame closed = open.pop();
+                if (closed.array) {
+                    maxArrayLength = Math.max(maxArrayLength, closed.elements);
+                } else if (closed.arrayElement) {
+                    arrayObjects++;
+                    if (closed.keyed) {
+                        keyedArrayObjects++;
+                    }
+                }
+                continue;
+            }
+
+            // A value starts
+            nodeCount++;
+            if (parent != null && parent.array) {
+                parent.elements++;
+            }
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                open.push(new Frame(token == JsonToken.START_ARRAY, parent != null && parent.array));
+                maxDepth = Math.max(maxDepth, open.size());
+            } else {
+                int valueHash = parser.getText().hashCode();
+                tokenHash = mix(tokenHash, valueHash);
+                addToSketch(sketch, mix(fieldHash, valueHash));
+            }
+        }
+        return new InputProfile(nodeCount, maxDepth, maxArrayLength, arrayObjects, keyedArrayObjects, tokenHash, sketch);
+    }
+
+    /**
+     * Estimated Jaccard similarity of the two inputs' (field, value) pairs, from their bottom-k sketches
+     */
+    static double similarity(InputProfile a, InputProfile b) {
+        if (a.sketch().isEmpty() && b.sketch().isEmpty()) {
+            return 1.0;
+        }
+        TreeSet<Long> union = new TreeSet<>(a.sketch());
+        union.addAll(b.sketch());
+        int considered = 0;
+        int shared = 0;
+        for (Iterator<Long> it = union.iterator(); it.hasNext() && considered < SKETCH_SIZE; considered++) {
+            Long hash = it.next();
+            if (a.sketch().contains(hash) && b.sketch().contains(hash)) {
+                shared++;
+            }
+        }
+        return (double) shared / considered;
+    }
+
+    private static void addToSketch(TreeSet<Long> sketch, long hash) {
+        if (sketch.size() == SKETCH_SIZE && hash >= sketch.last()) {
+            return;
+        }
+        if (sketch.add(hash) && sketch.size() > SKETCH_SIZE) {
+            sketch.pollLast();
+        }
+    }
+
+    // SplitMix64 finalizer over the running hash and the next value (also used by MoveDetectingSink)
+    static long mix(long hash, long value) {
+        long z = hash * 31 + value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Frame {
+        private final boolean array;
+        // An object that is a direct element of an array
+        private final boolean arrayElement;
+        private int elements;
+        private boolean keyed;
+
+        private Frame(boolean array, boolean arrayElement) {
+            this.array = array;
+            this.arrayElement = arrayElement;
+        }
+    }
+}
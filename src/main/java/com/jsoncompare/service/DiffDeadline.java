@@ -0,0 +1,98 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.exception.ComparisonAbortedException;
+
+import java.time.Duration;
+
+/**
+ * Cooperative deadline and cancellation token for one comparison.
+ * {@link JsonDiffEngine} calls {@link #check()} while it parses and diffs; once the budget is spent
+ * or the request is cancelled (client gone) the next check throws {@link ComparisonAbortedException}.
+ * Checks are cheap: the clock is only read every {@value #CLOCK_CHECK_INTERVAL} calls.
+ */
+public final class DiffDeadline {
+
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    private final Duration budget;
+    private final long deadlineNanos;
+    private volatile String cancelReason;
+    private volatile boolean finished;
+    // Only touched by the thread doing the work; a lost update just shifts the next clock read
+    private int untilClockCheck = CLOCK_CHECK_INTERVAL;
+
+    private DiffDeadline(Duration budget) {
+        this.budget = budget;
+        this.deadlineNanos = System.nanoTime() + budget.toNanos();
+    }
+
+    public static DiffDeadline after(Duration budget) {
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Deadline must be positive");
+        }
+        return new DiffDeadline(budget);
+    }
+
+    /**
+     * A deadline that never expires (benchmarks, tests)
+     */
+    public static DiffDeadline none() {
+        return new DiffDeadline(Duration.ofDays(365));
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Abandon the work at its next check; the first reason wins
+     */
+    public void cancel(String reason) {
+        if (cancelReason == null) {
+            cancelReason = reason;
+        }
+    }
+
+    /**
+     * The deadline-bound phases are over; later checks (e.g. equals() on parsed nodes) are no-ops
+     */
+    public void finish() {
+        finished = true;
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    public void check() {
+        if (finished) {
+            return;
+        }
+        if (cancelReason != null) {
+            throw new ComparisonAbortedException(cancelReason);
+        }
+        if (--untilClockCheck <= 0) {
+            untilClockCheck = CLOCK_CHECK_INTERVAL;
+            checkClock();
+        }
+    }
+
+    /**
+     * Unamortized check, used between phases
+     */
+    public void checkNow() {
+        if (finished) {
+            return;
+        }
+        if (cancelReason != null) {
+            throw new ComparisonAbortedException(cancelReason);
+        }
+        checkClock();
+    }
+
+    private void checkClock() {
+        if (isExpired()) {
+            throw new ComparisonAbortedException("Comparison exceeded its deadline of " + budget.toMillis() + " ms");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.model.DiffCostEstimate;
+import com.jsoncompare.model.enums.DiffStrategy;
+
+/**
+ * The strategy chosen for one comparison and the estimate it was chosen from
+ */
+public record DiffPlan(DiffStrategy strategy, DiffCostEstimate estimate) {
+}
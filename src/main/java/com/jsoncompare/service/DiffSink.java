@@ -0,0 +1,71 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Receives a diff's operations as a strategy finds them, in patch order (applied in sequence
+ * they turn A into B); paths are JSON Pointers. Output formats are built here during the walk
+ * instead of from a materialized patch.
+ */
+public interface DiffSink {
+
+    void add(String path, JsonNode value);
+
+    void remove(String path, JsonNode value);
+
+    void replace(String path, JsonNode fromValue, JsonNode value);
+
+    // zjsonpatch emits these for values of B that already exist unchanged elsewhere
+    void copy(String from, String path);
+
+    // Only from MoveDetectingSink, for a removed value that is added again elsewhere
+    void move(String from, String path);
+
+    /**
+     * An add of an array element, the last token of path being its index. Strategies use the
+     * element variants whenever the parent is an array: a numeric last token alone does not tell,
+     * as object keys can be numeric too. Unless a sink cares, the same as {@link #add}.
+     */
+    default void addElement(String path, JsonNode value) {
+        add(path, value);
+    }
+
+    default void removeElement(String path, JsonNode value) {
+        remove(path, value);
+    }
+
+    default void replaceElement(String path, JsonNode fromValue, JsonNode value) {
+        replace(path, fromValue, value);
+    }
+
+    /**
+     * Whether the sink relies on the element variants. zjsonpatch's patches do not mark array
+     * elements, so strategies then walk the inputs themselves (see {@link #walksInputs()}).
+     */
+    default boolean needsArrayElements() {
+        return false;
+    }
+
+    /**
+     * Whether the sink keeps only a bounded part of the operations (it aggregates them or writes
+     * them out as they come). Strategies then walk the inputs themselves instead of having
+     * zjsonpatch build a whole patch first.
+     */
+    default boolean streamsOperations() {
+        return false;
+    }
+
+    /**
+     * Whether strategies should walk the inputs into this sink instead of replaying a zjsonpatch patch
+     */
+    default boolean walksInputs() {
+        return streamsOperations() || needsArrayElements();
+    }
+
+    /**
+     * Feed a patch that zjsonpatch computed for the value at prefix
+     */
+    default void appendPatch(String prefix, JsonNode patch) {
+        JsonPatchOps.replay(prefix, patch, this);
+    }
+}
@@ -0,0 +1,82 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.model.DiffCostEstimate;
+import com.jsoncompare.model.enums.DiffStrategy;
+import com.jsoncompare.service.DiffCostEstimator.InputProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks a {@link DiffStrategy} from the pre-scan of both inputs:
+ * <ul>
+ *   <li>same token stream (formatting-only differences): IDENTICAL_ONLY</li>
+ *   <li>small inputs: TREE, whose LCS gives the smallest patches and is cheap at this size</li>
+ *   <li>large arrays whose elements mostly carry an id field: KEYED_ARRAY</li>
+ *   <li>same number of values and a high estimated similarity (edits in place): STREAMING</li>
+ *   <li>anything else: TREE</li>
+ * </ul>
+ * The thresholds are the compare.strategy.* properties; chosen strategies and estimates are
+ * recorded on each comparison for tuning them.
+ */
+@Component
+public class DiffStrategySelector {
+
+    private final boolean enabled;
+    private final long treeMaxNodes;
+    private final int keyedMinArrayLength;
+    private final double keyedMinRatio;
+    private final double streamingMinSimilarity;
+
+    public DiffStrategySelector(
+            @Value("${compare.strategy.adaptive:true}") boolean enabled,
+            @Value("${compare.strategy.tree-max-nodes:20000}") long treeMaxNodes,
+            @Value("${compare.strategy.keyed-min-array-length:500}") int keyedMinArrayLength,
+            @Value("${compare.strategy.keyed-min-ratio:0.9}") double keyedMinRatio,
+            @Value("${compare.strategy.streaming-min-similarity:0.8}") double streamingMinSimilarity) {
+        this.enabled = enabled;
+        this.treeMaxNodes = treeMaxNodes;
+        this.keyedMinArrayLength = keyedMinArrayLength;
+        this.keyedMinRatio = keyedMinRatio;
+        this.streamingMinSimilarity = streamingMinSimilarity;
+    }
+
+    /**
+     * The application.properties defaults, for use outside Spring (tests, benchmarks)
+     */
+    public static DiffStrategySelector defaults() {
+        return new DiffStrategySelector(true, 20_000, 500, 0.9, 0.8);
+    }
+
+    DiffPlan select(InputProfile a, InputProfile b) {
+        long arrayObjects = a.arrayObjects() + b.arrayObjects();
+        double keyedRatio = arrayObjects == 0 ? 0.0
+                : (double) (a.keyedArrayObjects() + b.keyedArrayObjects()) / arrayObjects;
+        double similarity = DiffCostEstimator.similarity(a, b);
+        DiffCostEstimate estimate = new DiffCostEstimate(
+                a.nodeCount() + b.nodeCount(),
+                Math.max(a.maxDepth(), b.maxDepth()),
+                Math.max(a.maxArrayLength(), b.maxArrayLength()),
+                similarity,
+                keyedRatio);
+        return new DiffPlan(choose(a, b, estimate), estimate);
+    }
+
+    private DiffStrategy choose(InputProfile a, InputProfile b, DiffCostEstimate estimate) {
+        if (!enabled) {
+            return DiffStrategy.TREE;
+        }
+        if (a.tokenHash() == b.tokenHash() && a.nodeCount() == b.nodeCount()) {
+            return DiffStrategy.IDENTICAL_ONLY;
+        }
+        if (estimate.getNodeCount() <= treeMaxNodes) {
+            return DiffStrategy.TREE;
+        }
+        if (estimate.getMaxArrayLength() >= keyedMinArrayLength && estimate.getKeyedArrayRatio() >= keyedMinRatio) {
+            return DiffStrategy.KEYED_ARRAY;
+        }
+        if (a.nodeCount() == b.nodeCount() && estimate.getSimilarity() >= streamingMinSimilarity) {
+            return DiffStrategy.STREAMING;
+        }
+        return DiffStrategy.TREE;
+    }
+}
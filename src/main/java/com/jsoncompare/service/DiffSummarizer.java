@@ -0,0 +1,38 @@
+package com.jsoncompare.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the sinks for the SUMMARY result format from the compare.summary.* properties
+ */
+@Component
+public class DiffSummarizer {
+
+    private final int pathDepth;
+    private final int maxPathBuckets;
+    private final int largestChanges;
+
+    public DiffSummarizer(
+            @Value("${compare.summary.path-depth:2}") int pathDepth,
+            @Value("${compare.summary.max-path-buckets:1000}") int maxPathBuckets,
+            @Value("${compare.summary.largest-changes:10}") int largestChanges) {
+        if (pathDepth < 1) {
+            throw new IllegalArgumentException("compare.summary.path-depth must be at least 1");
+        }
+        this.pathDepth = pathDepth;
+        this.maxPathBuckets = maxPathBuckets;
+        this.largestChanges = largestChanges;
+    }
+
+    /**
+     * The application.properties defaults, for use outside Spring (tests, benchmarks)
+     */
+    public static DiffSummarizer defaults() {
+        return new DiffSummarizer(2, 1000, 10);
+    }
+
+    SummarySink newSink() {
+        return new SummarySink(pathDepth, maxPathBuckets, largestChanges);
+    }
+}
@@ -0,0 +1,257 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.zjsonpatch.DiffFlags;
+import com.flipkart.zjsonpatch.JsonDiff;
+import com.jsoncompare.dto.compare.DiffDetail;
+import com.jsoncompare.dto.compare.DiffSummary;
+import com.jsoncompare.model.enums.DiffStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The diff hot path shared by {@link CompareService} and the JMH benchmarks (src/jmh):
+ * parsing inputs, computing the JSON Patch and turning it into {@link DiffDetail}s.
+ * Stateless and thread-safe. The {@link DiffDeadline} overloads abandon the work cooperatively
+ * once the deadline passes or the request is cancelled. {@link #plan} pre-scans the inputs and
+ * picks a {@link DiffStrategy}; all strategies produce patches in the same format, or feed a
+ * {@link DiffSink} that builds another output format during the walk.
+ */
+@Component
+@Slf4j
+public class JsonDiffEngine {
+
+    // zjsonpatch's move detection compares every remove with every add; MoveDetectingSink hashes instead
+    public static final EnumSet<DiffFlags> DIFF_FLAGS = EnumSet.of(
+            DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE,
+            DiffFlags.OMIT_MOVE_OPERATION
+    );
+
+    private final ObjectMapper objectMapper;
+    private final DiffStrategySelector strategySelector;
+
+    @Autowired
+    public JsonDiffEngine(ObjectMapper objectMapper, DiffStrategySelector strategySelector) {
+        this.objectMapper = objectMapper;
+        this.strategySelector = strategySelector;
+    }
+
+    public JsonDiffEngine(ObjectMapper objectMapper) {
+        this(objectMapper, DiffStrategySelector.defaults());
+    }
+
+    /**
+     * Pre-scan both inputs (validating them) and choose a diff strategy
+     */
+    public DiffPlan plan(String jsonA, String jsonB, DiffDeadline deadline) {
+        deadline.checkNow();
+        return strategySelector.select(scan(jsonA, "JSON A", deadline), scan(jsonB, "JSON B", deadline));
+    }
+
+    public JsonNode parseJson(String json, String fieldName) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(fieldName + " is not valid JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse into a tree whose nodes check the deadline, so a later {@link #diff(JsonNode, JsonNode, DiffDeadline)}
+     * over it can be abandoned part-way
+     */
+    public JsonNode parseJson(String json, String fieldName, DiffDeadline deadline) {
+        deadline.checkNow();
+        try {
+            return objectMapper.reader().with(new DeadlineNodeFactory(deadline)).readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(fieldName + " is not valid JSON: " + e.getMessage());
+        }
+    }
+
+    public JsonNode diff(JsonNode source, JsonNode target) {
+        return JsonDiff.asJson(source, target, DIFF_FLAGS);
+    }
+
+    /**
+     * Only checks the deadline inside zjsonpatch when the inputs came from
+     * {@link #parseJson(String, String, DiffDeadline)}
+     */
+    public JsonNode diff(JsonNode source, JsonNode target, DiffDeadline deadline) {
+        return diff(DiffStrategy.TREE, source, target, deadline);
+    }
+
+    /**
+     * Diff parsed trees with a strategy that {@link DiffStrategy#buildsTrees() builds trees}
+     */
+    public JsonNode diff(DiffStrategy strategy, JsonNode source, JsonNode target, DiffDeadline deadline) {
+        PatchSink sink = new PatchSink();
+        diff(strategy, source, target, deadline, sink);
+        return sink.patch();
+    }
+
+    /**
+     * Diff parsed trees into a sink, which builds the output format during the walk
+     */
+    public void diff(DiffStrategy strategy, JsonNode source, JsonNode target, DiffDeadline deadline, DiffSink sink) {
+        deadline.checkNow();
+        switch (strategy) {
+            case TREE -> {
+                if (sink.walksInputs()) {
+                    // No whole patch for sinks that keep none of it or need array elements marked;
+                    // same walk as KEYED_ARRAY
+                    new KeyedArrayDiff(deadline, sink, true).diff(source, target);
+                } else {
+                    sink.appendPatch("", JsonDiff.asJson(source, target, DIFF_FLAGS));
+                }
+            }
+            case KEYED_ARRAY -> new KeyedArrayDiff(deadline, sink, sink.walksInputs()).diff(source, target);
+            default -> throw new IllegalStateException(strategy + " diffs the raw inputs");
+        }
+        deadline.checkNow();
+    }
+
+    /**
+     * Diff the raw inputs with a strategy that does not build trees. Inputs must have been
+     * validated by {@link #plan}.
+     */
+    public JsonNode diff(DiffStrategy strategy, String jsonA, String jsonB, DiffDeadline deadline) {
+        PatchSink sink = new PatchSink();
+        diff(strategy, jsonA, jsonB, deadline, sink);
+        return sink.patch();
+    }
+
+    public void diff(DiffStrategy strategy, String jsonA, String jsonB, DiffDeadline deadline, DiffSink sink) {
+        deadline.checkNow();
+        StreamingJsonDiff streaming = new StreamingJsonDiff(objectMapper, deadline);
+        try {
+            switch (strategy) {
+                case STREAMING -> streaming.diff(jsonA, jsonB, sink);
+                case IDENTICAL_ONLY -> {
+                    if (!streaming.tokensEqual(jsonA, jsonB)) {
+                        // The estimate was wrong: fall back to the tree diff
+                        diff(DiffStrategy.TREE, parseJson(jsonA, "JSON A", deadline), parseJson(jsonB, "JSON B", deadline), deadline, sink);
+                    }
+                }
+                default -> throw new IllegalStateException(strategy + " diffs parsed trees");
+            }
+            deadline.checkNow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<DiffDetail> parseDiffDetails(JsonNode diffNode) {
+        return parseDiffDetails(diffNode, DiffDeadline.none());
+    }
+
+    public List<DiffDetail> parseDiffDetails(JsonNode diffNode, DiffDeadline deadline) {
+        List<DiffDetail> details = new ArrayList<>();
+
+        if (diffNode.isArray()) {
+            for (JsonNode op : diffNode) {
+                deadline.check();
+                DiffDetail detail = DiffDetail.builder()
+                        .operation(op.has("op") ? op.get("op").asText() : "unknown")
+                        .path(op.has("path") ? op.get("path").asText() : "")
+                        .from(op.has("from") ? op.get("from").asText() : null)
+                        .fromValue(op.has("fromValue") ? nodeToObject(op.get("fromValue")) : null)
+                        .toValue(op.has("value") ? nodeToObject(op.get("value")) : null)
+                        .count(op.has("count") ? op.get("count").asInt() : null)
+                        .build();
+                details.add(detail);
+            }
+        }
+
+        return details;
+    }
+
+    /**
+     * Details of a stored diff result; an unreadable result yields no details
+     */
+    public List<DiffDetail> parseDiffDetailsFromResult(String resultJson) {
+        try {
+            return parseDiffDetails(objectMapper.readTree(resultJson));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse stored diff result: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Sink that writes the NESTED result format as the diff runs
+     */
+    NestedPatchSink newNestedSink() {
+        return new NestedPatchSink(objectMapper);
+    }
+
+    public String writeSummary(DiffSummary summary) {
+        try {
+            return objectMapper.writeValueAsString(summary);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Diff summary could not be serialized", e);
+        }
+    }
+
+    /**
+     * Summary stored as a SUMMARY-format result; null when there is none (failed run) or it is unreadable
+     */
+    public DiffSummary parseSummaryFromResult(String resultJson) {
+        if (resultJson == null || resultJson.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(resultJson, DiffSummary.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse stored diff summary: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public int countDifferences(String resultJson) {
+        try {
+            JsonNode diffNode = objectMapper.readTree(resultJson);
+            return diffNode.isArray() ? diffNode.size() : 0;
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    private DiffCostEstimator.InputProfile scan(String json, String fieldName, DiffDeadline deadline) {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return DiffCostEstimator.scan(parser, deadline);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(fieldName + " is not valid JSON: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Object nodeToObject(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isTextual()) {
+            return node.asText();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.asBoolean();
+        }
+        // For arrays and objects, return as string representation
+        return node.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * JSON Pointer helpers and replay of zjsonpatch output into a {@link DiffSink}
+ */
+final class JsonPatchOps {
+
+    private JsonPatchOps() {
+    }
+
+    /**
+     * JSON Pointer to a field of the value at path (RFC 6901 escaping)
+     */
+    static String child(String path, String field) {
+        return path + "/" + field.replace("~", "~0").replace("/", "~1");
+    }
+
+    static String child(String path, int index) {
+        return path + "/" + index;
+    }
+
+    /**
+     * Feed a patch computed for the value at prefix to a sink, with absolute paths
+     */
+    static void replay(String prefix, JsonNode patch, DiffSink sink) {
+        for (JsonNode op : patch) {
+            String path = prefix + op.path("path").asText();
+            switch (op.path("op").asText()) {
+                case "add" -> sink.add(path, op.get("value"));
+                case "remove" -> sink.remove(path, op.get("value"));
+                case "replace" -> sink.replace(path, op.get("fromValue"), op.get("value"));
+                case "copy" -> sink.copy(prefix + op.path("from").asText(), path);
+                case "move" -> sink.move(prefix + op.path("from").asText(), path);
+                default -> throw new IllegalStateException("Unexpected patch operation: " + op);
+            }
+        }
+    }
+}
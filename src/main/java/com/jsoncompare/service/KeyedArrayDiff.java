@@ -0,0 +1,243 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.zjsonpatch.JsonDiff;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * KEYED_ARRAY strategy: a tree diff that matches the elements of record arrays by an id-like
+ * field ({@link DiffCostEstimator#ID_FIELDS}) with a hash map, instead of zjsonpatch's LCS over
+ * whole elements. Applies when every element of both arrays is an object with a unique scalar
+ * key and the records present in both keep their relative order; other arrays go to zjsonpatch.
+ * The patch removes records missing from B (highest index first), adds records new in B (lowest
+ * index first) and then diffs matched records at their final index, so it applies in sequence.
+ * <p>
+ * With walkArrays, the other arrays are diffed here as well, by an LCS over their elements, and
+ * no zjsonpatch patch is built: sinks that {@link DiffSink#walksInputs() walk the inputs} use
+ * this walker for TREE too. Operations on array elements go to the sink's element variants. Arrays whose changed middle exceeds MAX_LCS_CELLS are
+ * compared index by index instead. One instance per comparison.
+ */
+final class KeyedArrayDiff {
+
+    // LCS table size limit (4 bytes per cell) for arrays diffed without keys
+    private static final long MAX_LCS_CELLS = 1L << 22;
+
+    private final DiffDeadline deadline;
+    private final DiffSink sink;
+    private final boolean walkArrays;
+
+    KeyedArrayDiff(DiffDeadline deadline, DiffSink sink, boolean walkArrays) {
+        this.deadline = deadline;
+        this.sink = sink;
+        this.walkArrays = walkArrays;
+    }
+
+    void diff(JsonNode source, JsonNode target) {
+        diff("", source, target);
+    }
+
+    /**
+     * Diff the values at path
+     */
+    void diff(String path, JsonNode source, JsonNode target) {
+        diffNodes(path, source, target, false);
+    }
+
+    // element when path is an element of an array
+    private void diffNodes(String path, JsonNode source, JsonNode target, boolean element) {
+        deadline.check();
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            diffObjects(path, source, target);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(path, source, target);
+        } else if (element) {
+            sink.replaceElement(path, source, target);
+        } else {
+            sink.replace(path, source, target);
+        }
+    }
+
+    // Same operation order as zjsonpatch: source fields (remove or recurse), then fields new in target
+    private void diffObjects(String path, JsonNode source, JsonNode target) {
+        for (Iterator<Map.Entry<String, JsonNode>> fields = source.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String fieldPath = JsonPatchOps.child(path, field.getKey());
+            JsonNode targetValue = target.get(field.getKey());
+            if (targetValue == null) {
+                sink.remove(fieldPath, field.getValue());
+            } else {
+                diffNodes(fieldPath, field.getValue(), targetValue, false);
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = target.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!source.has(field.getKey())) {
+                sink.add(JsonPatchOps.child(path, field.getKey()), field.getValue());
+            }
+        }
+    }
+
+    private void diffArrays(String path, JsonNode source, JsonNode target) {
+        KeyedMatch match = matchByKey(source, target);
+        if (match == null) {
+            if (walkArrays) {
+                diffSequences(path, source, target);
+            } else {
+                sink.appendPatch(path, JsonDiff.asJson(source, target, JsonDiffEngine.DIFF_FLAGS));
+            }
+            return;
+        }
+        String key = match.key();
+        Map<JsonNode, Integer> sourceIndex = match.sourceIndex();
+        Map<JsonNode, Integer> targetIndex = match.targetIndex();
+
+        for (int i = source.size() - 1; i >= 0; i--) {
+            if (!targetIndex.containsKey(source.get(i).get(key))) {
+                sink.removeElement(JsonPatchOps.child(path, i), source.get(i));
+            }
+        }
+        for (int j = 0; j < target.size(); j++) {
+            if (!sourceIndex.containsKey(target.get(j).get(key))) {
+                sink.addElement(JsonPatchOps.child(path, j), target.get(j));
+            }
+        }
+        for (int j = 0; j < target.size(); j++) {
+            Integer i = sourceIndex.get(target.get(j).get(key));
+            if (i != null) {
+                diffNodes(JsonPatchOps.child(path, j), source.get(i), target.get(j), true);
+            }
+        }
+    }
+
+    /**
+     * Elements off the longest common subsequence are paired in order within each gap between
+     * kept elements and diffed in place; the rest of a gap is removed from A or added from B
+     */
+    private void diffSequences(String path, JsonNode source, JsonNode target) {
+        // A common prefix and suffix need no table
+        int start = 0;
+        while (start < source.size() && start < target.size() && source.get(start).equals(target.get(start))) {
+            deadline.check();
+            start++;
+        }
+        int endA = source.size();
+        int endB = target.size();
+        while (endA > start && endB > start && source.get(endA - 1).equals(target.get(endB - 1))) {
+            deadline.check();
+            endA--;
+            endB--;
+        }
+
+        int position = start;
+        int gapA = start;
+        int gapB = start;
+        int rows = endA - start;
+        int columns = endB - start;
+        if ((long) (rows + 1) * (columns + 1) <= MAX_LCS_CELLS) {
+            int[][] lcs = lcsOfSuffixes(source, target, start, endA, endB);
+            int i = start;
+            int j = start;
+            while (i < endA && j < endB) {
+                if (source.get(i).equals(target.get(j))) {
+                    position = diffGap(path, position, source, gapA, i, target, gapB, j) + 1;
+                    gapA = ++i;
+                    gapB = ++j;
+                } else if (lcs[i - start + 1][j - start] >= lcs[i - start][j - start + 1]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        diffGap(path, position, source, gapA, endA, target, gapB, endB);
+    }
+
+    // lcs[x][y]: length of the LCS of source[start + x, endA) and target[start + y, endB)
+    private int[][] lcsOfSuffixes(JsonNode source, JsonNode target, int start, int endA, int endB) {
+        int[][] lcs = new int[endA - start + 1][endB - start + 1];
+        for (int i = endA - 1; i >= start; i--) {
+            deadline.check();
+            for (int j = endB - 1; j >= start; j--) {
+                int x = i - start;
+                int y = j - start;
+                lcs[x][y] = source.get(i).equals(target.get(j))
+                        ? lcs[x + 1][y + 1] + 1
+                        : Math.max(lcs[x + 1][y], lcs[x][y + 1]);
+            }
+        }
+        return lcs;
+    }
+
+    // The gap source[fromA, toA) becomes target[fromB, toB) at position; returns the position after it
+    private int diffGap(String path, int position, JsonNode source, int fromA, int toA,
+                        JsonNode target, int fromB, int toB) {
+        int paired = Math.min(toA - fromA, toB - fromB);
+        for (int k = 0; k < paired; k++) {
+            diffNodes(JsonPatchOps.child(path, position++), source.get(fromA + k), target.get(fromB + k), true);
+        }
+        // Each removal shifts the rest down, so all of them target the same index
+        for (int i = fromA + paired; i < toA; i++) {
+            deadline.check();
+            sink.removeElement(JsonPatchOps.child(path, position), source.get(i));
+        }
+        for (int j = fromB + paired; j < toB; j++) {
+            deadline.check();
+            sink.addElement(JsonPatchOps.child(path, position++), target.get(j));
+        }
+        return position;
+    }
+
+    private record KeyedMatch(String key, Map<JsonNode, Integer> sourceIndex, Map<JsonNode, Integer> targetIndex) {
+    }
+
+    /**
+     * The id field both arrays can be matched on, or null when keyed matching does not apply
+     */
+    private KeyedMatch matchByKey(JsonNode source, JsonNode target) {
+        if (source.isEmpty() || target.isEmpty()) {
+            return null;
+        }
+        for (String key : DiffCostEstimator.ID_FIELDS) {
+            Map<JsonNode, Integer> sourceIndex = indexByKey(source, key);
+            Map<JsonNode, Integer> targetIndex = sourceIndex == null ? null : indexByKey(target, key);
+            if (targetIndex != null && sameRelativeOrder(source, targetIndex, key)) {
+                return new KeyedMatch(key, sourceIndex, targetIndex);
+            }
+        }
+        return null;
+    }
+
+    // Null unless every element is an object with a unique scalar value for key
+    private Map<JsonNode, Integer> indexByKey(JsonNode array, String key) {
+        Map<JsonNode, Integer> index = new HashMap<>(array.size() * 2);
+        for (int i = 0; i < array.size(); i++) {
+            deadline.check();
+            JsonNode id = array.get(i).get(key);
+            if (id == null || !id.isValueNode() || id.isNull() || index.putIfAbsent(id, i) != null) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    // Records present in both arrays must appear in the same order, or the patch would need moves
+    private boolean sameRelativeOrder(JsonNode source, Map<JsonNode, Integer> targetIndex, String key) {
+        int last = -1;
+        for (JsonNode element : source) {
+            Integer position = targetIndex.get(element.get(key));
+            if (position != null) {
+                if (position < last) {
+                    return false;
+                }
+                last = position;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,460 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds relocated values in a patch and passes it on with them rewritten: a remove and an add of
+ * the same value become one move, an add of a value an earlier add already placed becomes a copy
+ * of it, so the value is stored once. Candidates (values of at least minNodes nodes) are bucketed
+ * by a structural hash and confirmed with equals(), which keeps the search linear in the patch
+ * instead of zjsonpatch's pairwise comparison.
+ * <p>
+ * Pairs more than maxDistance operations apart are not considered, so each operation is matched
+ * as it arrives and only the last maxDistance (up to twice that, between flushes) are held back;
+ * older ones can no longer change and go on to the wrapped sink. A streaming sink behind this one
+ * therefore stays bounded; {@link #finish()} passes on the rest.
+ * <p>
+ * A pair is only rewritten when no operation between its two halves touches either path: the
+ * same node, an ancestor or descendant of it, or an element of an array the path goes through
+ * (that could shift its index). The move then takes the place of the later of the two operations
+ * and every path keeps meaning what it meant in the original sequence. One instance per comparison.
+ */
+final class MoveDetectingSink implements DiffSink {
+
+    // Equal values met more often than this within the window are not all tried; the rest stay as they are
+    private static final int MAX_CANDIDATES_TRIED = 16;
+
+    private final DiffSink out;
+    private final int minNodes;
+    private final int maxDistance;
+    private final DiffDeadline deadline;
+    // Operations not passed on yet; window.get(0) is operation number first
+    private final List<Op> window = new ArrayList<>();
+    private int first;
+
+    // Candidates not paired yet, and adds that can be copied from, by value hash in patch order
+    private final Map<Long, Deque<Integer>> removes = new HashMap<>();
+    private final Map<Long, Deque<Integer>> adds = new HashMap<>();
+    private final Map<Long, Deque<Integer>> placed = new HashMap<>();
+
+    // Latest operation touching each path: at it, strictly below it, or on one of its elements
+    // (the path is an array). untouched() looks these up instead of scanning the window.
+    private final Map<String, Integer> touchedAt = new HashMap<>();
+    private final Map<String, Integer> touchedBelow = new HashMap<>();
+    private final Map<String, Integer> elementTouched = new HashMap<>();
+
+    // Nodes seen by the last hash() call
+    private int hashedNodes;
+
+    MoveDetectingSink(DiffSink out, int minNodes, int maxDistance, DiffDeadline deadline) {
+        this.out = out;
+        this.minNodes = minNodes;
+        this.maxDistance = maxDistance;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void add(String path, JsonNode value) {
+        accept(new Op("add", path, null, null, value, false));
+    }
+
+    @Override
+    public void remove(String path, JsonNode value) {
+        accept(new Op("remove", path, null, null, value, false));
+    }
+
+    @Override
+    public void replace(String path, JsonNode fromValue, JsonNode value) {
+        accept(new Op("replace", path, null, fromValue, value, false));
+    }
+
+    @Override
+    public void addElement(String path, JsonNode value) {
+        accept(new Op("add", path, null, null, value, true));
+    }
+
+    @Override
+    public void removeElement(String path, JsonNode value) {
+        accept(new Op("remove", path, null, null, value, true));
+    }
+
+    @Override
+    public void replaceElement(String path, JsonNode fromValue, JsonNode value) {
+        accept(new Op("replace", path, null, fromValue, value, true));
+    }
+
+    @Override
+    public void copy(String from, String path) {
+        accept(new Op("copy", path, from, null, null, false));
+    }
+
+    @Override
+    public void move(String from, String path) {
+        accept(new Op("move", path, from, null, null, false));
+    }
+
+    @Override
+    public boolean streamsOperations() {
+        return out.streamsOperations();
+    }
+
+    @Override
+    public boolean needsArrayElements() {
+        return out.needsArrayElements();
+    }
+
+    /**
+     * Pass the operations still held back to the wrapped sink
+     */
+    void finish() {
+        flush(window.size());
+    }
+
+    private void accept(Op op) {
+        int j = first + window.size();
+        window.add(op);
+        detect(j, op);
+        // Registered with the paths detection settled on
+        touch(op.path, j, true);
+        if (op.from != null) {
+            touch(op.from, j, true);
+        }
+        // Flushed in batches, so dropping the head of the list stays cheap
+        if (window.size() > 2 * maxDistance) {
+            flush(window.size() - maxDistance);
+        }
+    }
+
+    // Pass on the oldest count operations; none of them can pair with a later one any more
+    private void flush(int count) {
+        for (int k = 0; k < count; k++) {
+            deadline.check();
+            Op op = window.get(k);
+            touch(op.path, first + k, false);
+            if (op.from != null) {
+                touch(op.from, first + k, false);
+            }
+            if (op.candidate) {
+                forget(removes, op.hash, first + k);
+                forget(adds, op.hash, first + k);
+                forget(placed, op.hash, first + k);
+            }
+            if (op.dropped) {
+                continue;
+            }
+            switch (op.op) {
+                case "add" -> {
+                    if (op.element) {
+                        out.addElement(op.path, op.value);
+                    } else {
+                        out.add(op.path, op.value);
+                    }
+                }
+                case "remove" -> {
+                    if (op.element) {
+                        out.removeElement(op.path, op.value);
+                    } else {
+                        out.remove(op.path, op.value);
+                    }
+                }
+                case "replace" -> {
+                    if (op.element) {
+                        out.replaceElement(op.path, op.fromValue, op.value);
+                    } else {
+                        out.replace(op.path, op.fromValue, op.value);
+                    }
+                }
+                case "copy" -> out.copy(op.from, op.path);
+                default -> out.move(op.from, op.path);
+            }
+        }
+        window.subList(0, count).clear();
+        first += count;
+    }
+
+    // Flushed in patch order, so a candidate still listed is at the head of its list
+    private static void forget(Map<Long, Deque<Integer>> candidates, long hash, int index) {
+        Deque<Integer> list = candidates.get(hash);
+        if (list != null && Integer.valueOf(index).equals(list.peekFirst())) {
+            list.pollFirst();
+            if (list.isEmpty()) {
+                candidates.remove(hash);
+            }
+        }
+    }
+
+    private Op op(int index) {
+        return window.get(index - first);
+    }
+
+    private void detect(int j, Op op) {
+        boolean isAdd = op.op.equals("add");
+        if (!isAdd && !op.op.equals("remove") || op.value == null) {
+            return;
+        }
+        long hash = hash(op.value);
+        if (hashedNodes < minNodes) {
+            return;
+        }
+        op.candidate = true;
+        op.hash = hash;
+        if (isAdd) {
+            // remove ... add: a move removes before it adds, like the pair, so the paths may overlap
+            int removed = takeStable(removes.get(hash), j, op.value, op.path, false);
+            if (removed >= 0) {
+                movePair(op(removed), op, op(removed).path, op.path);
+            } else {
+                int source = findStable(placed.get(hash), j, op.value);
+                if (source >= 0) {
+                    // The source must now stay where it is
+                    op(source).pinned = true;
+                    op.op = "copy";
+                    op.from = op(source).path;
+                    return;
+                }
+                adds.computeIfAbsent(hash, h -> new ArrayDeque<>()).add(j);
+            }
+            placed.computeIfAbsent(hash, h -> new ArrayDeque<>()).add(j);
+        } else {
+            // add ... remove: the add is delayed past the remove, so neither may shift the other,
+            // except within one array, where the indices are adjusted
+            int added = takeStable(adds.get(hash), j, op.value, op.path, true);
+            if (added >= 0) {
+                String from = op.path;
+                String path = op(added).path;
+                if (sameArray(from, path)) {
+                    String parent = from.substring(0, from.lastIndexOf('/'));
+                    int removedAt = lastIndex(from);
+                    int addedAt = lastIndex(path);
+                    // Without the add first, an element above it sits one lower; removed from
+                    // below its target, the value lands one lower
+                    from = JsonPatchOps.child(parent, addedAt < removedAt ? removedAt - 1 : removedAt);
+                    path = JsonPatchOps.child(parent, addedAt < removedAt ? addedAt : addedAt - 1);
+                }
+                movePair(op(added), op, from, path);
+            } else {
+                removes.computeIfAbsent(hash, h -> new ArrayDeque<>()).add(j);
+            }
+        }
+    }
+
+    // The earlier operation goes, the later one becomes the move
+    private static void movePair(Op earlier, Op later, String from, String path) {
+        earlier.dropped = true;
+        later.op = "move";
+        later.from = from;
+        later.path = path;
+    }
+
+    /**
+     * Index of the earliest candidate equal to value that can pair with operation j, taken off the
+     * list; -1 if none. With separate, the two paths must not affect each other either (unless
+     * they are elements of one array).
+     */
+    private int takeStable(Deque<Integer> candidates, int j, JsonNode value, String path, boolean separate) {
+        if (candidates == null) {
+            return -1;
+        }
+        while (!candidates.isEmpty() && j - candidates.peekFirst() > maxDistance) {
+            candidates.pollFirst();
+        }
+        int tried = 0;
+        for (Iterator<Integer> it = candidates.iterator(); it.hasNext() && tried++ < MAX_CANDIDATES_TRIED; ) {
+            int i = it.next();
+            Op candidate = op(i);
+            if (candidate.pinned) {
+                continue;
+            }
+            if ((!separate || sameArray(candidate.path, path) || independent(candidate.path, path))
+                    && candidate.value.equals(value)
+                    && untouched(i, j, candidate.path) && untouched(i, j, path)) {
+                it.remove();
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Latest placed value equal to value whose path and content are unchanged up to operation j
+    private int findStable(Deque<Integer> candidates, int j, JsonNode value) {
+        if (candidates == null) {
+            return -1;
+        }
+        int tried = 0;
+        for (Iterator<Integer> it = candidates.descendingIterator(); it.hasNext() && tried++ < MAX_CANDIDATES_TRIED; ) {
+            int i = it.next();
+            if (j - i > maxDistance) {
+                break;
+            }
+            Op source = op(i);
+            if (source.value.equals(value) && untouched(i, j, source.path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether path and the operations strictly between i and j are independent: none of them
+     * affects path, and path (whose change moves across them) affects none of them. Only
+     * operations up to j - 1 are registered, so "touched after i" means "between i and j".
+     */
+    private boolean untouched(int i, int j, String path) {
+        // The operation is at or below path
+        if (after(touchedAt, path, i) || after(touchedBelow, path, i)) {
+            return false;
+        }
+        // ... at an ancestor of path, or on an element of an array path goes through
+        for (int slash = path.lastIndexOf('/'); slash >= 0; slash = path.lastIndexOf('/', slash - 1)) {
+            String ancestor = path.substring(0, slash);
+            if (after(touchedAt, ancestor, i) || after(elementTouched, ancestor, i)) {
+                return false;
+            }
+            if (slash == 0) {
+                break;
+            }
+        }
+        // ... or below the array path is an element of, whose index path shifts
+        int slash = path.lastIndexOf('/');
+        return slash < 0 || !isIndex(path, slash + 1) || !after(touchedBelow, path.substring(0, slash), i);
+    }
+
+    private static boolean after(Map<String, Integer> touched, String path, int i) {
+        Integer k = touched.get(path);
+        return k != null && k > i;
+    }
+
+    /**
+     * Record (or, once it is flushed, forget) that operation k touches path. Forgetting keeps
+     * an entry a later operation has taken over.
+     */
+    private void touch(String path, int k, boolean record) {
+        mark(touchedAt, path, k, record);
+        int last = path.lastIndexOf('/');
+        if (last >= 0 && isIndex(path, last + 1)) {
+            mark(elementTouched, path.substring(0, last), k, record);
+        }
+        for (int slash = last; slash >= 0; slash = slash == 0 ? -1 : path.lastIndexOf('/', slash - 1)) {
+            mark(touchedBelow, path.substring(0, slash), k, record);
+        }
+    }
+
+    private static void mark(Map<String, Integer> touched, String path, int k, boolean record) {
+        if (record) {
+            touched.put(path, k);
+        } else {
+            touched.remove(path, k);
+        }
+    }
+
+    private static boolean independent(String a, String b) {
+        return !affects(a, b) && !affects(b, a);
+    }
+
+    /**
+     * Whether an operation at touched can change what path points to: same node, ancestor,
+     * descendant, or an element of an array on the way to path (which shifts the index in path)
+     */
+    static boolean affects(String touched, String path) {
+        if (contains(touched, path) || contains(path, touched)) {
+            return true;
+        }
+        int slash = touched.lastIndexOf('/');
+        return slash >= 0 && isIndex(touched, slash + 1) && path.startsWith(touched.substring(0, slash + 1));
+    }
+
+    // Different elements of one array
+    private static boolean sameArray(String a, String b) {
+        int slashA = a.lastIndexOf('/');
+        int slashB = b.lastIndexOf('/');
+        return !a.equals(b) && slashA == slashB && a.regionMatches(0, b, 0, slashA)
+                && isIndex(a, slashA + 1) && isIndex(b, slashB + 1)
+                && a.length() - slashA <= 10 && b.length() - slashB <= 10;
+    }
+
+    private static int lastIndex(String path) {
+        return Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    // Whether inner is outer or below it
+    private static boolean contains(String outer, String inner) {
+        return inner.startsWith(outer) && (inner.length() == outer.length() || inner.charAt(outer.length()) == '/');
+    }
+
+    private static boolean isIndex(String path, int start) {
+        if (start == path.length()) {
+            return false;
+        }
+        for (int i = start; i < path.length(); i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Structural hash consistent with JsonNode.equals (object fields combine in any order);
+     * counts the nodes it visits in hashedNodes
+     */
+    private long hash(JsonNode root) {
+        hashedNodes = 0;
+        return hashNode(root);
+    }
+
+    private long hashNode(JsonNode node) {
+        hashedNodes++;
+        if (node.isObject()) {
+            deadline.check();
+            long fields = 0;
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                fields += DiffCostEstimator.mix(field.getKey().hashCode(), hashNode(field.getValue()));
+            }
+            return DiffCostEstimator.mix(1, fields);
+        }
+        if (node.isArray()) {
+            deadline.check();
+            long elements = 2;
+            for (JsonNode element : node) {
+                elements = DiffCostEstimator.mix(elements, hashNode(element));
+            }
+            return elements;
+        }
+        return DiffCostEstimator.mix(node.getNodeType().ordinal(), node.hashCode());
+    }
+
+    private static final class Op {
+        private String op;
+        private String path;
+        private String from;
+        private final JsonNode fromValue;
+        // Kept after a rewrite, to confirm later matches
+        private final JsonNode value;
+        private boolean dropped;
+        // Copied from, so it cannot be dropped any more
+        private boolean pinned;
+        // Large enough to pair; hash is then its value's structural hash
+        private boolean candidate;
+        private long hash;
+        // Reported as an array element by the strategy
+        private final boolean element;
+
+        private Op(String op, String path, String from, JsonNode fromValue, JsonNode value, boolean element) {
+            this.op = op;
+            this.path = path;
+            this.from = from;
+            this.fromValue = fromValue;
+            this.value = value;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.jsoncompare.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the move and copy detecting sinks from the compare.moves.* properties
+ */
+@Component
+public class MoveDetector {
+
+    private final boolean enabled;
+    private final int minNodes;
+    private final int maxDistance;
+
+    public MoveDetector(
+            @Value("${compare.moves.enabled:false}") boolean enabled,
+            @Value("${compare.moves.min-nodes:2}") int minNodes,
+            @Value("${compare.moves.max-distance:1000}") int maxDistance) {
+        if (minNodes < 1) {
+            throw new IllegalArgumentException("compare.moves.min-nodes must be at least 1");
+        }
+        this.enabled = enabled;
+        this.minNodes = minNodes;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * The application.properties defaults, for use outside Spring (tests, benchmarks)
+     */
+    public static MoveDetector defaults() {
+        return new MoveDetector(false, 2, 1000);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    MoveDetectingSink newSink(DiffSink out, DiffDeadline deadline) {
+        return new MoveDetectingSink(out, minNodes, maxDistance, deadline);
+    }
+}
@@ -0,0 +1,217 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the NESTED result format while the diff runs. Operations are grouped under their path
+ * segments (escaped JSON Pointer tokens), each segment written once, and the operations on a
+ * value are listed without their path under "~ops", a key no escaped token can be:
+ * <pre>[{"data":{"items":{"3":{"~ops":[{"op":"remove","value":...}]},"name":{"~ops":[...]}}}}]</pre>
+ * Only the open path is kept, so operations have to arrive grouped by path. Every strategy does
+ * that except KEYED_ARRAY, whose removes (by A index) can share an index with later record
+ * patches (by B index). Such a return to a closed segment starts another tree in the top-level
+ * array; reading the trees in order gives the operations in patch order. One instance per comparison.
+ */
+final class NestedPatchSink implements DiffSink {
+
+    static final String OPS_KEY = "~ops";
+
+    private final StringWriter out = new StringWriter();
+    private final JsonGenerator generator;
+    // Tokens of the open path; closed.get(i) holds the keys finished under the node at depth i
+    private final List<String> open = new ArrayList<>();
+    private final List<Set<String>> closed = new ArrayList<>();
+    private boolean treeOpen;
+    private boolean opsOpen;
+    private int operations;
+
+    NestedPatchSink(ObjectMapper objectMapper) {
+        try {
+            this.generator = objectMapper.createGenerator(out);
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean streamsOperations() {
+        return true;
+    }
+
+    @Override
+    public void add(String path, JsonNode value) {
+        try {
+            startOperation(path, "add");
+            writeValue("value", value);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void remove(String path, JsonNode value) {
+        try {
+            startOperation(path, "remove");
+            writeValue("value", value);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void replace(String path, JsonNode fromValue, JsonNode value) {
+        try {
+            startOperation(path, "replace");
+            writeValue("fromValue", fromValue);
+            writeValue("value", value);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void copy(String from, String path) {
+        try {
+            startOperation(path, "copy");
+            generator.writeStringField("from", from);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void move(String from, String path) {
+        try {
+            startOperation(path, "move");
+            generator.writeStringField("from", from);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int operations() {
+        return operations;
+    }
+
+    /**
+     * Finish the output; the sink takes no operations afterwards
+     */
+    String result() {
+        try {
+            closeTree();
+            generator.writeEndArray();
+            generator.close();
+            return out.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void startOperation(String path, String op) throws IOException {
+        moveTo(tokens(path));
+        operations++;
+        generator.writeStartObject();
+        generator.writeStringField("op", op);
+    }
+
+    private void writeValue(String field, JsonNode value) throws IOException {
+        generator.writeFieldName(field);
+        generator.writeTree(value != null ? value : NullNode.getInstance());
+    }
+
+    // Leave the generator inside the "~ops" array of the node at tokens
+    private void moveTo(List<String> tokens) throws IOException {
+        if (treeOpen && returnsToClosedKey(tokens)) {
+            closeTree();
+        }
+        if (!treeOpen) {
+            generator.writeStartObject();
+            closed.add(new HashSet<>());
+            treeOpen = true;
+        }
+        int common = commonPrefix(tokens);
+        if (opsOpen && common == open.size() && common == tokens.size()) {
+            return;
+        }
+        closeOps();
+        while (open.size() > common) {
+            closeDeepest();
+        }
+        for (int i = common; i < tokens.size(); i++) {
+            generator.writeFieldName(tokens.get(i));
+            generator.writeStartObject();
+            open.add(tokens.get(i));
+            closed.add(new HashSet<>());
+        }
+        generator.writeFieldName(OPS_KEY);
+        generator.writeStartArray();
+        opsOpen = true;
+    }
+
+    private boolean returnsToClosedKey(List<String> tokens) {
+        int common = commonPrefix(tokens);
+        if (common < tokens.size()) {
+            return closed.get(common).contains(tokens.get(common));
+        }
+        boolean sameOpsArray = opsOpen && common == open.size();
+        return !sameOpsArray && closed.get(common).contains(OPS_KEY);
+    }
+
+    private void closeTree() throws IOException {
+        if (!treeOpen) {
+            return;
+        }
+        closeOps();
+        while (!open.isEmpty()) {
+            closeDeepest();
+        }
+        generator.writeEndObject();
+        closed.clear();
+        treeOpen = false;
+    }
+
+    private void closeOps() throws IOException {
+        if (opsOpen) {
+            generator.writeEndArray();
+            closed.get(open.size()).add(OPS_KEY);
+            opsOpen = false;
+        }
+    }
+
+    private void closeDeepest() throws IOException {
+        generator.writeEndObject();
+        String token = open.remove(open.size() - 1);
+        closed.remove(closed.size() - 1);
+        closed.get(open.size()).add(token);
+    }
+
+    private int commonPrefix(List<String> tokens) {
+        int common = 0;
+        while (common < open.size() && common < tokens.size() && open.get(common).equals(tokens.get(common))) {
+            common++;
+        }
+        return common;
+    }
+
+    private static List<String> tokens(String path) {
+        return path.isEmpty() ? List.of() : Arrays.asList(path.substring(1).split("/", -1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Collects the operations into a JSON Patch in the shape zjsonpatch emits with
+ * {@link JsonDiffEngine#DIFF_FLAGS} (removed values kept, replaced values as fromValue),
+ * so every strategy stores the same format
+ */
+final class PatchSink implements DiffSink {
+
+    private final ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+
+    @Override
+    public void add(String path, JsonNode value) {
+        ObjectNode op = patch.addObject();
+        op.put("op", "add");
+        op.put("path", path);
+        op.set("value", value);
+    }
+
+    @Override
+    public void remove(String path, JsonNode value) {
+        ObjectNode op = patch.addObject();
+        op.put("op", "remove");
+        op.put("path", path);
+        op.set("value", value);
+    }
+
+    @Override
+    public void replace(String path, JsonNode fromValue, JsonNode value) {
+        ObjectNode op = patch.addObject();
+        op.put("op", "replace");
+        op.set("fromValue", fromValue);
+        op.put("path", path);
+        op.set("value", value);
+    }
+
+    @Override
+    public void copy(String from, String path) {
+        ObjectNode op = patch.addObject();
+        op.put("op", "copy");
+        op.put("from", from);
+        op.put("path", path);
+    }
+
+    @Override
+    public void move(String from, String path) {
+        ObjectNode op = patch.addObject();
+        op.put("op", "move");
+        op.put("from", from);
+        op.put("path", path);
+    }
+
+    // Already in this format: take the operations as they are, only rewriting their paths
+    @Override
+    public void appendPatch(String prefix, JsonNode ops) {
+        for (JsonNode op : ops) {
+            if (!prefix.isEmpty()) {
+                ObjectNode rewritten = (ObjectNode) op;
+                rewritten.put("path", prefix + op.path("path").asText());
+                if (op.has("from")) {
+                    rewritten.put("from", prefix + op.get("from").asText());
+                }
+            }
+            patch.add(op);
+        }
+    }
+
+    ArrayNode patch() {
+        return patch;
+    }
+}
@@ -0,0 +1,215 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the RANGES result format: a patch in which runs of consecutive operations of one kind on
+ * contiguous elements of the same array are coalesced into one range operation, e.g.
+ * {"op":"remove","path":"/arr/500..10499","count":10000,"value":[...]}. A range stands for the
+ * elements first..last of the array before the operation (remove, replace) or after it (add);
+ * value (and fromValue for replace) lists them in index order, or is left out when values are not
+ * kept. Only operations the strategy reports as array elements coalesce, so numeric object keys
+ * never form a range. Removes coalesce whether they repeat one index (LCS and streaming diffs) or
+ * count down (keyed arrays); adds and replaces count up. Only the open run is buffered.
+ * One instance per comparison.
+ */
+final class RangePatchSink implements DiffSink {
+
+    private final PatchSink out = new PatchSink();
+    private final boolean keepValues;
+    private int operations;
+
+    // The open run: operation, array path, covered indices and values in arrival order
+    private String runOp;
+    private String runParent;
+    private int first;
+    private int last;
+    private boolean descending;
+    private final List<JsonNode> values = new ArrayList<>();
+    private final List<JsonNode> fromValues = new ArrayList<>();
+
+    RangePatchSink(boolean keepValues) {
+        this.keepValues = keepValues;
+    }
+
+    @Override
+    public void add(String path, JsonNode value) {
+        operations++;
+        flush();
+        out.add(path, value);
+    }
+
+    @Override
+    public void remove(String path, JsonNode value) {
+        operations++;
+        flush();
+        out.remove(path, value);
+    }
+
+    @Override
+    public void replace(String path, JsonNode fromValue, JsonNode value) {
+        operations++;
+        flush();
+        out.replace(path, fromValue, value);
+    }
+
+    @Override
+    public void addElement(String path, JsonNode value) {
+        operations++;
+        if (!extendRun("add", path, null, value)) {
+            out.add(path, value);
+        }
+    }
+
+    @Override
+    public void removeElement(String path, JsonNode value) {
+        operations++;
+        if (!extendRun("remove", path, null, value)) {
+            out.remove(path, value);
+        }
+    }
+
+    @Override
+    public void replaceElement(String path, JsonNode fromValue, JsonNode value) {
+        operations++;
+        if (!extendRun("replace", path, fromValue, value)) {
+            out.replace(path, fromValue, value);
+        }
+    }
+
+    @Override
+    public void copy(String from, String path) {
+        operations++;
+        flush();
+        out.copy(from, path);
+    }
+
+    @Override
+    public void move(String from, String path) {
+        operations++;
+        flush();
+        out.move(from, path);
+    }
+
+    // Only the element variants coalesce; numeric object keys must stay single operations
+    @Override
+    public boolean needsArrayElements() {
+        return true;
+    }
+
+    /**
+     * Operations received, counting each element of a range
+     */
+    int operations() {
+        return operations;
+    }
+
+    ArrayNode patch() {
+        flush();
+        return out.patch();
+    }
+
+    // Extend the open run or start a new one; false when the index is not canonical
+    private boolean extendRun(String op, String path, JsonNode fromValue, JsonNode value) {
+        int slash = path.lastIndexOf('/');
+        int index = slash < 0 ? -1 : arrayIndex(path, slash + 1);
+        if (index < 0) {
+            flush();
+            return false;
+        }
+        String parent = path.substring(0, slash);
+        if (!continuesRun(op, parent, index)) {
+            flush();
+            runOp = op;
+            runParent = parent;
+            first = index;
+            last = index;
+            descending = false;
+        } else if (op.equals("remove") && index == first - 1) {
+            descending = true;
+            first = index;
+        } else if (!op.equals("remove")) {
+            last = index;
+        } else {
+            last++;
+        }
+        values.add(value);
+        if (op.equals("replace")) {
+            fromValues.add(fromValue);
+        }
+        return true;
+    }
+
+    private boolean continuesRun(String op, String parent, int index) {
+        if (runOp == null || !runOp.equals(op) || !runParent.equals(parent)) {
+            return false;
+        }
+        boolean single = first == last;
+        if (op.equals("remove")) {
+            // The same index again removes the next element; the one below extends the run downwards
+            return (index == first && (single || !descending)) || (index == first - 1 && (single || descending));
+        }
+        return index == last + 1;
+    }
+
+    private void flush() {
+        if (runOp == null) {
+            return;
+        }
+        if (first == last) {
+            String path = runParent + "/" + first;
+            switch (runOp) {
+                case "add" -> out.add(path, values.get(0));
+                case "remove" -> out.remove(path, values.get(0));
+                default -> out.replace(path, fromValues.get(0), values.get(0));
+            }
+        } else {
+            if (descending) {
+                Collections.reverse(values);
+            }
+            ObjectNode op = out.patch().addObject();
+            op.put("op", runOp);
+            if (keepValues && runOp.equals("replace")) {
+                op.set("fromValue", toArray(fromValues));
+            }
+            op.put("path", runParent + "/" + first + ".." + last);
+            op.put("count", last - first + 1);
+            if (keepValues) {
+                op.set("value", toArray(values));
+            }
+        }
+        runOp = null;
+        values.clear();
+        fromValues.clear();
+    }
+
+    private static ArrayNode toArray(List<JsonNode> nodes) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode(nodes.size());
+        array.addAll(nodes);
+        return array;
+    }
+
+    // The index a pointer token denotes (canonical decimal, as RFC 6901 requires), or -1
+    private static int arrayIndex(String path, int start) {
+        int length = path.length() - start;
+        if (length == 0 || length > 9 || (length > 1 && path.charAt(start) == '0')) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.config.Workload;
+import com.jsoncompare.config.WorkloadPool;
+import com.jsoncompare.model.enums.UserSessionStatus;
+import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked signed-token ids (logged out, refreshed or revoked sessions).
+ * Only tokens that have not yet expired are kept, so the set stays small; expired tokens
+ * are already rejected by signature verification.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionRevocationList {
+
+    private final UserSessionRepository userSessionRepository;
+    private final ShardRouter shardRouter;
+
+    // token id -> token expiry (epoch millis)
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(UUID tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    public void revoke(UUID tokenId, LocalDateTime expiresAt) {
+        if (tokenId != null) {
+            revoked.put(tokenId, toEpochMillis(expiresAt));
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Reload revocations from user_sessions so logouts on other instances are picked up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval:PT30S}",
+            initialDelayString = "${auth.revocation.refresh-interval:PT30S}")
+    @Workload(WorkloadPool.MAINTENANCE)
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String shard : shardRouter.shardNames()) {
+            shardRouter.onShard(shard, () ->
+                    userSessionRepository.findByStatusNotAndTokenIdNotNullAndExpiresAtAfter(UserSessionStatus.ACTIVE, now))
+                    .forEach(session -> revoke(session.getTokenId(), session.getExpiresAt()));
+        }
+
+        long nowMillis = toEpochMillis(now);
+        revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        log.debug("Session revocation list refreshed: {} entries", revoked.size());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,108 @@
+package com.jsoncompare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jsoncompare.dto.auth.UserResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token to principal cache for validated sessions.
+ * An entry lives for the configured TTL, but never past the session's own expiresAt.
+ * The TTL also bounds how long a session revoked on another instance can still be used here.
+ */
+@Component
+public class SessionTokenCache {
+
+    private final Cache<String, CachedSession> cache;
+
+    public SessionTokenCache(
+            @Value("${auth.token-cache.max-entries:100000}") long maxEntries,
+            @Value("${auth.token-cache.ttl:60s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new SessionExpiry(ttl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached principal for the token, or null if it is not cached
+     */
+    public UserResponse get(String token) {
+        CachedSession entry = cache.getIfPresent(token);
+        return entry == null ? null : entry.user();
+    }
+
+    public void put(String token, UserResponse user, LocalDateTime expiresAt) {
+        cache.put(token, new CachedSession(user, expiresAt));
+    }
+
+    /**
+     * Evict a token now and, when called inside a transaction, again after commit so a
+     * concurrent lookup cannot re-cache the session before the status change is visible.
+     */
+    public void invalidate(String token) {
+        cache.invalidate(token);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(token);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRatio", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private record CachedSession(UserResponse user, LocalDateTime expiresAt) {
+    }
+
+    private static final class SessionExpiry implements Expiry<String, CachedSession> {
+
+        private final long ttlNanos;
+
+        private SessionExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String token, CachedSession session, long currentTime) {
+            long untilExpiry = Duration.between(LocalDateTime.now(), session.expiresAt()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, CachedSession session, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, session, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, CachedSession session, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.zjsonpatch.JsonDiff;
+
+import java.io.IOException;
+
+/**
+ * STREAMING strategy: walks both inputs token by token in lockstep and only materializes
+ * subtrees where they diverge, so memory follows the size of the differences rather than the
+ * documents. Scalars that differ become replace operations; objects whose field order or field
+ * set diverges have their remaining fields diffed as trees; arrays are compared index by index,
+ * with trailing elements added or removed (no LCS, so an insertion shows as replaces plus an add).
+ * One instance per comparison.
+ */
+final class StreamingJsonDiff {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader treeReader;
+    private final DeadlineNodeFactory nodeFactory;
+    private final DiffDeadline deadline;
+
+    StreamingJsonDiff(ObjectMapper objectMapper, DiffDeadline deadline) {
+        this.objectMapper = objectMapper;
+        this.nodeFactory = new DeadlineNodeFactory(deadline);
+        this.treeReader = objectMapper.reader().with(nodeFactory);
+        this.deadline = deadline;
+    }
+
+    void diff(String jsonA, String jsonB, DiffSink sink) throws IOException {
+        try (JsonParser a = objectMapper.createParser(jsonA); JsonParser b = objectMapper.createParser(jsonB)) {
+            if (a.nextToken() != null && b.nextToken() != null) {
+                diffValue("", a, b, sink, false);
+            }
+        }
+    }
+
+    /**
+     * Whether both inputs have the same token stream, i.e. differ at most in formatting
+     */
+    boolean tokensEqual(String jsonA, String jsonB) throws IOException {
+        if (jsonA.equals(jsonB)) {
+            return true;
+        }
+        try (JsonParser a = objectMapper.createParser(jsonA); JsonParser b = objectMapper.createParser(jsonB)) {
+            while (true) {
+                deadline.check();
+                JsonToken tokenA = a.nextToken();
+                if (tokenA != b.nextToken()) {
+                    return false;
+                }
+                if (tokenA == null) {
+                    return true;
+                }
+                if ((tokenA.isScalarValue() || tokenA == JsonToken.FIELD_NAME) && !a.getText().equals(b.getText())) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    // Both parsers are on the first token of the values at path; element when it is in an array
+    private void diffValue(String path, JsonParser a, JsonParser b, DiffSink sink, boolean element) throws IOException {
+        deadline.check();
+        JsonToken tokenA = a.currentToken();
+        JsonToken tokenB = b.currentToken();
+        if (tokenA == JsonToken.START_OBJECT && tokenB == JsonToken.START_OBJECT) {
+            diffObjects(path, a, b, sink);
+        } else if (tokenA == JsonToken.START_ARRAY && tokenB == JsonToken.START_ARRAY) {
+            diffArrays(path, a, b, sink);
+        } else {
+            JsonNode valueA = readValue(a);
+            JsonNode valueB = readValue(b);
+            if (valueA.equals(valueB)) {
+                return;
+            }
+            if (element) {
+                sink.replaceElement(path, valueA, valueB);
+            } else {
+                sink.replace(path, valueA, valueB);
+            }
+        }
+    }
+
+    private void diffObjects(String path, JsonParser a, JsonParser b, DiffSink sink) throws IOException {
+        while (true) {
+            JsonToken tokenA = a.nextToken();
+            JsonToken tokenB = b.nextToken();
+            if (tokenA == JsonToken.END_OBJECT && tokenB == JsonToken.END_OBJECT) {
+                return;
+            }
+            if (tokenA == JsonToken.FIELD_NAME && tokenB == JsonToken.FIELD_NAME
+                    && a.currentName().equals(b.currentName())) {
+                String field = a.currentName();
+                a.nextToken();
+                b.nextToken();
+                diffValue(JsonPatchOps.child(path, field), a, b, sink, false);
+                continue;
+            }
+            // Field order or field set diverges; fields already seen cannot reappear, so diffing
+            // the rest of both objects as trees is exact
+            ObjectNode restA = readRemainingFields(a);
+            ObjectNode restB = readRemainingFields(b);
+            if (sink.walksInputs()) {
+                new KeyedArrayDiff(deadline, sink, true).diff(path, restA, restB);
+            } else {
+                sink.appendPatch(path, JsonDiff.asJson(restA, restB, JsonDiffEngine.DIFF_FLAGS));
+            }
+            return;
+        }
+    }
+
+    private void diffArrays(String path, JsonParser a, JsonParser b, DiffSink sink) throws IOException {
+        int index = 0;
+        while (true) {
+            JsonToken tokenA = a.nextToken();
+            JsonToken tokenB = b.nextToken();
+            if (tokenA == JsonToken.END_ARRAY && tokenB == JsonToken.END_ARRAY) {
+                return;
+            }
+            if (tokenA == JsonToken.END_ARRAY) {
+                do {
+                    sink.addElement(JsonPatchOps.child(path, index++), readValue(b));
+                } while (b.nextToken() != JsonToken.END_ARRAY);
+                return;
+            }
+            if (tokenB == JsonToken.END_ARRAY) {
+                // Each removal shifts the rest down, so all of them target the same index
+                do {
+                    sink.removeElement(JsonPatchOps.child(path, index), readValue(a));
+                } while (a.nextToken() != JsonToken.END_ARRAY);
+                return;
+            }
+            diffValue(JsonPatchOps.child(path, index++), a, b, sink, true);
+        }
+    }
+
+    // Reads the value starting at the current token; leaves the parser on its last token
+    private JsonNode readValue(JsonParser parser) throws IOException {
+        JsonNode value = treeReader.readTree(parser);
+        return value != null ? value : NullNode.getInstance();
+    }
+
+    // Parser is on a FIELD_NAME or END_OBJECT; leaves it on END_OBJECT
+    private ObjectNode readRemainingFields(JsonParser parser) throws IOException {
+        ObjectNode rest = nodeFactory.objectNode();
+        while (parser.currentToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            rest.set(field, readValue(parser));
+            parser.nextToken();
+        }
+        return rest;
+    }
+}
@@ -0,0 +1,137 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jsoncompare.dto.compare.DiffSummary;
+import com.jsoncompare.dto.compare.DiffSummary.ChangedSubtree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Aggregates operations into a {@link DiffSummary} as they arrive and keeps none of them:
+ * a counter per operation, path bucket and type change, and a bounded heap of the largest
+ * changes. Path buckets are capped; later prefixes are only counted in otherPaths.
+ * One instance per comparison.
+ */
+final class SummarySink implements DiffSink {
+
+    private final int pathDepth;
+    private final int maxPathBuckets;
+    private final int largestChanges;
+
+    private long totalChanges;
+    private final Map<String, Long> byOperation = new TreeMap<>();
+    private final Map<String, Long> byPath = new HashMap<>();
+    private long otherPaths;
+    private final Map<String, Long> typeChanges = new TreeMap<>();
+    // Smallest of the kept changes on top, so it is the one replaced
+    private final PriorityQueue<ChangedSubtree> largest =
+            new PriorityQueue<>(Comparator.comparingLong(ChangedSubtree::getNodeCount));
+
+    SummarySink(int pathDepth, int maxPathBuckets, int largestChanges) {
+        this.pathDepth = pathDepth;
+        this.maxPathBuckets = maxPathBuckets;
+        this.largestChanges = largestChanges;
+    }
+
+    @Override
+    public boolean streamsOperations() {
+        return true;
+    }
+
+    @Override
+    public void add(String path, JsonNode value) {
+        record("add", path, nodeCount(value));
+    }
+
+    @Override
+    public void remove(String path, JsonNode value) {
+        record("remove", path, nodeCount(value));
+    }
+
+    @Override
+    public void replace(String path, JsonNode fromValue, JsonNode value) {
+        record("replace", path, Math.max(nodeCount(fromValue), nodeCount(value)));
+        if (fromValue != null && value != null && fromValue.getNodeType() != value.getNodeType()) {
+            typeChanges.merge(typeName(fromValue) + "->" + typeName(value), 1L, Long::sum);
+        }
+    }
+
+    // A copy or move points at existing content, so it adds no changed nodes of its own
+    @Override
+    public void copy(String from, String path) {
+        record("copy", path, 0);
+    }
+
+    @Override
+    public void move(String from, String path) {
+        record("move", path, 0);
+    }
+
+    DiffSummary summary() {
+        List<ChangedSubtree> largestFirst = new ArrayList<>(largest);
+        largestFirst.sort(Comparator.comparingLong(ChangedSubtree::getNodeCount).reversed());
+        return DiffSummary.builder()
+                .totalChanges(totalChanges)
+                .byOperation(byOperation)
+                .pathDepth(pathDepth)
+                .byPath(new TreeMap<>(byPath))
+                .otherPaths(otherPaths)
+                .typeChanges(typeChanges)
+                .largestChanges(largestFirst)
+                .build();
+    }
+
+    private void record(String operation, String path, long nodeCount) {
+        totalChanges++;
+        byOperation.merge(operation, 1L, Long::sum);
+
+        String bucket = prefix(path);
+        if (byPath.size() < maxPathBuckets || byPath.containsKey(bucket)) {
+            byPath.merge(bucket, 1L, Long::sum);
+        } else {
+            otherPaths++;
+        }
+
+        if (nodeCount > 0 && largestChanges > 0
+                && (largest.size() < largestChanges || nodeCount > largest.peek().getNodeCount())) {
+            largest.add(new ChangedSubtree(path, operation, nodeCount));
+            if (largest.size() > largestChanges) {
+                largest.poll();
+            }
+        }
+    }
+
+    // The first pathDepth segments of a JSON Pointer
+    private String prefix(String path) {
+        int end = 0;
+        for (int segment = 0; segment < pathDepth; segment++) {
+            int next = path.indexOf('/', end + 1);
+            if (next < 0) {
+                return path;
+            }
+            end = next;
+        }
+        return path.substring(0, end);
+    }
+
+    private static long nodeCount(JsonNode node) {
+        if (node == null) {
+            return 0;
+        }
+        long count = 1;
+        for (JsonNode child : node) {
+            count += nodeCount(child);
+        }
+        return count;
+    }
+
+    private static String typeName(JsonNode node) {
+        return node.getNodeType().name().toLowerCase();
+    }
+}
@@ -0,0 +1,31 @@
+package com.jsoncompare.shard;
+
+/**
+ * Shard bound to the current thread; read by {@link ShardRoutingDataSource} when a connection
+ * is first used. Bind it through {@link ShardRouter} rather than directly.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static String bind(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jsoncompare.shard;
+
+import com.jsoncompare.JsonCompareAppApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+/**
+ * Offline shard rebalance. Starts the application context without the web server and without
+ * scheduled jobs (which still gives every shard its schema), moves the users whose home shard
+ * differs between datasource.shards.rebalance-from and the configured shards, and exits.
+ * Run it while no application instance is serving, with the same configuration plus the new
+ * shard urls, e.g.
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.jsoncompare.shard.ShardRebalanceCommand \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher --datasource.shards.rebalance-from=shard0
+ * </pre>
+ */
+@Slf4j
+public final class ShardRebalanceCommand {
+
+    private ShardRebalanceCommand() {
+    }
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JsonCompareAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("scheduling.enabled=false")
+                .run(args);
+        int exitCode;
+        try {
+            exitCode = rebalance(context);
+        } catch (RuntimeException e) {
+            // Already moved users stay moved; running the command again continues from here
+            log.error("Shard rebalance failed", e);
+            exitCode = 1;
+        }
+        int result = exitCode;
+        System.exit(SpringApplication.exit(context, () -> result));
+    }
+
+    private static int rebalance(ConfigurableApplicationContext context) {
+        List<String> previous = Binder.get(context.getEnvironment())
+                .bind("datasource.shards.rebalance-from", Bindable.listOf(String.class))
+                .orElse(List.of());
+        if (previous.isEmpty()) {
+            log.error("Set datasource.shards.rebalance-from to the shard names before the new ones were added");
+            return 2;
+        }
+        ShardRoutingDataSource routing = context.getBeanProvider(ShardRoutingDataSource.class).getIfAvailable();
+        if (routing == null) {
+            log.error("Sharding is not enabled (datasource.shards.enabled)");
+            return 2;
+        }
+        new ShardRebalancer(routing.getShards(), routing.getDirectoryShard())
+                .rebalance(new ShardRing(previous), routing.getRing());
+        return 0;
+    }
+}
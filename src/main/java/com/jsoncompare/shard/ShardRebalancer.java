@@ -0,0 +1,176 @@
+package com.jsoncompare.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Moves users whose home shard changes between two rings (typically after adding a shard).
+ * Runs offline, from {@link ShardRebalanceCommand}: the serving application already routes by
+ * the new ring, so moving users under it would hide their rows while they are copied.
+ * <p>
+ * For each moved user the users row, sessions, comparisons and archived payloads are copied to
+ * the new shard in keyset batches and then deleted from the old one. The user's row on the old
+ * shard is locked first and both transactions commit together at the end (target first), so a
+ * write that slips in during the move waits for it and then fails instead of being lost. Rows
+ * already present on the target are skipped, so a run interrupted between the two commits can
+ * simply be repeated. The directory keeps every users row.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String USERS = "users";
+    private static final String SESSIONS = "user_sessions";
+    private static final String COMPARISONS = "comparison_diffs";
+    private static final String ARCHIVES = "comparison_archives";
+    // Comparison rows can hold several MB each, so few are held in memory at once
+    private static final int DEFAULT_BATCH_SIZE = 20;
+
+    private final Map<String, DataSource> shards;
+    private final String directoryShard;
+    private final int batchSize;
+
+    public ShardRebalancer(Map<String, DataSource> shards, String directoryShard) {
+        this(shards, directoryShard, DEFAULT_BATCH_SIZE);
+    }
+
+    ShardRebalancer(Map<String, DataSource> shards, String directoryShard, int batchSize) {
+        this.shards = new LinkedHashMap<>(shards);
+        this.directoryShard = directoryShard;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return number of users moved
+     */
+    public long rebalance(ShardRing from, ShardRing to) {
+        long moved = 0;
+        for (String source : from.getShards()) {
+            List<UUID> userIds = jdbc(source).queryForList("SELECT " + q("id") + " FROM " + q(USERS), UUID.class);
+            for (UUID userId : userIds) {
+                // The directory also holds rows of users who live elsewhere
+                if (!source.equals(from.shardFor(userId))) {
+                    continue;
+                }
+                String target = to.shardFor(userId);
+                if (!target.equals(source)) {
+                    moveUser(userId, source, target);
+                    moved++;
+                }
+            }
+        }
+        log.info("Shard rebalance moved {} users ({} -> {})", moved, from.getShards(), to.getShards());
+        return moved;
+    }
+
+    void moveUser(UUID userId, String source, String target) {
+        JdbcTemplate from = jdbc(source);
+        JdbcTemplate to = jdbc(target);
+
+        // Inner (target) transaction commits first; the source deletes commit only after it
+        transaction(source).executeWithoutResult(sourceStatus -> {
+            // Holds off new sessions and comparisons (their foreign key needs this row) until the move ends
+            from.queryForList("SELECT " + q("id") + " FROM " + q(USERS) + " WHERE " + q("id") + " = ? FOR UPDATE",
+                    userId);
+
+            transaction(target).executeWithoutResult(targetStatus -> {
+                copyRows(from, to, USERS, "id", q(USERS) + " t", "t." + q("id") + " = ?", userId);
+                copyRows(from, to, SESSIONS, "id", q(SESSIONS) + " t", "t." + q("user_id") + " = ?", userId);
+                copyRows(from, to, COMPARISONS, "id", q(COMPARISONS) + " t", "t." + q("created_by_id") + " = ?", userId);
+                copyRows(from, to, ARCHIVES, "comparison_id",
+                        q(ARCHIVES) + " t JOIN " + q(COMPARISONS) + " c ON c." + q("id") + " = t." + q("comparison_id"),
+                        "c." + q("created_by_id") + " = ?", userId);
+            });
+
+            from.update("DELETE FROM " + q(ARCHIVES) + " WHERE " + q("comparison_id") + " IN (SELECT "
+                    + q("id") + " FROM " + q(COMPARISONS) + " WHERE " + q("created_by_id") + " = ?)", userId);
+            from.update("DELETE FROM " + q(COMPARISONS) + " WHERE " + q("created_by_id") + " = ?", userId);
+            from.update("DELETE FROM " + q(SESSIONS) + " WHERE " + q("user_id") + " = ?", userId);
+            if (!source.equals(directoryShard)) {
+                from.update("DELETE FROM " + q(USERS) + " WHERE " + q("id") + " = ?", userId);
+            }
+        });
+        log.debug("Moved user {} from {} to {}", userId, source, target);
+    }
+
+    void copyUserRow(UUID userId, String source, String target) {
+        copyRows(jdbc(source), jdbc(target), USERS, "id", q(USERS) + " t", "t." + q("id") + " = ?", userId);
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Copy the rows of table t (in fromClause) matching condition, batchSize rows at a time in key
+     * order; rows whose key already exists on the target are skipped
+     */
+    private int copyRows(JdbcTemplate from, JdbcTemplate to, String table, String keyColumn,
+                         String fromClause, String condition, UUID userId) {
+        String key = "t." + q(keyColumn);
+        String select = "SELECT t.* FROM " + fromClause + " WHERE " + condition;
+        int copied = 0;
+        Object after = null;
+        while (true) {
+            List<Map<String, Object>> rows = after == null
+                    ? from.queryForList(select + " ORDER BY " + key + " LIMIT " + batchSize, userId)
+                    : from.queryForList(select + " AND " + key + " > ? ORDER BY " + key + " LIMIT " + batchSize,
+                            userId, after);
+            if (rows.isEmpty()) {
+                break;
+            }
+            // Column labels are case-insensitive in the returned maps
+            List<Object> keys = rows.stream().map(row -> row.get(keyColumn)).toList();
+            Set<Object> existing = new HashSet<>(to.queryForList("SELECT " + q(keyColumn) + " FROM " + q(table)
+                    + " WHERE " + q(keyColumn) + " IN (" + placeholders(keys.size()) + ")", Object.class, keys.toArray()));
+
+            List<Object[]> inserts = rows.stream()
+                    .filter(row -> !existing.contains(row.get(keyColumn)))
+                    .map(row -> row.values().toArray())
+                    .toList();
+            if (!inserts.isEmpty()) {
+                Set<String> columns = rows.get(0).keySet();
+                to.batchUpdate("INSERT INTO " + q(table) + " ("
+                        + columns.stream().map(ShardRebalancer::q).collect(Collectors.joining(", "))
+                        + ") VALUES (" + placeholders(columns.size()) + ")", inserts);
+                copied += inserts.size();
+            }
+
+            if (rows.size() < batchSize) {
+                break;
+            }
+            after = keys.get(keys.size() - 1);
+        }
+        return copied;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // Quoted, lower-case identifiers match both Hibernate-created PostgreSQL tables and H2 test schemas
+    private static String q(String identifier) {
+        return "\"" + identifier.toLowerCase() + "\"";
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return new JdbcTemplate(dataSource);
+    }
+
+    private TransactionTemplate transaction(String shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(shards.get(shard)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.jsoncompare.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Consistent-hash ring mapping user ids to shard names.
+ * Each shard owns {@value #VIRTUAL_NODES} points on the ring, so adding a shard moves
+ * only about 1/N of the users, all of them onto the new shard.
+ */
+public final class ShardRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final List<String> shards;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ShardRing(List<String> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(pointHash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public String shardFor(UUID userId) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(keyHash(userId));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    // 64-bit finalizer (MurmurHash3 fmix64) over both halves of the id
+    static long keyHash(UUID id) {
+        long h = id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long pointHash(String point) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(point.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = h << 8 | (digest[i] & 0xFFL);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jsoncompare.shard;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Entry point for user-id sharding (datasource.shards.enabled).
+ * A user's row copy, sessions and comparisons live on the shard chosen by the {@link ShardRing};
+ * the users table on the directory shard (the first configured) is the global index used for
+ * email lookups. Work is bound to a shard for its duration; because connections are fetched
+ * lazily, binding at the start of a transactional method is early enough, but one transaction
+ * can never span two shards.
+ * When sharding is disabled every method simply runs the work against the single database.
+ */
+public class ShardRouter {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    private final ShardRoutingDataSource routing;
+    private final ShardRebalancer rebalancer;
+
+    public ShardRouter(ShardRoutingDataSource routing) {
+        this.routing = routing;
+        this.rebalancer = routing == null ? null : new ShardRebalancer(routing.getShards(), routing.getDirectoryShard());
+    }
+
+    public static ShardRouter disabled() {
+        return new ShardRouter(null);
+    }
+
+    public boolean isEnabled() {
+        return routing != null;
+    }
+
+    /**
+     * Every configured shard (including ones not yet, or no longer, in the ring), for fan-out and jobs
+     */
+    public List<String> shardNames() {
+        return isEnabled() ? List.copyOf(routing.getShards().keySet()) : List.of(DEFAULT_SHARD);
+    }
+
+    public String directoryShard() {
+        return isEnabled() ? routing.getDirectoryShard() : DEFAULT_SHARD;
+    }
+
+    public String shardFor(UUID userId) {
+        return isEnabled() ? routing.getRing().shardFor(userId) : DEFAULT_SHARD;
+    }
+
+    public <T> T onShard(String shard, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        String previous = ShardContext.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    public <T> T onUserShard(UUID userId, Supplier<T> work) {
+        return onShard(shardFor(userId), work);
+    }
+
+    public void runOnUserShard(UUID userId, Runnable work) {
+        onShard(shardFor(userId), () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T onDirectory(Supplier<T> work) {
+        return onShard(directoryShard(), work);
+    }
+
+    /**
+     * Run a lookup on each shard in turn until one finds a result (for keys that do not carry
+     * the user id, such as legacy session tokens)
+     */
+    public <T> Optional<T> findOnAnyShard(Supplier<Optional<T>> lookup) {
+        for (String shard : shardNames()) {
+            Optional<T> found = onShard(shard, lookup);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Copy a newly registered user's row from the directory to its home shard, so sessions and
+     * comparisons there can reference it
+     */
+    public void copyUserToHomeShard(UUID userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        String home = shardFor(userId);
+        if (!home.equals(directoryShard())) {
+            rebalancer.copyUserRow(userId, directoryShard(), home);
+        }
+    }
+}
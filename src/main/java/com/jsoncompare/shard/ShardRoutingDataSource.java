@@ -0,0 +1,58 @@
+package com.jsoncompare.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes each connection to the shard bound in {@link ShardContext}, or to the directory shard
+ * (global tables such as users) when none is bound.
+ * Must sit behind a LazyConnectionDataSourceProxy so the shard is read at the first statement,
+ * not when a transaction begins.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final Map<String, DataSource> shards;
+    private final ShardRing ring;
+    private final String directoryShard;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, ShardRing ring) {
+        this.shards = new LinkedHashMap<>(shards);
+        this.ring = ring;
+        this.directoryShard = shards.keySet().iterator().next();
+
+        setTargetDataSources(new LinkedHashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(directoryShard));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public Map<String, DataSource> getShards() {
+        return shards;
+    }
+
+    public ShardRing getRing() {
+        return ring;
+    }
+
+    public String getDirectoryShard() {
+        return directoryShard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : directoryShard;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards.values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
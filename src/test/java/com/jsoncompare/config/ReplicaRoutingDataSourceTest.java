@@ -0,0 +1,105 @@
+package com.jsoncompare.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes against two embedded H2 databases, each holding a row that names it
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final UUID CALLER_A = UUID.randomUUID();
+    private static final UUID CALLER_B = UUID.randomUUID();
+
+    private ReadYourWritesTracker tracker;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = embedded("primary");
+        DataSource replica = embedded("replica");
+
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+        DataSource routing = DatabaseConfig.lazyRoutingProxy(
+                new ReplicaRoutingDataSource(primary, List.of(replica), tracker));
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.clear();
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() {
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testReadWriteTransactionUsesPrimary() {
+        assertEquals("primary", readWrite.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testReadOutsideTransactionUsesPrimaryWithoutRecordingWrite() {
+        tracker.bind(CALLER_A);
+
+        assertEquals("primary", whoAmI());
+        assertFalse(tracker.isWithinWindow());
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testReadYourWritesKeepsCallerOnPrimary() {
+        tracker.bind(CALLER_A);
+        readWrite.execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+
+        // Another caller without a recent write still reads from the replica
+        tracker.bind(CALLER_B);
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testReadYourWritesDisabledWithZeroWindow() {
+        tracker = new ReadYourWritesTracker(Duration.ZERO);
+        tracker.bind(CALLER_A);
+        tracker.recordWrite();
+
+        assertFalse(tracker.isWithinWindow());
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        setup.execute("DELETE FROM node");
+        setup.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jsoncompare.config;
+
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository reads made outside a transaction, against a primary and a replica that start with the
+ * same schema; a row written only to the replica shows where a read went
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "datasource.replica.enabled=true",
+        "datasource.replica.urls=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    @Autowired
+    private ReadYourWritesTracker tracker;
+
+    @Autowired
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    private final UUID comparisonId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        // Hibernate created the schema on the primary only
+        JdbcTemplate replica = jdbc(ReplicaRoutingDataSource.REPLICA_PREFIX + 0);
+        Integer tables = replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'comparison_diffs'", Integer.class);
+        if (tables == null || tables == 0) {
+            for (String statement : jdbc(ReplicaRoutingDataSource.PRIMARY).queryForList("SCRIPT NODATA", String.class)) {
+                if (!statement.startsWith("--") && !statement.startsWith("CREATE USER")) {
+                    replica.execute(statement);
+                }
+            }
+        }
+        replica.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        replica.update("INSERT INTO \"comparison_diffs\" (\"id\", \"created_by_id\", \"input_string_a\", "
+                        + "\"input_string_b\", \"result\", \"identical\", \"comparison_status\", \"created_at\", "
+                        + "\"deleted\") VALUES (?, ?, '{}', '{}', '[]', TRUE, 'COMPLETED', CURRENT_TIMESTAMP, FALSE)",
+                comparisonId, userId);
+        tracker.bind(userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.clear();
+    }
+
+    @Test
+    void testReadOnlyRepositoryReadOutsideTransactionUsesReplica() {
+        assertTrue(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId).isPresent());
+        assertFalse(tracker.isWithinWindow());
+    }
+
+    @Test
+    void testUnannotatedReadOutsideTransactionUsesPrimaryWithoutRecordingWrite() {
+        assertTrue(comparisonDiffRepository.findByIdAndDeletedFalse(comparisonId).isEmpty());
+        assertFalse(tracker.isWithinWindow());
+        assertTrue(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, userId).isPresent());
+    }
+
+    private JdbcTemplate jdbc(String target) {
+        return new JdbcTemplate(routing.getResolvedDataSources().get(target));
+    }
+}
@@ -0,0 +1,129 @@
+package com.jsoncompare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes against one embedded H2 database through a small Hikari pool per workload
+ */
+class WorkloadRoutingDataSourceTest {
+
+    private WorkloadRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        Map<WorkloadPool, DataSource> pools = new EnumMap<>(WorkloadPool.class);
+        for (WorkloadPool workload : WorkloadPool.values()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("pool-" + workload.key());
+            pool.setJdbcUrl("jdbc:h2:mem:workloads;DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            pool.setMaximumPoolSize(workload == WorkloadPool.AUTH ? 1 : 2);
+            pool.setConnectionTimeout(250);
+            pools.put(workload, pool);
+        }
+        routing = new WorkloadRoutingDataSource(pools);
+
+        DataSource proxy = DatabaseConfig.lazyRoutingProxy(routing);
+        jdbcTemplate = new JdbcTemplate(proxy);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(proxy));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routing.close();
+    }
+
+    @Test
+    void testUnboundWorkUsesInteractivePool() {
+        jdbcTemplate.execute("SELECT 1");
+
+        assertTrue(started(WorkloadPool.INTERACTIVE));
+        assertFalse(started(WorkloadPool.HISTORY));
+    }
+
+    @Test
+    void testBoundWorkloadUsesItsPool() {
+        try (WorkloadContext.Scope ignored = WorkloadContext.enter(WorkloadPool.HISTORY)) {
+            // The transaction begins before the first statement picks the pool
+            transaction.executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+        }
+
+        assertTrue(started(WorkloadPool.HISTORY));
+        assertFalse(started(WorkloadPool.INTERACTIVE));
+        assertNull(WorkloadContext.current());
+    }
+
+    @Test
+    void testWorkloadAnnotationBindsPoolAroundCall() {
+        ProxyFactory factory = new ProxyFactory(new AnnotatedWork());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(WorkloadConfig.workloadAdvisor());
+        AnnotatedWork work = (AnnotatedWork) factory.getProxy();
+
+        // The method's annotation wins over the class's; the binding ends with the call
+        assertEquals(WorkloadPool.AUTH, work.classWorkload());
+        assertEquals(WorkloadPool.HISTORY, work.methodWorkload());
+        assertNull(WorkloadContext.current());
+    }
+
+    @Test
+    void testSaturatedPoolDoesNotStarveOthers() throws Exception {
+        try (WorkloadContext.Scope ignored = WorkloadContext.enter(WorkloadPool.AUTH);
+             Connection held = routing.getConnection()) {
+            assertNotNull(held);
+            // The single auth connection is checked out; interactive work still gets one
+            try (WorkloadContext.Scope interactive = WorkloadContext.enter(WorkloadPool.INTERACTIVE)) {
+                assertEquals(1, jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+            }
+
+            Map<String, Object> auth = ConnectionPoolMonitor.poolStats(pool(WorkloadPool.AUTH));
+            assertEquals(1, auth.get("active"));
+            assertEquals(1.0, auth.get("saturation"));
+        }
+    }
+
+    @Test
+    void testMissingWorkloadPool_Rejected() {
+        Map<WorkloadPool, DataSource> pools = new EnumMap<>(WorkloadPool.class);
+        pools.put(WorkloadPool.INTERACTIVE, pool(WorkloadPool.INTERACTIVE));
+
+        assertThrows(IllegalArgumentException.class, () -> new WorkloadRoutingDataSource(pools));
+    }
+
+    private boolean started(WorkloadPool workload) {
+        return Boolean.TRUE.equals(ConnectionPoolMonitor.poolStats(pool(workload)).get("started"));
+    }
+
+    private HikariDataSource pool(WorkloadPool workload) {
+        return (HikariDataSource) routing.getPools().get(workload);
+    }
+
+    @Workload(WorkloadPool.AUTH)
+    static class AnnotatedWork {
+
+        public WorkloadPool classWorkload() {
+            return WorkloadContext.current();
+        }
+
+        @Workload(WorkloadPool.HISTORY)
+        public WorkloadPool methodWorkload() {
+            return WorkloadContext.current();
+        }
+    }
+}
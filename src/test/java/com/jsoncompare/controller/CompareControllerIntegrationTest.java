@@ -11,6 +11,7 @@ import com.jsoncompare.model.enums.UserStatus;
 import com.jsoncompare.repository.ComparisonDiffRepository;
 import com.jsoncompare.repository.UserRepository;
 import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.service.SessionTokenCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -49,13 +51,17 @@ class CompareControllerIntegrationTest {
     @Autowired
     private ComparisonDiffRepository comparisonDiffRepository;
 
+    @Autowired
+    private SessionTokenCache sessionTokenCache;
+
     private User testUser;
     private String testToken;
     private ComparisonDiff testComparison;
 
     @BeforeEach
     void setUp() {
-        // Clean up
+        // Clean up (every test reuses the same token for a new user)
+        sessionTokenCache.invalidateAll();
         comparisonDiffRepository.deleteAll();
         userSessionRepository.deleteAll();
         userRepository.deleteAll();
@@ -98,10 +104,14 @@ class CompareControllerIntegrationTest {
         request.setJsonB("{\"name\":\"Jane\",\"age\":30}");
         request.setDescription("Test comparison");
 
-        mockMvc.perform(post("/api/compare")
+        MvcResult started = mockMvc.perform(post("/api/compare")
                         .header("Authorization", testToken)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").exists())
                 .andExpect(jsonPath("$.identical").value(false))
@@ -114,10 +124,14 @@ class CompareControllerIntegrationTest {
         request.setJsonA("{\"name\":\"John\"}");
         request.setJsonB("{\"name\":\"John\"}");
 
-        mockMvc.perform(post("/api/compare")
+        MvcResult started = mockMvc.perform(post("/api/compare")
                         .header("Authorization", testToken)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.identical").value(true))
                 .andExpect(jsonPath("$.diffCount").value(0));
@@ -129,8 +143,26 @@ class CompareControllerIntegrationTest {
         request.setJsonA("invalid json");
         request.setJsonB("{\"name\":\"Jane\"}");
 
+        MvcResult started = mockMvc.perform(post("/api/compare")
+                        .header("Authorization", testToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCompare_NonPositiveDeadlineRejected() throws Exception {
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"Jane\"}");
+
         mockMvc.perform(post("/api/compare")
                         .header("Authorization", testToken)
+                        .header(CompareController.DEADLINE_HEADER, "0")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
@@ -180,12 +212,29 @@ class CompareControllerIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
+    @Test
+    void testGetUserComparisonsByCursor_Success() throws Exception {
+        mockMvc.perform(get("/api/compare")
+                        .header("Authorization", testToken)
+                        .param("cursor", "")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
     @Test
     void testRecompare_Success() throws Exception {
         UUID comparisonId = testComparison.getId();
 
-        mockMvc.perform(post("/api/compare/{id}/recompare", comparisonId)
+        MvcResult started = mockMvc.perform(post("/api/compare/{id}/recompare", comparisonId)
                         .header("Authorization", testToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(comparisonId.toString()));
     }
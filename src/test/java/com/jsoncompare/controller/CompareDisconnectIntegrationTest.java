@@ -0,0 +1,130 @@
+package com.jsoncompare.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.dto.auth.RegisterRequest;
+import com.jsoncompare.dto.compare.CompareRequest;
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.service.DiffDeadline;
+import com.jsoncompare.service.JsonDiffEngine;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A client that disconnects while its comparison runs on a compare worker: the container reports
+ * an async error, which must stop the diff and leave a FAILED comparison behind. Not
+ * transactional, so the worker thread sees the registered user.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compare-disconnect;DB_CLOSE_DELAY=-1",
+        "compare.execution.threads=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class CompareDisconnectIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    @SpyBean
+    private JsonDiffEngine diffEngine;
+
+    @Test
+    void testCompare_ClientDisconnectStopsDiffAndRecordsFailure() throws Exception {
+        // Arrange: a diff that only ends when its deadline is cancelled
+        JsonNode registered = objectMapper.readTree(mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RegisterRequest("disconnect@example.com", "password123", "password123"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString());
+        UUID userId = UUID.fromString(registered.get("userId").asText());
+        String token = registered.get("token").asText();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            DiffDeadline deadline = invocation.getArgument(2);
+            started.countDown();
+            try {
+                while (true) {
+                    deadline.checkNow();
+                    Thread.sleep(5);
+                }
+            } finally {
+                stopped.countDown();
+            }
+        }).when(diffEngine).plan(anyString(), anyString(), any(DiffDeadline.class));
+
+        CompareRequest compareRequest = new CompareRequest();
+        compareRequest.setJsonA("{\"name\":\"John\"}");
+        compareRequest.setJsonB("{\"name\":\"Jane\"}");
+        MvcResult result = mockMvc.perform(post("/api/compare")
+                        .header("Authorization", token)
+                        .header(CompareController.DEADLINE_HEADER, "30000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(compareRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act: the container reports the broken connection
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : List.copyOf(asyncContext.getListeners())) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Connection reset by peer")));
+        }
+
+        // Assert: the diff stops well before its deadline and the comparison is recorded FAILED
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        ComparisonDiff failed = awaitComparison(userId);
+        assertEquals(ComparisonStatus.FAILED, failed.getComparisonStatus());
+        assertEquals("Client disconnected", failed.getFailureReason());
+    }
+
+    // Recorded by the worker once the aborted diff unwinds
+    private ComparisonDiff awaitComparison(UUID userId) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() - giveUpAt < 0) {
+            List<ComparisonDiff> comparisons = comparisonDiffRepository.findByCreatedByIdAndDeletedFalseOrderByCreatedAtDesc(userId);
+            if (!comparisons.isEmpty()) {
+                return comparisons.get(0);
+            }
+            Thread.sleep(20);
+        }
+        return fail("No comparison was recorded");
+    }
+}
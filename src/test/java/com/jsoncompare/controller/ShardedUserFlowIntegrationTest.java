@@ -0,0 +1,132 @@
+package com.jsoncompare.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.dto.auth.LoginRequest;
+import com.jsoncompare.dto.auth.RegisterRequest;
+import com.jsoncompare.dto.compare.CompareRequest;
+import com.jsoncompare.shard.ShardRouter;
+import com.jsoncompare.shard.ShardRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Register, log in and compare for a user homed on shard1, against two embedded databases whose
+ * schema comes only from application startup
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharded-flow-shard0;DB_CLOSE_DELAY=-1",
+        "datasource.shards.enabled=true",
+        "datasource.shards.urls=jdbc:h2:mem:sharded-flow-shard1;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ShardedUserFlowIntegrationTest {
+
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    void testRegisterLoginAndCompare_UserHomedOnShard1() throws Exception {
+        // Register until a user lands on shard1 (about every second one)
+        String email = null;
+        UUID userId = null;
+        for (int i = 0; i < 64 && (userId == null || !shardRouter.shardFor(userId).equals("shard1")); i++) {
+            email = "sharded" + i + "@example.com";
+            JsonNode registered = postJson("/api/auth/register", new RegisterRequest(email, PASSWORD, PASSWORD), 201);
+            userId = UUID.fromString(registered.get("userId").asText());
+        }
+        assertEquals("shard1", shardRouter.shardFor(userId));
+
+        String token = postJson("/api/auth/login", new LoginRequest(email, PASSWORD), 200).get("token").asText();
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(userId.toString()))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"Jane\"}");
+        MvcResult started = mockMvc.perform(post("/api/compare")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String comparisonId = objectMapper.readTree(mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        mockMvc.perform(get("/api/compare/{id}", comparisonId).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.diffCount").value(1));
+        assertEquals(1, count("shard1", "comparison_diffs", comparisonId));
+        assertEquals(0, count("shard0", "comparison_diffs", comparisonId));
+    }
+
+    @Test
+    void testCurrentUser_ReadFromTheDirectory() throws Exception {
+        UUID userId = null;
+        String token = null;
+        for (int i = 0; i < 64 && (userId == null || !shardRouter.shardFor(userId).equals("shard1")); i++) {
+            String email = "directory" + i + "@example.com";
+            JsonNode registered = postJson("/api/auth/register", new RegisterRequest(email, PASSWORD, PASSWORD), 201);
+            userId = UUID.fromString(registered.get("userId").asText());
+            token = registered.get("token").asText();
+        }
+        assertEquals("shard1", shardRouter.shardFor(userId));
+
+        // Changed in the directory only; the copy on shard1 keeps the registration state
+        jdbc("shard0").update("UPDATE \"users\" SET \"status\" = 'SUSPENDED' WHERE \"id\" = ?", userId);
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUSPENDED"));
+    }
+
+    private JsonNode postJson(String url, Object body, int expectedStatus) throws Exception {
+        MvcResult result = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private int count(String shard, String table, String id) {
+        Integer rows = jdbc(shard).queryForObject(
+                "SELECT COUNT(*) FROM \"" + table + "\" WHERE \"id\" = ?", Integer.class, UUID.fromString(id));
+        return rows == null ? 0 : rows;
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShards().get(shard));
+    }
+}
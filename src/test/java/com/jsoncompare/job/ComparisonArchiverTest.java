@@ -0,0 +1,137 @@
+package com.jsoncompare.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.model.User;
+import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.model.enums.UserStatus;
+import com.jsoncompare.model.id.UuidV7;
+import com.jsoncompare.repository.ComparisonArchiveRepository;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.repository.UserRepository;
+import com.jsoncompare.service.ComparisonArchiveService;
+import com.jsoncompare.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archiver runs against the real selection query, on an embedded database
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ComparisonArchiverTest {
+
+    @Autowired
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    @Autowired
+    private ComparisonArchiveRepository comparisonArchiveRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ComparisonArchiveService archiveService;
+    private ComparisonArchiver archiver;
+    private UUID comparisonId;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new ComparisonArchiveService(
+                comparisonDiffRepository, comparisonArchiveRepository, new ObjectMapper());
+        archiver = new ComparisonArchiver(comparisonDiffRepository, archiveService, ShardRouter.disabled());
+        ReflectionTestUtils.setField(archiver, "archiveAfter", Duration.ofDays(90));
+        ReflectionTestUtils.setField(archiver, "batchSize", 10);
+        ReflectionTestUtils.setField(archiver, "maxBatchesPerRun", 10);
+
+        User user = new User();
+        user.setEmail("archiver@example.com");
+        user.setPasswordHash("hashedpassword");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setRoles(List.of("USER"));
+        user.setDeleted(false);
+        user = userRepository.save(user);
+
+        ComparisonDiff comparison = new ComparisonDiff();
+        comparison.setId(UuidV7.generate());
+        comparison.setCreatedBy(user);
+        comparison.setInputStringA("{\"name\":\"John\"}");
+        comparison.setInputStringB("{\"name\":\"Jane\"}");
+        comparison.setResult("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"Jane\"}]");
+        comparison.setIdentical(false);
+        comparison.setComparisonStatus(ComparisonStatus.COMPLETED);
+        comparison.setDeleted(false);
+        comparisonId = comparisonDiffRepository.save(comparison).getId();
+        entityManager.flush();
+
+        // Last touched well before the archive cutoff
+        LocalDateTime old = LocalDateTime.now().minusDays(120);
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE \"comparison_diffs\" SET \"created_at\" = ?1, \"last_compared_at\" = ?1 WHERE \"id\" = ?2")
+                .setParameter(1, old)
+                .setParameter(2, comparisonId)
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    void testArchive_ArchivesInactiveComparison() {
+        archiver.archive();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(comparisonDiffRepository.findById(comparisonId).orElseThrow().isArchived());
+        assertTrue(comparisonArchiveRepository.existsById(comparisonId));
+    }
+
+    @Test
+    void testArchive_RestoredComparisonSurvivesNextRun() {
+        // Arrange: archived, then read again (restored)
+        archiver.archive();
+        entityManager.flush();
+        entityManager.clear();
+        archiveService.restore(comparisonId);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        archiver.archive();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        ComparisonDiff comparison = comparisonDiffRepository.findById(comparisonId).orElseThrow();
+        assertFalse(comparison.isArchived());
+        assertNotNull(comparison.getRestoredAt());
+        assertFalse(comparisonArchiveRepository.existsById(comparisonId));
+        assertEquals(1L, archiver.stats().get("rowsArchivedTotal"));
+    }
+
+    @Test
+    void testStoredInputSize_ArchivedComparisonSizedByItsArchive() {
+        UUID userId = comparisonDiffRepository.findById(comparisonId).orElseThrow().getCreatedBy().getId();
+        assertEquals(30L, comparisonDiffRepository.findStoredInputSize(comparisonId, userId).orElseThrow());
+
+        archiver.archive();
+        entityManager.flush();
+        entityManager.clear();
+
+        long archivedBytes = comparisonArchiveRepository.findById(comparisonId).orElseThrow().getOriginalBytes();
+        assertEquals(archivedBytes, comparisonDiffRepository.findStoredInputSize(comparisonId, userId).orElseThrow());
+        assertTrue(comparisonDiffRepository.findStoredInputSize(comparisonId, UUID.randomUUID()).isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ComparisonPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.disabled();
+
+    @InjectMocks
+    private ComparisonPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(maintainer, "monthsAhead", 1);
+        ReflectionTestUtils.setField(maintainer, "detachAfterMonths", 0);
+    }
+
+    @Test
+    void testMaintain_CreatesMissingPartitions() {
+        // Arrange
+        YearMonth current = YearMonth.now();
+        String existing = ComparisonPartitionMaintainer.partitionName(current);
+        String missing = ComparisonPartitionMaintainer.partitionName(current.plusMonths(1));
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq(existing))).thenReturn(existing);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq(missing))).thenReturn(null);
+
+        // Act
+        maintainer.maintain();
+
+        // Assert
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS " + missing + " PARTITION OF comparison_diffs"
+                + " FOR VALUES FROM ('" + current.plusMonths(1).atDay(1) + "') TO ('"
+                + current.plusMonths(2).atDay(1) + "')");
+        verify(jdbcTemplate, times(1)).execute(anyString());
+        assertEquals(1L, maintainer.stats().get("partitionsChangedLastRun"));
+    }
+
+    @Test
+    void testMaintain_DetachesPartitionsPastRetention() {
+        // Arrange
+        ReflectionTestUtils.setField(maintainer, "detachAfterMonths", 12);
+        YearMonth current = YearMonth.now();
+        String old = ComparisonPartitionMaintainer.partitionName(current.minusMonths(13));
+        String kept = ComparisonPartitionMaintainer.partitionName(current.minusMonths(12));
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), anyString())).thenReturn("exists");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of(old, kept, "comparison_diffs_default"));
+
+        // Act
+        maintainer.maintain();
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE comparison_diffs DETACH PARTITION " + old);
+        verify(jdbcTemplate, times(1)).execute(anyString());
+    }
+
+    @Test
+    void testParseMonth() {
+        assertEquals(YearMonth.of(2026, 3), ComparisonPartitionMaintainer.parseMonth("comparison_diffs_p2026_03"));
+        assertNull(ComparisonPartitionMaintainer.parseMonth("comparison_diffs_default"));
+        assertNull(ComparisonPartitionMaintainer.parseMonth("comparison_diffs_pxxxx_yy"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredSessionSweeperTest {
+
+    @Mock
+    private UserSessionRepository userSessionRepository;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.disabled();
+
+    @InjectMocks
+    private ExpiredSessionSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sweeper, "retention", Duration.ofDays(7));
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(sweeper, "pauseBetweenBatches", Duration.ZERO);
+    }
+
+    @Test
+    void testSweep_DeletesInBatchesUntilExhausted() {
+        // Arrange
+        List<UUID> fullBatch = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> lastBatch = List.of(UUID.randomUUID());
+        when(userSessionRepository.findIdsExpiredBefore(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(fullBatch)
+                .thenReturn(lastBatch);
+
+        // Act
+        sweeper.sweep();
+
+        // Assert
+        verify(userSessionRepository).deleteAllByIdInBatch(fullBatch);
+        verify(userSessionRepository).deleteAllByIdInBatch(lastBatch);
+        verify(userSessionRepository, times(2)).findIdsExpiredBefore(any(LocalDateTime.class), any(Pageable.class));
+        assertEquals(3L, sweeper.stats().get("rowsRemovedTotal"));
+    }
+
+    @Test
+    void testSweep_StopsAtMaxBatches() {
+        // Arrange
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 1);
+        when(userSessionRepository.findIdsExpiredBefore(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+        // Act
+        sweeper.sweep();
+
+        // Assert
+        verify(userSessionRepository, times(1)).deleteAllByIdInBatch(any());
+        assertEquals(2L, sweeper.stats().get("rowsRemovedLastRun"));
+    }
+
+    @Test
+    void testSweep_NothingExpired() {
+        // Arrange
+        when(userSessionRepository.findIdsExpiredBefore(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        sweeper.sweep();
+
+        // Assert
+        verify(userSessionRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1L, sweeper.stats().get("runs"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.jsoncompare.job;
+
+import com.jsoncompare.repository.ComparisonArchiveRepository;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SoftDeletePurgerTest {
+
+    @Mock
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    @Mock
+    private ComparisonArchiveRepository comparisonArchiveRepository;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.disabled();
+
+    @InjectMocks
+    private SoftDeletePurger purger;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(purger, "gracePeriod", Duration.ofDays(30));
+        ReflectionTestUtils.setField(purger, "batchSize", 2);
+        ReflectionTestUtils.setField(purger, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(purger, "pauseBetweenBatches", Duration.ZERO);
+    }
+
+    @Test
+    void testPurge_DeletesRowsAndArchivesInBatches() {
+        // Arrange
+        List<UUID> fullBatch = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> lastBatch = List.of(UUID.randomUUID());
+        when(comparisonDiffRepository.findIdsSoftDeletedBefore(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(fullBatch)
+                .thenReturn(lastBatch);
+
+        // Act
+        purger.purge();
+
+        // Assert
+        verify(comparisonArchiveRepository).deleteAllByIdInBatch(fullBatch);
+        verify(comparisonDiffRepository).deleteAllByIdInBatch(fullBatch);
+        verify(comparisonArchiveRepository).deleteAllByIdInBatch(lastBatch);
+        verify(comparisonDiffRepository).deleteAllByIdInBatch(lastBatch);
+        assertEquals(3L, purger.stats().get("rowsPurgedTotal"));
+    }
+
+    @Test
+    void testPurge_GracePeriodSetsCutoff() {
+        // Arrange
+        when(comparisonDiffRepository.findIdsSoftDeletedBefore(any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    LocalDateTime cutoff = invocation.getArgument(0);
+                    assertTrue(cutoff.isBefore(LocalDateTime.now().minusDays(29)));
+                    return List.of();
+                });
+
+        // Act
+        purger.purge();
+
+        // Assert
+        verify(comparisonDiffRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1L, purger.stats().get("runs"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.jsoncompare.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and failures of one endpoint during the measured part of a load test.
+ * Keeps every sample (a few hundred thousand at most), so percentiles are exact.
+ */
+class EndpointStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void record(long latencyNanos, boolean success) {
+        if (!success) {
+            errors++;
+        }
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = latencyNanos;
+    }
+
+    synchronized Map<String, Object> summarize(double measuredSeconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", (long) count);
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", round(count / measuredSeconds));
+        summary.put("p50Ms", millis(percentile(sorted, 0.50)));
+        summary.put("p99Ms", millis(percentile(sorted, 0.99)));
+        summary.put("p999Ms", millis(percentile(sorted, 0.999)));
+        summary.put("maxMs", millis(count == 0 ? 0 : sorted[count - 1]));
+        return summary;
+    }
+
+    // Nearest-rank percentile
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
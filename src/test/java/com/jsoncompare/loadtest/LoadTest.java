@@ -0,0 +1,282 @@
+package com.jsoncompare.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test: boots the application on the embedded H2 database (test profile),
+ * registers and logs in users, then drives a weighted mix of compare, get, list, recompare
+ * and delete over HTTP. Reports p50/p99/p99.9 latency and throughput per endpoint to stdout
+ * and build/reports/loadtest/results-&lt;label&gt;.json.
+ * Excluded from ./gradlew test; run with ./gradlew loadTest (see TESTING.md for settings).
+ */
+@Tag("load")
+// Measures raw throughput, so the per-user rate limit is off; compare work uses the worker pool as in production
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"compare.rate-limit.enabled=false", "compare.execution.threads=8"})
+@ActiveProfiles("test")
+class LoadTest {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void runLoad() throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        List<LoadUser> users = createUsers(settings.users());
+        List<String[]> payloads = payloads(settings);
+
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : List.of("login", "compare", "get", "list", "recompare", "delete")) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+        List<Future<?>> running = new ArrayList<>();
+        for (int worker = 0; worker < settings.concurrency(); worker++) {
+            Random random = new Random(settings.seed() + worker);
+            // Users are never shared between workers, so a worker's own ids are never deleted under it
+            LoadUser user = users.get(worker);
+            running.add(workers.submit(() -> {
+                while (System.nanoTime() < end) {
+                    runOne(settings, user, payloads, random, stats, measureFrom);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(30, TimeUnit.SECONDS));
+
+        Map<String, Object> report = report(settings, stats);
+        assertTrue((long) stats.get("compare").summarize(1).get("requests") > 0, "No compare requests were measured");
+        assertEquals(0L, report.values().stream()
+                .filter(Map.class::isInstance)
+                .map(summary -> (Long) ((Map<?, ?>) summary).get("errors"))
+                .filter(errors -> errors != null)
+                .mapToLong(Long::longValue)
+                .sum(), "Requests failed during the load test: " + report);
+    }
+
+    // ==================== Workload ====================
+
+    private void runOne(Settings settings, LoadUser user, List<String[]> payloads, Random random,
+                        Map<String, EndpointStats> stats, long measureFrom) throws Exception {
+        String operation = settings.pick(random);
+        UUID target = user.comparisons().peekLast();
+        if (target == null && !operation.equals("list") && !operation.equals("login")) {
+            operation = "compare";
+        }
+
+        long started = System.nanoTime();
+        HttpResponse<String> response = switch (operation) {
+            case "login" -> send(post("/api/auth/login", loginBody(user.email()), null));
+            case "compare" -> {
+                String[] pair = payloads.get(random.nextInt(payloads.size()));
+                HttpResponse<String> created = send(post("/api/compare", compareBody(pair), user.token()));
+                if (created.statusCode() == 201) {
+                    user.comparisons().addLast(UUID.fromString(objectMapper.readTree(created.body()).get("id").asText()));
+                }
+                yield created;
+            }
+            case "get" -> send(request("/api/compare/" + target, user.token()).GET().build());
+            case "list" -> send(request("/api/compare?cursor=&size=20", user.token()).GET().build());
+            case "recompare" -> send(post("/api/compare/" + target + "/recompare", "", user.token()));
+            case "delete" -> {
+                UUID removed = user.comparisons().pollLast();
+                if (removed == null) {
+                    yield null;
+                }
+                yield send(request("/api/compare/" + removed, user.token()).DELETE().build());
+            }
+            default -> throw new IllegalStateException("Unknown operation: " + operation);
+        };
+        long latency = System.nanoTime() - started;
+
+        if (response != null && started >= measureFrom) {
+            stats.get(operation).record(latency, response.statusCode() < 400);
+        }
+    }
+
+    private List<LoadUser> createUsers(int count) throws Exception {
+        List<LoadUser> users = new ArrayList<>();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < count; i++) {
+            String email = "load-" + run + "-" + i + "@example.com";
+            ObjectNode register = NODES.objectNode()
+                    .put("email", email)
+                    .put("password", PASSWORD)
+                    .put("confirmPassword", PASSWORD);
+            HttpResponse<String> response = send(post("/api/auth/register", register.toString(), null));
+            assertEquals(201, response.statusCode(), response.body());
+            String token = objectMapper.readTree(response.body()).get("token").asText();
+            users.add(new LoadUser(email, token, new ConcurrentLinkedDeque<>()));
+        }
+        return users;
+    }
+
+    /**
+     * Deterministic record-array pairs; about a tenth of the records differ between A and B
+     */
+    private List<String[]> payloads(Settings settings) {
+        Random random = new Random(settings.seed());
+        List<String[]> payloads = new ArrayList<>();
+        for (int p = 0; p < 16; p++) {
+            ArrayNode a = NODES.arrayNode();
+            ArrayNode b = NODES.arrayNode();
+            for (int i = 0; i < settings.payloadRecords(); i++) {
+                ObjectNode record = NODES.objectNode()
+                        .put("id", i)
+                        .put("name", "user-" + random.nextInt(1_000_000))
+                        .put("active", random.nextBoolean())
+                        .put("score", random.nextInt(10_000) / 100.0);
+                a.add(record);
+                JsonNode copy = record.deepCopy();
+                if (random.nextInt(10) == 0) {
+                    ((ObjectNode) copy).put("score", random.nextInt(10_000) / 100.0);
+                }
+                b.add(copy);
+            }
+            payloads.add(new String[]{a.toString(), b.toString()});
+        }
+        return payloads;
+    }
+
+    // ==================== HTTP ====================
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    private static String loginBody(String email) {
+        return NODES.objectNode().put("email", email).put("password", PASSWORD).toString();
+    }
+
+    private static String compareBody(String[] pair) {
+        return NODES.objectNode().put("jsonA", pair[0]).put("jsonB", pair[1]).toString();
+    }
+
+    // ==================== Report ====================
+
+    private Map<String, Object> report(Settings settings, Map<String, EndpointStats> stats) throws Exception {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", settings.label());
+        report.put("settings", settings);
+        stats.forEach((endpoint, endpointStats) -> report.put(endpoint, endpointStats.summarize(seconds)));
+
+        System.out.printf("%nLoad test '%s': %d workers, %d users, %d records per payload, %ss measured%n",
+                settings.label(), settings.concurrency(), settings.users(), settings.payloadRecords(), seconds);
+        System.out.printf("%-10s %9s %7s %10s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        stats.forEach((endpoint, endpointStats) -> {
+            Map<String, Object> summary = endpointStats.summarize(seconds);
+            System.out.printf("%-10s %9s %7s %10s %9s %9s %9s%n", endpoint, summary.get("requests"), summary.get("errors"),
+                    summary.get("throughputPerSecond"), summary.get("p50Ms"), summary.get("p99Ms"), summary.get("p999Ms"));
+        });
+
+        Path output = Path.of("build", "reports", "loadtest", "results-" + settings.label() + ".json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("Results written to " + output.toAbsolutePath());
+        return report;
+    }
+
+    private record LoadUser(String email, String token, Deque<UUID> comparisons) {
+    }
+
+    /**
+     * Read from -Dloadtest.* system properties (forwarded by the loadTest Gradle task).
+     * At least one user is created per worker.
+     */
+    record Settings(int concurrency, Duration warmup, Duration duration, int users, int payloadRecords,
+                    Map<String, Integer> mix, long seed, String label) {
+
+        static Settings fromSystemProperties() {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String entry : System.getProperty("loadtest.mix",
+                    "compare=30,get=30,list=20,recompare=10,delete=5,login=5").split(",")) {
+                String[] weight = entry.trim().split("=");
+                mix.put(weight[0], Integer.parseInt(weight[1]));
+            }
+            return new Settings(
+                    Integer.getInteger("loadtest.concurrency", 16),
+                    Duration.parse(System.getProperty("loadtest.warmup", "PT5S")),
+                    Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                    Math.max(Integer.getInteger("loadtest.users", 20), Integer.getInteger("loadtest.concurrency", 16)),
+                    Integer.getInteger("loadtest.payload-records", 50),
+                    mix,
+                    Long.getLong("loadtest.seed", 42L),
+                    System.getProperty("loadtest.label", "local"));
+        }
+
+        String pick(Random random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = random.nextInt(total);
+            for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty operation mix");
+        }
+    }
+}
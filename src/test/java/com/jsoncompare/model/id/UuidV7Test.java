@@ -0,0 +1,53 @@
+package com.jsoncompare.model.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void testVersionAndVariant() {
+        UUID uuid = UuidV7.generate();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void testTimestampRoundTrip() {
+        long now = System.currentTimeMillis();
+
+        assertEquals(now, UuidV7.timestampMillis(UuidV7.generate(now)));
+    }
+
+    @Test
+    void testOrderedByTime() {
+        long now = System.currentTimeMillis();
+        UUID earlier = UuidV7.generate(now);
+        UUID later = UuidV7.generate(now + 1);
+
+        assertTrue(earlier.compareTo(later) < 0);
+        assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+    }
+
+    @Test
+    void testUniqueWithinSameMillisecond() {
+        long now = System.currentTimeMillis();
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7.generate(now));
+        }
+
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    void testTimestampRejectsRandomUuid() {
+        assertThrows(IllegalArgumentException.class, () -> UuidV7.timestampMillis(UUID.randomUUID()));
+    }
+}
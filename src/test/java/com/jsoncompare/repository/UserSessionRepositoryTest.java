@@ -0,0 +1,107 @@
+package com.jsoncompare.repository;
+
+import com.jsoncompare.model.User;
+import com.jsoncompare.model.UserSession;
+import com.jsoncompare.model.enums.UserSessionStatus;
+import com.jsoncompare.model.enums.UserStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserSessionRepositoryTest {
+
+    private static final String TOKEN = "session-token-123";
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserSession session;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("session@example.com");
+        user.setPasswordHash("hashedpassword");
+        user.setStatus(UserStatus.ACTIVE);
+        user.setRoles(List.of("USER"));
+        user.setDeleted(false);
+        user = userRepository.save(user);
+
+        session = new UserSession();
+        session.setUser(user);
+        session.setAuthToken(TOKEN);
+        session.setStatus(UserSessionStatus.ACTIVE);
+        session.setExpiresAt(LocalDateTime.now().plusHours(24));
+        session.setDeleted(false);
+        session = userSessionRepository.save(session);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindByAuthToken_FindsSessionByRawToken() {
+        Optional<UserSession> found = userSessionRepository.findByAuthToken(TOKEN);
+
+        assertTrue(found.isPresent());
+        assertEquals(session.getId(), found.get().getId());
+        assertTrue(userSessionRepository.findByAuthTokenAndStatus(TOKEN, UserSessionStatus.ACTIVE).isPresent());
+    }
+
+    @Test
+    void testSave_StoresDigestNotToken() {
+        byte[] stored = jdbcTemplate.queryForObject(
+                "SELECT \"auth_token_hash\" FROM \"user_sessions\" WHERE \"id\" = ?", byte[].class, session.getId());
+
+        assertNotNull(stored);
+        assertEquals(UserSession.TOKEN_HASH_LENGTH, stored.length);
+        assertArrayEquals(UserSession.hashToken(TOKEN), stored);
+        assertNotEquals(TOKEN, new String(stored, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFindByAuthToken_OtherTokenFindsNothing() {
+        assertTrue(userSessionRepository.findByAuthToken("session-token-124").isEmpty());
+        assertTrue(userSessionRepository.findByAuthTokenAndDeletedFalse("session-token-124").isEmpty());
+        assertTrue(userSessionRepository.findByAuthTokenAndStatus("session-token-124", UserSessionStatus.ACTIVE).isEmpty());
+    }
+
+    @Test
+    void testFindByAuthTokenAndDeletedFalse_RefreshLookup() {
+        // The lookup token refresh uses; it loads the user with the session
+        Optional<UserSession> found = userSessionRepository.findByAuthTokenAndDeletedFalse(TOKEN);
+
+        assertTrue(found.isPresent());
+        assertEquals("session@example.com", found.get().getUser().getEmail());
+
+        // Refreshing invalidates the old session: it is no longer an active one
+        UserSession refreshed = found.get();
+        refreshed.invalidate();
+        userSessionRepository.save(refreshed);
+        entityManager.flush();
+
+        assertTrue(userSessionRepository.findByAuthTokenAndStatus(TOKEN, UserSessionStatus.ACTIVE).isEmpty());
+        assertTrue(userSessionRepository.findByAuthTokenAndStatus(TOKEN, UserSessionStatus.EXPIRED).isPresent());
+    }
+}
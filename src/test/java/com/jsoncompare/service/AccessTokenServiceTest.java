@@ -0,0 +1,71 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenServiceTest {
+
+    private static final String SECRET = "test-secret-key-for-unit-tests-minimum-256-bits-long";
+
+    private AccessTokenService accessTokenService;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        accessTokenService = new AccessTokenService(SECRET);
+
+        testUser = new User();
+        testUser.setId(UUID.randomUUID());
+        testUser.setEmail("test@example.com");
+        testUser.setRoles(List.of("USER", "ADMIN"));
+    }
+
+    @Test
+    void testIssueAndVerify() {
+        UUID tokenId = UUID.randomUUID();
+        String token = accessTokenService.issue(testUser, tokenId, LocalDateTime.now().plusHours(1));
+
+        AuthenticatedPrincipal principal = accessTokenService.verify(token);
+
+        assertTrue(accessTokenService.isSignedToken(token));
+        assertEquals(testUser.getId(), principal.getUserId());
+        assertEquals("test@example.com", principal.getEmail());
+        assertEquals(List.of("USER", "ADMIN"), principal.getRoles());
+        assertEquals(tokenId, principal.getTokenId());
+    }
+
+    @Test
+    void testVerify_TamperedToken() {
+        String token = accessTokenService.issue(testUser, UUID.randomUUID(), LocalDateTime.now().plusHours(1));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(IllegalArgumentException.class, () -> accessTokenService.verify(tampered));
+    }
+
+    @Test
+    void testVerify_OtherSecret() {
+        String token = new AccessTokenService(SECRET + "-other")
+                .issue(testUser, UUID.randomUUID(), LocalDateTime.now().plusHours(1));
+
+        assertThrows(IllegalArgumentException.class, () -> accessTokenService.verify(token));
+    }
+
+    @Test
+    void testVerify_ExpiredToken() {
+        String token = accessTokenService.issue(testUser, UUID.randomUUID(), LocalDateTime.now().minusMinutes(5));
+
+        assertThrows(IllegalArgumentException.class, () -> accessTokenService.verify(token));
+    }
+
+    @Test
+    void testIsSignedToken_LegacyToken() {
+        assertFalse(accessTokenService.isSignedToken(UUID.randomUUID() + "-" + UUID.randomUUID()));
+    }
+}
@@ -10,13 +10,17 @@ import com.jsoncompare.model.enums.UserSessionStatus;
 import com.jsoncompare.model.enums.UserStatus;
 import com.jsoncompare.repository.UserRepository;
 import com.jsoncompare.repository.UserSessionRepository;
+import com.jsoncompare.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -35,9 +39,26 @@ class AuthServiceTest {
     @Mock
     private UserSessionRepository userSessionRepository;
 
+    @Spy
+    private SessionTokenCache sessionTokenCache = new SessionTokenCache(1000, Duration.ofMinutes(1));
+
+    @Spy
+    private AccessTokenService accessTokenService = new AccessTokenService(TEST_SECRET);
+
+    @Mock
+    private SessionRevocationList sessionRevocationList;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.disabled();
+
+    @Spy
+    private CompareMetrics compareMetrics = new CompareMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private AuthService authService;
 
+    private static final String TEST_SECRET = "test-secret-key-for-unit-tests-minimum-256-bits-long";
+
     private User testUser;
     private UserSession testSession;
 
@@ -220,6 +241,44 @@ class AuthServiceTest {
         assertEquals(testUser.getEmail(), response.getEmail());
     }
 
+    @Test
+    void testGetCurrentUser_CachedAfterFirstLookup() {
+        // Arrange
+        String token = "test-token";
+        when(userSessionRepository.findByAuthTokenAndStatus(token, UserSessionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSession));
+
+        // Act
+        authService.getCurrentUser(token);
+        UserResponse response = authService.getCurrentUser(token);
+
+        // Assert
+        assertEquals(testUser.getId(), response.getId());
+        verify(userSessionRepository, times(1)).findByAuthTokenAndStatus(token, UserSessionStatus.ACTIVE);
+    }
+
+    @Test
+    void testGetCurrentUser_CacheInvalidatedByLogout() {
+        // Arrange
+        String token = "test-token";
+        when(userSessionRepository.findByAuthTokenAndStatus(token, UserSessionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSession))
+                .thenReturn(Optional.empty());
+        when(userSessionRepository.findByAuthTokenAndDeletedFalse(token)).thenReturn(Optional.of(testSession));
+        when(userSessionRepository.save(any(UserSession.class))).thenReturn(testSession);
+
+        // Act
+        authService.getCurrentUser(token);
+        authService.logout(token);
+
+        // Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> authService.getCurrentUser(token)
+        );
+        assertEquals("Invalid or expired session", exception.getMessage());
+    }
+
     @Test
     void testGetCurrentUser_ExpiredSession() {
         // Arrange
@@ -257,5 +316,51 @@ class AuthServiceTest {
         assertEquals(UserSessionStatus.EXPIRED, testSession.getStatus());
         verify(userSessionRepository, times(2)).save(any(UserSession.class));
     }
-}
 
+    @Test
+    void testAuthenticate_SignedTokenVerifiedWithoutDatabase() {
+        // Arrange
+        UUID tokenId = UUID.randomUUID();
+        String token = accessTokenService.issue(testUser, tokenId, LocalDateTime.now().plusHours(1));
+
+        // Act
+        AuthenticatedPrincipal principal = authService.authenticate(token);
+
+        // Assert
+        assertEquals(testUser.getId(), principal.getUserId());
+        assertEquals(tokenId, principal.getTokenId());
+        assertEquals(List.of("USER"), principal.getRoles());
+        verifyNoInteractions(userSessionRepository);
+    }
+
+    @Test
+    void testAuthenticate_RevokedSignedToken() {
+        // Arrange
+        UUID tokenId = UUID.randomUUID();
+        String token = accessTokenService.issue(testUser, tokenId, LocalDateTime.now().plusHours(1));
+        when(sessionRevocationList.isRevoked(tokenId)).thenReturn(true);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> authService.authenticate(token)
+        );
+        assertEquals("Invalid or expired session", exception.getMessage());
+    }
+
+    @Test
+    void testLogout_RevokesSignedToken() {
+        // Arrange
+        String token = "test-token";
+        UUID tokenId = UUID.randomUUID();
+        testSession.setTokenId(tokenId);
+        when(userSessionRepository.findByAuthTokenAndDeletedFalse(token)).thenReturn(Optional.of(testSession));
+        when(userSessionRepository.save(any(UserSession.class))).thenReturn(testSession);
+
+        // Act
+        authService.logout(token);
+
+        // Assert
+        verify(sessionRevocationList).revoke(tokenId, testSession.getExpiresAt());
+    }
+}
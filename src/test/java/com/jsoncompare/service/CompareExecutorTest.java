@@ -0,0 +1,56 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.config.ReadYourWritesTracker;
+import com.jsoncompare.exception.CompareCapacityExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompareExecutorTest {
+
+    private final CompareExecutor executor = new CompareExecutor(new ReadYourWritesTracker(Duration.ZERO),
+            Duration.ofSeconds(10), Duration.ofSeconds(60), 1, 1, Duration.ofSeconds(2));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testSubmit_FullQueueRefusesInsteadOfRunningOnTheCaller() throws Exception {
+        // Arrange: the only worker is busy and the queue holds one more
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            await(release);
+            return "first";
+        });
+        CompletableFuture<String> queued = executor.submit(() -> "second");
+        Thread caller = Thread.currentThread();
+
+        // Act & Assert
+        CompareCapacityExceededException exception = assertThrows(CompareCapacityExceededException.class,
+                () -> executor.submit(() -> {
+                    assertNotSame(caller, Thread.currentThread());
+                    return "third";
+                }));
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
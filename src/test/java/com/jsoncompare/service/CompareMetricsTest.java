@@ -0,0 +1,63 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.service.CompareMetrics.Phase;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompareMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private CompareMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new CompareMetrics(registry);
+    }
+
+    @Test
+    void testTime_TagsPhaseSizeAndOutcome() {
+        String result = metrics.time(Phase.DIFF, "lt_1kb", () -> "done");
+
+        assertEquals("done", result);
+        Timer timer = registry.find(CompareMetrics.PHASE_TIMER)
+                .tags("phase", "diff", "size", "lt_1kb", "outcome", "success")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void testTime_InvalidInputTaggedSeparately() {
+        assertThrows(IllegalArgumentException.class, () -> metrics.time(Phase.PARSE_A, "lt_1kb", () -> {
+            throw new IllegalArgumentException("JSON A is not valid JSON");
+        }));
+        assertThrows(IllegalStateException.class, () -> metrics.time(Phase.PERSIST, "lt_1kb", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertNotNull(registry.find(CompareMetrics.PHASE_TIMER).tags("phase", "parse_a", "outcome", "invalid").timer());
+        assertNotNull(registry.find(CompareMetrics.PHASE_TIMER).tags("phase", "persist", "outcome", "error").timer());
+    }
+
+    @Test
+    void testRecordComparison() {
+        metrics.recordComparison("lt_10kb", 2_048, 7);
+
+        assertEquals(2_048, registry.find(CompareMetrics.INPUT_SIZE).summary().totalAmount());
+        assertEquals(7, registry.find(CompareMetrics.DIFF_OPERATIONS).summary().totalAmount());
+    }
+
+    @Test
+    void testSizeBucket() {
+        assertEquals("lt_1kb", CompareMetrics.sizeBucket(0));
+        assertEquals("lt_10kb", CompareMetrics.sizeBucket(1_024));
+        assertEquals("lt_100kb", CompareMetrics.sizeBucket(50_000));
+        assertEquals("lt_1mb", CompareMetrics.sizeBucket(1_048_575));
+        assertEquals("gte_1mb", CompareMetrics.sizeBucket(10_485_760));
+    }
+}
@@ -0,0 +1,98 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.exception.RateLimitExceededException;
+import com.jsoncompare.service.CompareRateLimiter.RoleLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompareRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CompareRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = limiter(true);
+    }
+
+    @Test
+    void testAcquire_CostWeightedByPayload() {
+        UUID userId = UUID.randomUUID();
+
+        // 10 KB capacity, 1 KB request cost: one 8 KB payload plus one empty request fit
+        rateLimiter.acquire(userId, List.of("USER"), 8 * 1024);
+        rateLimiter.acquire(userId, List.of("USER"), 0);
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire(userId, List.of("USER"), 0));
+        // 1 KB missing at 1 KB per second
+        assertEquals(1000, e.getRetryAfter().toMillis());
+        assertEquals(1.0, meterRegistry.counter("compare.rate_limit.rejected").count());
+    }
+
+    @Test
+    void testAcquire_RefillsOverTime() {
+        UUID userId = UUID.randomUUID();
+        rateLimiter.acquire(userId, List.of("USER"), 9 * 1024);
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(userId, List.of("USER"), 0));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertDoesNotThrow(() -> rateLimiter.acquire(userId, List.of("USER"), 0));
+    }
+
+    @Test
+    void testAcquire_UsersHaveSeparateBuckets() {
+        UUID heavy = UUID.randomUUID();
+        rateLimiter.acquire(heavy, List.of("USER"), 9 * 1024);
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(heavy, List.of("USER"), 0));
+
+        assertDoesNotThrow(() -> rateLimiter.acquire(UUID.randomUUID(), List.of("USER"), 9 * 1024));
+    }
+
+    @Test
+    void testAcquire_OversizedRequestAllowedFromFullBucket() {
+        UUID userId = UUID.randomUUID();
+
+        assertDoesNotThrow(() -> rateLimiter.acquire(userId, List.of("USER"), DataSize.ofMegabytes(10).toBytes()));
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(userId, List.of("USER"), 0));
+    }
+
+    @Test
+    void testLimitFor_MostGenerousRoleAndUserFallback() {
+        assertEquals(DataSize.ofKilobytes(100), rateLimiter.limitFor(List.of("USER", "admin")).capacity());
+        assertEquals(DataSize.ofKilobytes(10), rateLimiter.limitFor(List.of("AUDITOR")).capacity());
+        assertEquals(DataSize.ofKilobytes(10), rateLimiter.limitFor(null).capacity());
+    }
+
+    @Test
+    void testAcquire_DisabledNeverRejects() {
+        CompareRateLimiter disabled = limiter(false);
+        UUID userId = UUID.randomUUID();
+
+        for (int i = 0; i < 100; i++) {
+            disabled.acquire(userId, List.of("USER"), 1024 * 1024);
+        }
+    }
+
+    private CompareRateLimiter limiter(boolean enabled) {
+        Map<String, RoleLimit> limits = Map.of(
+                // Bound property keys arrive lower-cased
+                "user", new RoleLimit(DataSize.ofKilobytes(10), DataSize.ofKilobytes(1)),
+                "admin", new RoleLimit(DataSize.ofKilobytes(100), DataSize.ofKilobytes(10)));
+        return new CompareRateLimiter(enabled, DataSize.ofKilobytes(1), limits, Duration.ofMinutes(10),
+                clock::get, meterRegistry);
+    }
+}
@@ -1,22 +1,37 @@
 package com.jsoncompare.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.config.ReadYourWritesTracker;
 import com.jsoncompare.dto.compare.CompareRequest;
 import com.jsoncompare.dto.compare.CompareResponse;
+import com.jsoncompare.dto.compare.ComparisonCursorPageResponse;
+import com.jsoncompare.exception.ComparisonAbortedException;
 import com.jsoncompare.model.ComparisonDiff;
 import com.jsoncompare.model.User;
 import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.model.enums.DiffStrategy;
+import com.jsoncompare.model.enums.ResultFormat;
 import com.jsoncompare.model.enums.UserStatus;
+import com.jsoncompare.model.id.UuidV7;
 import com.jsoncompare.repository.ComparisonDiffRepository;
 import com.jsoncompare.repository.UserRepository;
+import com.jsoncompare.shard.ShardRouter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +39,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,26 +51,44 @@ class CompareServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private ComparisonResponseCache responseCache = new ComparisonResponseCache(1_000_000, Duration.ofMinutes(1));
+
+    @Mock
+    private ComparisonWriteBehindQueue writeBehindQueue;
+
+    @Mock
+    private ComparisonArchiveService archiveService;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.disabled();
+
+    @Spy
+    private JsonDiffEngine diffEngine = new JsonDiffEngine(new ObjectMapper());
+
+    @Spy
+    private DiffSummarizer diffSummarizer = DiffSummarizer.defaults();
+
+    @Spy
+    private MoveDetector moveDetector = MoveDetector.defaults();
+
+    @Spy
+    private CompareMetrics compareMetrics = new CompareMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private CompareService compareService;
 
-    private ObjectMapper objectMapper;
-
     private User testUser;
     private ComparisonDiff testComparison;
 
     @BeforeEach
     void setUp() {
-        objectMapper = new ObjectMapper();
-        // Inject ObjectMapper using reflection since it's final
-        try {
-            java.lang.reflect.Field field = CompareService.class.getDeclaredField("objectMapper");
-            field.setAccessible(true);
-            field.set(compareService, objectMapper);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to inject ObjectMapper", e);
-        }
-
         testUser = new User();
         testUser.setId(UUID.randomUUID());
         testUser.setEmail("test@example.com");
@@ -80,7 +114,7 @@ class CompareServiceTest {
         request.setJsonB("{\"name\":\"John\",\"age\":30}");
         request.setDescription("Test comparison");
 
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
+        when(userRepository.getReferenceById(any(UUID.class))).thenReturn(testUser);
         when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> {
             ComparisonDiff comp = invocation.getArgument(0);
             comp.setId(UUID.randomUUID());
@@ -88,7 +122,7 @@ class CompareServiceTest {
         });
 
         // Act
-        CompareResponse response = compareService.compare(request, testUser.getId());
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
 
         // Assert
         assertNotNull(response);
@@ -105,7 +139,7 @@ class CompareServiceTest {
         request.setJsonA("{\"name\":\"John\"}");
         request.setJsonB("{\"name\":\"Jane\"}");
 
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
+        when(userRepository.getReferenceById(any(UUID.class))).thenReturn(testUser);
         when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> {
             ComparisonDiff comp = invocation.getArgument(0);
             comp.setId(UUID.randomUUID());
@@ -113,7 +147,7 @@ class CompareServiceTest {
         });
 
         // Act
-        CompareResponse response = compareService.compare(request, testUser.getId());
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
 
         // Assert
         assertNotNull(response);
@@ -122,6 +156,25 @@ class CompareServiceTest {
         verify(comparisonDiffRepository, times(1)).save(any(ComparisonDiff.class));
     }
 
+    @Test
+    void testCompare_WriteBehindSkipsSynchronousInsert() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"Jane\"}");
+
+        when(userRepository.getReferenceById(any(UUID.class))).thenReturn(testUser);
+        when(writeBehindQueue.offer(any(ComparisonDiff.class), eq(testUser.getId()))).thenReturn(true);
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        assertNotNull(response.getId());
+        assertNotNull(response.getCreatedAt());
+        verify(comparisonDiffRepository, never()).save(any(ComparisonDiff.class));
+    }
+
     @Test
     void testCompare_InvalidJsonA() {
         // Arrange
@@ -129,12 +182,10 @@ class CompareServiceTest {
         request.setJsonA("invalid json");
         request.setJsonB("{\"name\":\"Jane\"}");
 
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
-
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
-                () -> compareService.compare(request, testUser.getId())
+                () -> compareService.compare(request, testUser.getId(), DiffDeadline.none())
         );
         assertTrue(exception.getMessage().contains("JSON A"));
         verify(comparisonDiffRepository, never()).save(any(ComparisonDiff.class));
@@ -147,32 +198,213 @@ class CompareServiceTest {
         request.setJsonA("{\"name\":\"John\"}");
         request.setJsonB("invalid json");
 
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(testUser));
-
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
-                () -> compareService.compare(request, testUser.getId())
+                () -> compareService.compare(request, testUser.getId(), DiffDeadline.none())
         );
         assertTrue(exception.getMessage().contains("JSON B"));
         verify(comparisonDiffRepository, never()).save(any(ComparisonDiff.class));
     }
 
     @Test
-    void testCompare_UserNotFound() {
+    void testCompare_ReferencesUserWithoutSelect() {
         // Arrange
         CompareRequest request = new CompareRequest();
         request.setJsonA("{\"name\":\"John\"}");
         request.setJsonB("{\"name\":\"Jane\"}");
 
-        when(userRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Act & Assert
-        IllegalArgumentException exception = assertThrows(
-                IllegalArgumentException.class,
-                () -> compareService.compare(request, UUID.randomUUID())
+        // Act
+        compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        verify(userRepository, never()).findById(any(UUID.class));
+        verify(userRepository, times(1)).getReferenceById(testUser.getId());
+    }
+
+    @Test
+    void testCompare_RecordsStrategyAndEstimate() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"name\":\"John\",\"tags\":[1,2]}");
+        request.setJsonB("{\"name\":\"Jane\",\"tags\":[1,2]}");
+
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        ArgumentCaptor<ComparisonDiff> saved = ArgumentCaptor.forClass(ComparisonDiff.class);
+        verify(comparisonDiffRepository).save(saved.capture());
+        assertEquals(DiffStrategy.TREE, saved.getValue().getDiffStrategy());
+        assertEquals(DiffStrategy.TREE, response.getDiffStrategy());
+        assertEquals(10, saved.getValue().getCostEstimate().getNodeCount());
+        assertEquals(2, saved.getValue().getCostEstimate().getMaxArrayLength());
+    }
+
+    @Test
+    void testCompare_SummaryFormatStoresOnlyAggregates() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"user\":{\"name\":\"John\",\"age\":30},\"tags\":[1]}");
+        request.setJsonB("{\"user\":{\"name\":\"Jane\",\"age\":\"30\"},\"tags\":[1,2]}");
+        request.setFormat(ResultFormat.SUMMARY);
+
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        assertEquals(ResultFormat.SUMMARY, response.getResultFormat());
+        assertTrue(response.getDifferences().isEmpty());
+        assertEquals(3, response.getDiffCount());
+        assertEquals(2L, response.getSummary().getByPath().get("/user/name") + response.getSummary().getByPath().get("/user/age"));
+        assertEquals(1L, response.getSummary().getTypeChanges().get("number->string"));
+
+        ArgumentCaptor<ComparisonDiff> saved = ArgumentCaptor.forClass(ComparisonDiff.class);
+        verify(comparisonDiffRepository).save(saved.capture());
+        assertEquals(ResultFormat.SUMMARY, saved.getValue().getResultFormat());
+        assertEquals(3, saved.getValue().getDiffCount());
+        assertEquals(response.getSummary(), diffEngine.parseSummaryFromResult(saved.getValue().getResult()));
+    }
+
+    @Test
+    void testCompare_NestedFormatReturnsNestedDocument() throws Exception {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"user\":{\"name\":\"John\",\"age\":30},\"tags\":[1]}");
+        request.setJsonB("{\"user\":{\"name\":\"Jane\",\"age\":\"30\"},\"tags\":[1,2]}");
+        request.setFormat(ResultFormat.NESTED);
+
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        assertEquals(ResultFormat.NESTED, response.getResultFormat());
+        assertTrue(response.getDifferences().isEmpty());
+        assertNull(response.getRawDiff());
+        assertNull(response.getSummary());
+        assertEquals(3, response.getDiffCount());
+        assertTrue(new ObjectMapper().readTree(response.getNestedDiff()).isContainerNode());
+
+        ArgumentCaptor<ComparisonDiff> saved = ArgumentCaptor.forClass(ComparisonDiff.class);
+        verify(comparisonDiffRepository).save(saved.capture());
+        assertEquals(ResultFormat.NESTED, saved.getValue().getResultFormat());
+        assertEquals(3, saved.getValue().getDiffCount());
+        assertEquals(response.getNestedDiff(), saved.getValue().getResult());
+    }
+
+    @Test
+    void testGetComparisonAndRecompare_NestedFormatKeepShape() throws Exception {
+        // Arrange: a NESTED comparison as compare() stored it
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"user\":{\"name\":\"John\",\"age\":30},\"tags\":[1]}");
+        request.setJsonB("{\"user\":{\"name\":\"Jane\",\"age\":\"30\"},\"tags\":[1,2]}");
+        request.setFormat(ResultFormat.NESTED);
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CompareResponse created = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        ArgumentCaptor<ComparisonDiff> saved = ArgumentCaptor.forClass(ComparisonDiff.class);
+        verify(comparisonDiffRepository).save(saved.capture());
+        ComparisonDiff stored = saved.getValue();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalseAndCreatedAtBetween(
+                eq(stored.getId()), eq(testUser.getId()), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(stored));
+
+        // Act
+        CompareResponse fetched = compareService.getComparison(stored.getId(), testUser.getId());
+        CompareResponse recompared = compareService.recompare(stored.getId(), testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        for (CompareResponse response : List.of(fetched, recompared)) {
+            assertEquals(ResultFormat.NESTED, response.getResultFormat());
+            assertTrue(response.getDifferences().isEmpty());
+            assertNull(response.getRawDiff());
+            assertNull(response.getSummary());
+            assertEquals(3, response.getDiffCount());
+            assertEquals(new ObjectMapper().readTree(created.getNestedDiff()),
+                    new ObjectMapper().readTree(response.getNestedDiff()));
+        }
+    }
+
+    @Test
+    void testCompare_RelocatedValueStaysRemoveAndAddByDefault() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"old\":{\"tags\":[1,2,3]},\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"John\",\"new\":{\"tags\":[1,2,3]}}");
+
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        assertEquals(2, response.getDiffCount());
+        assertEquals(List.of("add", "remove"), response.getDifferences().stream()
+                .map(difference -> difference.getOperation()).sorted().toList());
+    }
+
+    @Test
+    void testCompare_RelocatedValueStoredAsMove() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"old\":{\"tags\":[1,2,3]},\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"John\",\"new\":{\"tags\":[1,2,3]}}");
+
+        doReturn(true).when(moveDetector).isEnabled();
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompareResponse response = compareService.compare(request, testUser.getId(), DiffDeadline.none());
+
+        // Assert
+        assertFalse(response.isIdentical());
+        assertEquals(1, response.getDiffCount());
+        assertEquals("move", response.getDifferences().get(0).getOperation());
+        assertEquals("/old", response.getDifferences().get(0).getFrom());
+        assertEquals("/new", response.getDifferences().get(0).getPath());
+        assertNull(response.getDifferences().get(0).getToValue());
+    }
+
+    @Test
+    void testCompare_CancelledRecordsFailedComparison() {
+        // Arrange
+        CompareRequest request = new CompareRequest();
+        request.setJsonA("{\"name\":\"John\"}");
+        request.setJsonB("{\"name\":\"Jane\"}");
+        DiffDeadline deadline = DiffDeadline.none();
+        deadline.cancel("Client disconnected");
+
+        when(userRepository.getReferenceById(testUser.getId())).thenReturn(testUser);
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ComparisonAbortedException exception = assertThrows(
+                ComparisonAbortedException.class,
+                () -> compareService.compare(request, testUser.getId(), deadline)
         );
-        assertEquals("User not found", exception.getMessage());
+
+        // Assert
+        ArgumentCaptor<ComparisonDiff> saved = ArgumentCaptor.forClass(ComparisonDiff.class);
+        verify(comparisonDiffRepository).save(saved.capture());
+        assertEquals(ComparisonStatus.FAILED, saved.getValue().getComparisonStatus());
+        assertEquals("Client disconnected", saved.getValue().getFailureReason());
+        assertEquals(saved.getValue().getId(), exception.getComparisonId());
+        verify(writeBehindQueue, never()).offer(any(), any());
     }
 
     @Test
@@ -192,6 +424,60 @@ class CompareServiceTest {
         assertEquals(testComparison.getInputStringB(), response.getJsonB());
     }
 
+    @Test
+    void testGetComparison_ServedFromCacheAfterFirstRead() {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenReturn(Optional.of(testComparison));
+
+        // Act
+        CompareResponse first = compareService.getComparison(comparisonId, testUser.getId());
+        CompareResponse second = compareService.getComparison(comparisonId, testUser.getId());
+
+        // Assert
+        assertSame(first, second);
+        verify(comparisonDiffRepository, times(1)).findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId());
+    }
+
+    @Test
+    void testGetComparison_CacheInvalidatedByUpdate() {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenReturn(Optional.of(testComparison));
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenReturn(testComparison);
+
+        // Act
+        compareService.getComparison(comparisonId, testUser.getId());
+        compareService.updateDescription(comparisonId, testUser.getId(), "Changed");
+        CompareResponse response = compareService.getComparison(comparisonId, testUser.getId());
+
+        // Assert
+        assertEquals("Changed", response.getDescription());
+        verify(comparisonDiffRepository, times(3)).findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId());
+    }
+
+    @Test
+    void testGetComparison_ReadRacingAnInvalidationIsNotCached() {
+        // Arrange: an update commits (and invalidates) while the first read is in flight
+        UUID comparisonId = testComparison.getId();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenAnswer(invocation -> {
+                    responseCache.invalidate(comparisonId);
+                    return Optional.of(testComparison);
+                })
+                .thenReturn(Optional.of(testComparison));
+
+        // Act
+        compareService.getComparison(comparisonId, testUser.getId());
+        compareService.getComparison(comparisonId, testUser.getId());
+        compareService.getComparison(comparisonId, testUser.getId());
+
+        // Assert - the racing read was not cached, the next one was
+        verify(comparisonDiffRepository, times(2)).findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId());
+    }
+
     @Test
     void testGetComparison_NotFound() {
         // Arrange
@@ -207,6 +493,30 @@ class CompareServiceTest {
         assertEquals("Comparison not found", exception.getMessage());
     }
 
+    @Test
+    void testStoredInputSize_PendingComparisonSizedFromTheQueue() {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        when(writeBehindQueue.findPending(comparisonId, testUser.getId())).thenReturn(Optional.of(testComparison));
+
+        // Act
+        long size = compareService.storedInputSize(comparisonId, testUser.getId());
+
+        // Assert
+        assertEquals(testComparison.getInputStringA().length() + testComparison.getInputStringB().length(), size);
+        verify(comparisonDiffRepository, never()).findStoredInputSize(any(), any());
+    }
+
+    @Test
+    void testStoredInputSize_UnknownComparisonCostsNothing() {
+        // Arrange
+        UUID comparisonId = UUID.randomUUID();
+        when(comparisonDiffRepository.findStoredInputSize(comparisonId, testUser.getId())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertEquals(0L, compareService.storedInputSize(comparisonId, testUser.getId()));
+    }
+
     @Test
     void testRecompare_Success() {
         // Arrange
@@ -216,7 +526,7 @@ class CompareServiceTest {
         when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenReturn(testComparison);
 
         // Act
-        CompareResponse response = compareService.recompare(comparisonId, testUser.getId());
+        CompareResponse response = compareService.recompare(comparisonId, testUser.getId(), DiffDeadline.none());
 
         // Assert
         assertNotNull(response);
@@ -225,6 +535,31 @@ class CompareServiceTest {
         verify(comparisonDiffRepository, times(1)).save(testComparison);
     }
 
+    @Test
+    void testRecompare_ExpiredDeadlineMarksFailedAndKeepsResult() throws InterruptedException {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        String previousResult = testComparison.getResult();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenReturn(Optional.of(testComparison));
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenReturn(testComparison);
+        DiffDeadline deadline = DiffDeadline.after(Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        // Act
+        ComparisonAbortedException exception = assertThrows(
+                ComparisonAbortedException.class,
+                () -> compareService.recompare(comparisonId, testUser.getId(), deadline)
+        );
+
+        // Assert
+        assertEquals(comparisonId, exception.getComparisonId());
+        assertEquals(ComparisonStatus.FAILED, testComparison.getComparisonStatus());
+        assertTrue(testComparison.getFailureReason().contains("deadline"));
+        assertEquals(previousResult, testComparison.getResult());
+        verify(comparisonDiffRepository, times(1)).save(testComparison);
+    }
+
     @Test
     void testUpdateDescription_Success() {
         // Arrange
@@ -243,6 +578,25 @@ class CompareServiceTest {
         verify(comparisonDiffRepository, times(1)).save(testComparison);
     }
 
+    @Test
+    void testUpdateDescription_WaitsForWriteBehindBeforeOpeningTransaction() {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenReturn(Optional.of(testComparison));
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class))).thenReturn(testComparison);
+
+        // Act
+        compareService.updateDescription(comparisonId, testUser.getId(), "Changed");
+
+        // Assert: no connection is held while the background insert is awaited
+        InOrder order = inOrder(writeBehindQueue, transactionManager, comparisonDiffRepository);
+        order.verify(writeBehindQueue).awaitPersisted(comparisonId);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(comparisonDiffRepository).save(testComparison);
+        order.verify(transactionManager).commit(any());
+    }
+
     @Test
     void testDeleteComparison_Success() {
         // Arrange
@@ -274,5 +628,133 @@ class CompareServiceTest {
         assertEquals("Comparison not found", exception.getMessage());
         verify(comparisonDiffRepository, never()).save(any(ComparisonDiff.class));
     }
-}
 
+    @Test
+    void testGetUserComparisonsByCursor_FirstPageHasNext() {
+        // Arrange
+        ComparisonDiff newer = testComparison;
+        newer.setCreatedAt(LocalDateTime.now());
+        ComparisonDiff older = new ComparisonDiff();
+        older.setId(UUID.randomUUID());
+        older.setCreatedBy(testUser);
+        older.setInputStringA("{}");
+        older.setInputStringB("{}");
+        older.setResult("[]");
+        older.setIdentical(true);
+        older.setCreatedAt(newer.getCreatedAt().minusMinutes(1));
+
+        // The recent window holds one row; the page continues with the rows before it
+        when(comparisonDiffRepository.findKeysetFirstPageSince(eq(testUser.getId()), any(LocalDateTime.class),
+                any(Pageable.class))).thenReturn(List.of(newer));
+        when(comparisonDiffRepository.findKeysetPageBefore(eq(testUser.getId()), any(LocalDateTime.class),
+                eq(PageRequest.ofSize(1)))).thenReturn(List.of(older));
+
+        // Act
+        ComparisonCursorPageResponse response = compareService.getUserComparisonsByCursor(testUser.getId(), "", 1, false);
+
+        // Assert
+        assertEquals(1, response.getContent().size());
+        assertTrue(response.isHasNext());
+        assertNotNull(response.getNextCursor());
+        assertNull(response.getTotalElements());
+        verify(comparisonDiffRepository, never()).countByCreatedByIdAndDeletedFalse(any(UUID.class));
+
+        // The returned cursor resumes after the last row of the page
+        when(comparisonDiffRepository.findKeysetPageAfterSince(eq(testUser.getId()), eq(newer.getCreatedAt()),
+                eq(newer.getId()), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+        when(comparisonDiffRepository.findKeysetPageBefore(eq(testUser.getId()), any(LocalDateTime.class),
+                eq(PageRequest.ofSize(2)))).thenReturn(List.of(older));
+
+        ComparisonCursorPageResponse next = compareService.getUserComparisonsByCursor(
+                testUser.getId(), response.getNextCursor(), 1, true);
+
+        assertEquals(1, next.getContent().size());
+        assertFalse(next.isHasNext());
+        assertNull(next.getNextCursor());
+        verify(comparisonDiffRepository, times(1)).countByCreatedByIdAndDeletedFalse(testUser.getId());
+    }
+
+    @Test
+    void testGetUserComparisonsByCursor_InvalidCursor() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> compareService.getUserComparisonsByCursor(testUser.getId(), "not-a-cursor!", 20, false)
+        );
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    void testGetComparison_UuidV7BoundsLookupOnCreatedAt() {
+        // Arrange
+        UUID comparisonId = UuidV7.generate();
+        testComparison.setId(comparisonId);
+        LocalDateTime idTime = UuidV7.toLocalDateTime(comparisonId);
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalseAndCreatedAtBetween(
+                eq(comparisonId), eq(testUser.getId()), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    LocalDateTime from = invocation.getArgument(2);
+                    LocalDateTime to = invocation.getArgument(3);
+                    assertTrue(from.isBefore(idTime) && to.isAfter(idTime));
+                    return Optional.of(testComparison);
+                });
+
+        // Act
+        CompareResponse response = compareService.getComparison(comparisonId, testUser.getId());
+
+        // Assert
+        assertEquals(comparisonId, response.getId());
+        verify(comparisonDiffRepository, never()).findByIdAndCreatedByIdAndDeletedFalse(any(UUID.class), any(UUID.class));
+    }
+
+    @Test
+    void testGetUserComparisonsByCursor_RecentWindowFillsPage() {
+        // Arrange
+        testComparison.setCreatedAt(LocalDateTime.now());
+        ComparisonDiff second = new ComparisonDiff();
+        second.setId(UUID.randomUUID());
+        second.setCreatedBy(testUser);
+        second.setInputStringA("{}");
+        second.setInputStringB("{}");
+        second.setResult("[]");
+        second.setIdentical(true);
+        second.setCreatedAt(testComparison.getCreatedAt().minusMinutes(1));
+
+        when(comparisonDiffRepository.findKeysetFirstPageSince(eq(testUser.getId()), any(LocalDateTime.class),
+                any(Pageable.class))).thenReturn(List.of(testComparison, second));
+
+        // Act
+        ComparisonCursorPageResponse response = compareService.getUserComparisonsByCursor(testUser.getId(), null, 1, false);
+
+        // Assert
+        assertEquals(1, response.getContent().size());
+        assertTrue(response.isHasNext());
+        verify(comparisonDiffRepository, never()).findKeysetPageBefore(any(UUID.class), any(LocalDateTime.class),
+                any(Pageable.class));
+    }
+
+    @Test
+    void testGetComparison_RestoresArchivedComparison() {
+        // Arrange
+        UUID comparisonId = testComparison.getId();
+        ComparisonDiff archived = new ComparisonDiff();
+        archived.setId(comparisonId);
+        archived.setCreatedBy(testUser);
+        archived.setInputStringA("");
+        archived.setInputStringB("");
+        archived.setResult("");
+        archived.setIdentical(false);
+        archived.setComparisonStatus(ComparisonStatus.ARCHIVED);
+        when(comparisonDiffRepository.findByIdAndCreatedByIdAndDeletedFalse(comparisonId, testUser.getId()))
+                .thenReturn(Optional.of(archived));
+        when(archiveService.restore(comparisonId)).thenReturn(testComparison);
+
+        // Act
+        CompareResponse response = compareService.getComparison(comparisonId, testUser.getId());
+
+        // Assert
+        assertEquals("{\"name\":\"John\"}", response.getJsonA());
+        assertEquals(1, response.getDiffCount());
+        verify(archiveService, times(1)).restore(comparisonId);
+    }
+}
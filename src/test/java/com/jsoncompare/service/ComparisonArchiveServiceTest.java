@@ -0,0 +1,147 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jsoncompare.model.ComparisonArchive;
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.model.enums.ComparisonStatus;
+import com.jsoncompare.repository.ComparisonArchiveRepository;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ComparisonArchiveServiceTest {
+
+    @Mock
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    @Mock
+    private ComparisonArchiveRepository comparisonArchiveRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ComparisonArchiveService archiveService;
+
+    private ComparisonDiff comparison;
+
+    @BeforeEach
+    void setUp() {
+        comparison = new ComparisonDiff();
+        comparison.setId(UUID.randomUUID());
+        comparison.setInputStringA("{\"name\":\"John\"}");
+        comparison.setInputStringB("{\"name\":\"Jane\"}");
+        comparison.setResult("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"Jane\"}]");
+        comparison.setIdentical(false);
+        comparison.setComparisonStatus(ComparisonStatus.COMPLETED);
+        comparison.setDeleted(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testArchiveAndRestore_RoundTrip() {
+        // Arrange
+        when(comparisonDiffRepository.findAllByIdForUpdate(List.of(comparison.getId())))
+                .thenReturn(List.of(comparison));
+
+        // Act - archive
+        int archived = archiveService.archive(List.of(comparison.getId()));
+
+        // Assert - hot row keeps only metadata
+        ArgumentCaptor<List<ComparisonArchive>> captor = ArgumentCaptor.forClass(List.class);
+        verify(comparisonArchiveRepository).saveAll(captor.capture());
+        ComparisonArchive archive = captor.getValue().get(0);
+        assertEquals(1, archived);
+        assertTrue(comparison.isArchived());
+        assertEquals("", comparison.getInputStringA());
+        assertEquals("", comparison.getResult());
+        assertEquals(1, comparison.getDiffCount());
+        assertEquals(64, comparison.getFingerprintA().length());
+        assertNotEquals(comparison.getFingerprintA(), comparison.getFingerprintB());
+        assertEquals(comparison.getId(), archive.getComparisonId());
+
+        // Act - restore
+        when(comparisonDiffRepository.findByIdForUpdate(comparison.getId())).thenReturn(Optional.of(comparison));
+        when(comparisonArchiveRepository.findById(comparison.getId())).thenReturn(Optional.of(archive));
+        ComparisonDiff restored = archiveService.restore(comparison.getId());
+
+        // Assert - inputs and result are back, archive row removed
+        assertEquals(ComparisonStatus.COMPLETED, restored.getComparisonStatus());
+        assertEquals("{\"name\":\"John\"}", restored.getInputStringA());
+        assertEquals("{\"name\":\"Jane\"}", restored.getInputStringB());
+        assertEquals("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"Jane\"}]", restored.getResult());
+        assertNull(restored.getArchivedAt());
+        assertNotNull(restored.getRestoredAt());
+        verify(comparisonArchiveRepository).delete(archive);
+    }
+
+    @Test
+    void testArchive_KeepsListPreviews() {
+        // Arrange
+        comparison.setInputStringA("{\"items\":[" + "1,".repeat(100) + "1]}");
+        when(comparisonDiffRepository.findAllByIdForUpdate(List.of(comparison.getId())))
+                .thenReturn(List.of(comparison));
+        String previewA = comparison.getInputPreviewA();
+
+        // Act
+        archiveService.archive(List.of(comparison.getId()));
+
+        // Assert - previews are unchanged although the inputs left the row
+        assertEquals("", comparison.getInputStringA());
+        assertEquals(ComparisonDiff.PREVIEW_LENGTH + 3, previewA.length());
+        assertEquals(previewA, comparison.getInputPreviewA());
+        assertEquals("{\"name\":\"Jane\"}", comparison.getInputPreviewB());
+    }
+
+    @Test
+    void testArchive_SkipsDeletedComparison() {
+        // Arrange
+        comparison.softDelete();
+        when(comparisonDiffRepository.findAllByIdForUpdate(any())).thenReturn(List.of(comparison));
+
+        // Act
+        int archived = archiveService.archive(List.of(comparison.getId()));
+
+        // Assert
+        assertEquals(0, archived);
+        assertFalse(comparison.isArchived());
+    }
+
+    @Test
+    void testRestore_NotArchivedIsNoOp() {
+        // Arrange
+        when(comparisonDiffRepository.findByIdForUpdate(comparison.getId())).thenReturn(Optional.of(comparison));
+
+        // Act
+        ComparisonDiff result = archiveService.restore(comparison.getId());
+
+        // Assert
+        assertSame(comparison, result);
+        verify(comparisonArchiveRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGzipRoundTrip() {
+        byte[] data = "{\"a\":1}".repeat(1000).getBytes();
+
+        byte[] compressed = ComparisonArchiveService.gzip(data);
+
+        assertTrue(compressed.length < data.length / 10);
+        assertArrayEquals(data, ComparisonArchiveService.gunzip(compressed));
+    }
+}
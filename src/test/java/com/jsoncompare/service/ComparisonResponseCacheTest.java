@@ -0,0 +1,76 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.dto.compare.CompareResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComparisonResponseCacheTest {
+
+    private final ComparisonResponseCache cache = new ComparisonResponseCache(1_000_000, Duration.ofMinutes(1));
+    private final UUID ownerId = UUID.randomUUID();
+
+    @Test
+    void testPut_ServedToOwnerOnly() {
+        CompareResponse response = response(UUID.randomUUID());
+
+        cache.put(ownerId, response, cache.readStamp());
+
+        assertSame(response, cache.get(response.getId(), ownerId).orElseThrow());
+        assertTrue(cache.get(response.getId(), UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void testPut_DroppedWhenInvalidatedDuringTheRead() {
+        CompareResponse response = response(UUID.randomUUID());
+        ComparisonResponseCache.ReadStamp stamp = cache.readStamp();
+
+        cache.invalidate(response.getId());
+        cache.put(ownerId, response, stamp);
+
+        assertTrue(cache.get(response.getId(), ownerId).isEmpty());
+    }
+
+    @Test
+    void testPut_OtherComparisonsUnaffectedByAnInvalidation() {
+        CompareResponse response = response(UUID.randomUUID());
+        ComparisonResponseCache.ReadStamp stamp = cache.readStamp();
+
+        cache.invalidate(UUID.randomUUID());
+        cache.put(ownerId, response, stamp);
+
+        assertTrue(cache.get(response.getId(), ownerId).isPresent());
+    }
+
+    @Test
+    void testPut_DroppedWhenAllInvalidatedDuringTheRead() {
+        CompareResponse response = response(UUID.randomUUID());
+        ComparisonResponseCache.ReadStamp stamp = cache.readStamp();
+
+        cache.invalidateAll();
+        cache.put(ownerId, response, stamp);
+
+        assertTrue(cache.get(response.getId(), ownerId).isEmpty());
+    }
+
+    @Test
+    void testPut_ReadStartedAfterInvalidationIsCached() {
+        CompareResponse response = response(UUID.randomUUID());
+        cache.invalidate(response.getId());
+
+        cache.put(ownerId, response, cache.readStamp());
+
+        assertTrue(cache.get(response.getId(), ownerId).isPresent());
+    }
+
+    private static CompareResponse response(UUID id) {
+        return CompareResponse.builder()
+                .id(id)
+                .jsonA("{}")
+                .jsonB("{}")
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.jsoncompare.service;
+
+import com.jsoncompare.model.ComparisonDiff;
+import com.jsoncompare.repository.ComparisonDiffRepository;
+import com.jsoncompare.shard.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ComparisonWriteBehindQueueTest {
+
+    @Mock
+    private ComparisonDiffRepository comparisonDiffRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ComparisonWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testOffer_DisabledRefuses() {
+        queue = newQueue(false, 1_000_000);
+
+        assertFalse(queue.offer(comparison("{}"), UUID.randomUUID()));
+    }
+
+    @Test
+    void testOffer_PendingVisibleToOwnerUntilPersisted() {
+        // Arrange
+        queue = newQueue(true, 1_000_000);
+        UUID ownerId = UUID.randomUUID();
+        ComparisonDiff comparison = comparison("{\"a\":1}");
+
+        // Act
+        assertTrue(queue.offer(comparison, ownerId));
+        queue.awaitPersisted(comparison.getId());
+
+        // Assert
+        verify(comparisonDiffRepository, atLeastOnce()).saveAll(anyList());
+        assertTrue(queue.findPending(comparison.getId(), ownerId).isEmpty());
+        assertEquals(1L, queue.stats().get("persistedTotal"));
+    }
+
+    @Test
+    void testAwaitPersisted_ThrowsWhenInsertDoesNotFinishInTime() throws Exception {
+        // Arrange: the writer is stuck in the insert until released
+        CountDownLatch release = new CountDownLatch(1);
+        when(comparisonDiffRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        });
+        queue = newQueue(true, 1_000_000);
+        UUID ownerId = UUID.randomUUID();
+        ComparisonDiff comparison = comparison("{\"a\":1}");
+        assertTrue(queue.offer(comparison, ownerId));
+
+        // Act & Assert: the caller gives up instead of writing the row itself
+        assertThrows(IllegalStateException.class, () -> queue.awaitPersisted(comparison.getId()));
+        verify(comparisonDiffRepository, atMostOnce()).saveAll(anyList());
+        assertTrue(queue.findPending(comparison.getId(), ownerId).isPresent());
+
+        release.countDown();
+        queue.awaitPersisted(comparison.getId());
+        assertTrue(queue.findPending(comparison.getId(), ownerId).isEmpty());
+    }
+
+    @Test
+    void testWrite_FailedInsertIsRetriedUntilPersisted() {
+        // Arrange: the batch and the first two single inserts fail
+        when(comparisonDiffRepository.saveAll(anyList())).thenThrow(new IllegalStateException("database unavailable"));
+        when(comparisonDiffRepository.save(any(ComparisonDiff.class)))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        queue = newQueue(true, 1_000_000);
+        UUID ownerId = UUID.randomUUID();
+        ComparisonDiff comparison = comparison("{\"a\":1}");
+
+        // Act
+        assertTrue(queue.offer(comparison, ownerId));
+        queue.awaitPersisted(comparison.getId());
+
+        // Assert: still visible while it was failing, written in the end
+        verify(comparisonDiffRepository, times(3)).save(comparison);
+        assertTrue(queue.findPending(comparison.getId(), ownerId).isEmpty());
+        assertEquals(1L, queue.stats().get("persistedTotal"));
+        assertEquals(2L, queue.stats().get("failedTotal"));
+        assertEquals(0, queue.stats().get("retryingRows"));
+    }
+
+    @Test
+    void testOffer_RejectsWhenByteBudgetExhausted() {
+        // Arrange: a budget smaller than one row forces the caller to persist synchronously
+        queue = newQueue(true, 8);
+
+        // Act & Assert
+        assertFalse(queue.offer(comparison("{\"large\":\"value\"}"), UUID.randomUUID()));
+        assertEquals(1L, queue.stats().get("rejectedTotal"));
+        verifyNoInteractions(comparisonDiffRepository);
+    }
+
+    @Test
+    void testShutdown_FlushesPendingRows() {
+        // Arrange
+        queue = newQueue(true, 1_000_000);
+        List<ComparisonDiff> comparisons = List.of(comparison("{}"), comparison("[]"), comparison("1"));
+        comparisons.forEach(comparison -> assertTrue(queue.offer(comparison, UUID.randomUUID())));
+
+        // Act
+        queue.shutdown();
+
+        // Assert
+        assertEquals(0, queue.stats().get("pendingRows"));
+        assertEquals(3L, queue.stats().get("persistedTotal"));
+    }
+
+    private ComparisonWriteBehindQueue newQueue(boolean enabled, long maxPendingBytes) {
+        ComparisonWriteBehindQueue created = new ComparisonWriteBehindQueue(comparisonDiffRepository,
+                ShardRouter.disabled(), transactionManager, enabled, 100, maxPendingBytes, 10, Duration.ofMillis(10),
+                Duration.ofMillis(200), Duration.ofMillis(10), Duration.ofMillis(20));
+        created.start();
+        return created;
+    }
+
+    private ComparisonDiff comparison(String json) {
+        ComparisonDiff comparison = new ComparisonDiff();
+        comparison.setId(UUID.randomUUID());
+        comparison.setInputStringA(json);
+        comparison.setInputStringB(json);
+        comparison.setResult("[]");
+        comparison.setIdentical(true);
+        return comparison;
+    }
+}
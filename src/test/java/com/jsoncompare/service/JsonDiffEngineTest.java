@@ -0,0 +1,469 @@
+package com.jsoncompare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jsoncompare.dto.compare.DiffDetail;
+import com.jsoncompare.dto.compare.DiffSummary;
+import com.flipkart.zjsonpatch.JsonPatch;
+import com.jsoncompare.exception.ComparisonAbortedException;
+import com.jsoncompare.model.enums.DiffStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDiffEngineTest {
+
+    private final JsonDiffEngine engine = new JsonDiffEngine(new ObjectMapper());
+
+    @Test
+    void testDiff_ReplaceKeepsOriginalValue() {
+        JsonNode a = engine.parseJson("{\"name\":\"John\",\"age\":30}", "JSON A");
+        JsonNode b = engine.parseJson("{\"name\":\"Jane\",\"age\":30}", "JSON B");
+
+        List<DiffDetail> details = engine.parseDiffDetails(engine.diff(a, b));
+
+        assertEquals(1, details.size());
+        assertEquals("replace", details.get(0).getOperation());
+        assertEquals("/name", details.get(0).getPath());
+        assertEquals("John", details.get(0).getFromValue());
+        assertEquals("Jane", details.get(0).getToValue());
+    }
+
+    @Test
+    void testParseJson_InvalidInputRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> engine.parseJson("{not json", "JSON A"));
+
+        assertTrue(e.getMessage().startsWith("JSON A is not valid JSON"));
+    }
+
+    @Test
+    void testStoredResultHelpers() {
+        String result = "[{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"add\",\"path\":\"/b\",\"value\":[1]}]";
+
+        assertEquals(2, engine.countDifferences(result));
+        assertEquals("[1]", engine.parseDiffDetailsFromResult(result).get(1).getToValue());
+        assertTrue(engine.parseDiffDetailsFromResult("not json").isEmpty());
+        assertEquals(0, engine.countDifferences("not json"));
+    }
+
+    @Test
+    void testDeadline_CheckedInsideParsedTree() {
+        DiffDeadline deadline = DiffDeadline.none();
+        JsonNode a = engine.parseJson("{\"items\":[{\"id\":1},{\"id\":2}]}", "JSON A", deadline);
+        JsonNode b = engine.parseJson("{\"items\":[{\"id\":1},{\"id\":3}]}", "JSON B", deadline);
+        assertEquals(1, engine.parseDiffDetails(engine.diff(a, b, deadline), deadline).size());
+
+        // zjsonpatch compares nodes through equals(), which is where a running diff notices the cancel
+        deadline.cancel("Client disconnected");
+        ComparisonAbortedException e = assertThrows(ComparisonAbortedException.class, () -> a.equals(b));
+        assertEquals("Client disconnected", e.getMessage());
+        assertThrows(ComparisonAbortedException.class, () -> engine.diff(a, b, deadline));
+
+        // Once the deadline-bound phases are over the trees behave like plain nodes
+        deadline.finish();
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    void testDeadline_ExpiredBeforeParse() throws InterruptedException {
+        DiffDeadline deadline = DiffDeadline.after(Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        ComparisonAbortedException e = assertThrows(ComparisonAbortedException.class,
+                () -> engine.parseJson("{}", "JSON A", deadline));
+        assertTrue(e.getMessage().contains("deadline of 1 ms"));
+    }
+
+    @Test
+    void testPlan_SelectsStrategyFromEstimate() {
+        // Small thresholds so a few records count as "large"
+        JsonDiffEngine tuned = new JsonDiffEngine(new ObjectMapper(), new DiffStrategySelector(true, 10, 3, 0.9, 0.5));
+        DiffDeadline deadline = DiffDeadline.none();
+
+        DiffPlan formatting = tuned.plan("{\"a\":[1,2]}", "{ \"a\" : [ 1, 2 ] }", deadline);
+        assertEquals(DiffStrategy.IDENTICAL_ONLY, formatting.strategy());
+        assertEquals(1.0, formatting.estimate().getSimilarity());
+
+        DiffPlan small = tuned.plan("{\"a\":1}", "{\"a\":2}", deadline);
+        assertEquals(DiffStrategy.TREE, small.strategy());
+
+        DiffPlan keyed = tuned.plan(records(5, 0), records(5, 2), deadline);
+        assertEquals(DiffStrategy.KEYED_ARRAY, keyed.strategy());
+        assertEquals(1.0, keyed.estimate().getKeyedArrayRatio());
+        assertEquals(5, keyed.estimate().getMaxArrayLength());
+
+        DiffPlan streaming = tuned.plan("{\"v\":[1,2,3,4,5,6,7,8,9,10]}", "{\"v\":[1,2,3,4,5,6,7,8,9,11]}", deadline);
+        assertEquals(DiffStrategy.STREAMING, streaming.strategy());
+        assertEquals(24, streaming.estimate().getNodeCount());
+        assertEquals(2, streaming.estimate().getMaxDepth());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> tuned.plan("{}", "{not json", deadline));
+        assertTrue(e.getMessage().startsWith("JSON B is not valid JSON"));
+    }
+
+    // Pairs every strategy has to diff exactly
+    private static final String[][] STRATEGY_PAIRS = {
+            {"{\"name\":\"John\",\"tags\":[\"a\",\"b\"],\"x/y\":{\"k~\":1}}",
+                    "{\"name\":\"Jane\",\"tags\":[\"a\",\"b\",\"c\"],\"x/y\":{\"k~\":2}}"},
+            {"{\"a\":1,\"b\":2,\"c\":{\"d\":[1,2,3]}}", "{\"b\":2,\"a\":3,\"e\":null,\"c\":{\"d\":[1]}}"},
+            {records(6, 0), "{\"items\":[{\"id\":0,\"v\":\"x\"},{\"id\":2,\"v\":2},{\"id\":9,\"v\":9},{\"id\":5,\"v\":5}]}"},
+            {"[1,{\"a\":[true]},\"s\"]", "[{\"a\":[false]},1]"},
+            {"{\"same\":[1,2]}", "{\"same\":[1,2]}"}
+    };
+
+    @ParameterizedTest
+    @EnumSource(DiffStrategy.class)
+    void testStrategies_PatchTurnsAIntoB(DiffStrategy strategy) {
+        DiffDeadline deadline = DiffDeadline.none();
+        for (String[] pair : STRATEGY_PAIRS) {
+            JsonNode patch = strategy.buildsTrees()
+                    ? engine.diff(strategy, engine.parseJson(pair[0], "JSON A", deadline), engine.parseJson(pair[1], "JSON B", deadline), deadline)
+                    : engine.diff(strategy, pair[0], pair[1], deadline);
+
+            JsonNode patched = JsonPatch.apply(patch, engine.parseJson(pair[0], "JSON A"));
+            assertEquals(engine.parseJson(pair[1], "JSON B"), patched, strategy + " patch for " + pair[0]);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DiffStrategy.class)
+    void testNestedSink_ListsThePatchInOrder(DiffStrategy strategy) throws Exception {
+        DiffDeadline deadline = DiffDeadline.none();
+        for (String[] pair : STRATEGY_PAIRS) {
+            NestedPatchSink nested = engine.newNestedSink();
+            if (strategy.buildsTrees()) {
+                engine.diff(strategy, engine.parseJson(pair[0], "JSON A", deadline), engine.parseJson(pair[1], "JSON B", deadline), deadline, nested);
+            } else {
+                engine.diff(strategy, pair[0], pair[1], deadline, nested);
+            }
+
+            // Read back in document order, the operations still apply in sequence
+            ArrayNode patch = flatten(new ObjectMapper().readTree(nested.result()));
+            JsonNode patched = JsonPatch.apply(patch, engine.parseJson(pair[0], "JSON A"));
+            assertEquals(engine.parseJson(pair[1], "JSON B"), patched, strategy + " nested diff for " + pair[0]);
+            assertEquals(patch.size(), nested.operations());
+        }
+    }
+
+    @Test
+    void testNestedSink_WritesEachSegmentOnce() throws Exception {
+        DiffDeadline deadline = DiffDeadline.none();
+        JsonNode a = engine.parseJson(records(4, 0), "JSON A", deadline);
+        JsonNode b = engine.parseJson("{\"items\":[{\"id\":2,\"v\":2},{\"id\":3,\"v\":30}],\"name\":\"x\"}", "JSON B", deadline);
+
+        NestedPatchSink sink = engine.newNestedSink();
+        engine.diff(DiffStrategy.KEYED_ARRAY, a, b, deadline, sink);
+        JsonNode nested = new ObjectMapper().readTree(sink.result());
+
+        assertEquals(2, nested.get(0).get("items").size());
+        assertEquals("remove", nested.get(0).at("/items/1/~0ops/0/op").asText());
+        assertEquals("remove", nested.get(0).at("/items/0/~0ops/0/op").asText());
+        // The record patched at its B index 1 returns to a closed segment, so a second tree starts
+        assertEquals(2, nested.size());
+        assertEquals(30, nested.get(1).at("/items/1/v/~0ops/0/value").asInt());
+        assertEquals("add", nested.get(1).at("/name/~0ops/0/op").asText());
+    }
+
+    @Test
+    void testRangeSink_CoalescesContiguousArrayRuns() {
+        DiffDeadline deadline = DiffDeadline.none();
+        String jsonA = "{\"arr\":[0,1,2,3,4,5,6,7,8,9],\"v\":[1,2,3,4],\"tail\":[1]}";
+        String jsonB = "{\"arr\":[0,1],\"v\":[5,6,7,4],\"tail\":[1,2,3]}";
+
+        RangePatchSink sink = new RangePatchSink(true);
+        engine.diff(DiffStrategy.STREAMING, jsonA, jsonB, deadline, sink);
+        List<DiffDetail> details = engine.parseDiffDetails(sink.patch());
+
+        assertEquals(13, sink.operations());
+        assertEquals(3, details.size());
+        assertEquals("/arr/2..9", details.get(0).getPath());
+        assertEquals(8, details.get(0).getCount());
+        assertEquals("[2,3,4,5,6,7,8,9]", details.get(0).getToValue());
+        assertEquals("/v/0..2", details.get(1).getPath());
+        assertEquals("[1,2,3]", details.get(1).getFromValue());
+        assertEquals("[5,6,7]", details.get(1).getToValue());
+        assertEquals("/tail/1..2", details.get(2).getPath());
+        assertEquals("add", details.get(2).getOperation());
+    }
+
+    @Test
+    void testRangeSink_DescendingRemovesAndOptionalValues() {
+        for (boolean keepValues : new boolean[]{true, false}) {
+            RangePatchSink sink = new RangePatchSink(keepValues);
+            // Keyed arrays remove from the highest index down
+            sink.removeElement("/items/4", IntNode.valueOf(4));
+            sink.removeElement("/items/3", IntNode.valueOf(3));
+            sink.removeElement("/items/2", IntNode.valueOf(2));
+            // Not a canonical array index, so never part of a range
+            sink.replaceElement("/items/01", IntNode.valueOf(0), IntNode.valueOf(1));
+            sink.addElement("/items/5", IntNode.valueOf(5));
+            ArrayNode patch = sink.patch();
+
+            assertEquals(3, patch.size());
+            assertEquals("/items/2..4", patch.get(0).get("path").asText());
+            assertEquals(3, patch.get(0).get("count").asInt());
+            if (keepValues) {
+                assertEquals("[2,3,4]", patch.get(0).get("value").toString());
+            } else {
+                assertFalse(patch.get(0).has("value"));
+            }
+            assertEquals("/items/01", patch.get(1).get("path").asText());
+            // Single operations always keep their values
+            assertEquals(5, patch.get(2).get("value").asInt());
+        }
+    }
+
+    @Test
+    void testRangeSink_NumericObjectKeysStaySingleOperations() throws Exception {
+        DiffDeadline deadline = DiffDeadline.none();
+        String jsonA = "{\"years\":{\"2023\":1,\"2024\":2,\"2025\":3},\"ids\":{\"1\":\"a\",\"2\":\"b\"},\"arr\":[0,1,2,3]}";
+        String jsonB = "{\"years\":{\"2023\":10,\"2024\":20,\"2025\":30},\"ids\":{},\"arr\":[0]}";
+
+        for (DiffStrategy strategy : List.of(DiffStrategy.TREE, DiffStrategy.KEYED_ARRAY, DiffStrategy.STREAMING)) {
+            RangePatchSink sink = new RangePatchSink(true);
+            if (strategy.buildsTrees()) {
+                engine.diff(strategy, engine.parseJson(jsonA, "JSON A", deadline),
+                        engine.parseJson(jsonB, "JSON B", deadline), deadline, sink);
+            } else {
+                engine.diff(strategy, jsonA, jsonB, deadline, sink);
+            }
+            ArrayNode patch = sink.patch();
+
+            List<String> paths = new ArrayList<>();
+            patch.forEach(op -> paths.add(op.get("path").asText()));
+            assertTrue(paths.containsAll(List.of("/years/2023", "/years/2024", "/years/2025", "/ids/1", "/ids/2")),
+                    strategy + ": " + paths);
+            assertTrue(paths.contains("/arr/1..3"), strategy + ": " + paths);
+            assertEquals(8, sink.operations());
+
+            // Without the array range, what is left is a plain patch from A to B without the array change
+            ArrayNode withoutRange = JsonNodeFactory.instance.arrayNode();
+            patch.forEach(op -> {
+                if (!op.get("path").asText().contains("..")) {
+                    withoutRange.add(op);
+                }
+            });
+            JsonNode patched = JsonPatch.apply(withoutRange, engine.parseJson(jsonA, "JSON A"));
+            assertEquals(engine.parseJson(jsonB, "JSON B").get("years"), patched.get("years"));
+            assertEquals(engine.parseJson(jsonB, "JSON B").get("ids"), patched.get("ids"));
+        }
+    }
+
+    @Test
+    void testKeyedArray_MatchesRecordsById() {
+        DiffDeadline deadline = DiffDeadline.none();
+        JsonNode a = engine.parseJson(records(3, 0), "JSON A", deadline);
+        JsonNode b = engine.parseJson("{\"items\":[{\"id\":1,\"v\":1},{\"id\":2,\"v\":20}]}", "JSON B", deadline);
+
+        List<DiffDetail> details = engine.parseDiffDetails(engine.diff(DiffStrategy.KEYED_ARRAY, a, b, deadline));
+
+        assertEquals(2, details.size());
+        assertEquals("remove", details.get(0).getOperation());
+        assertEquals("/items/0", details.get(0).getPath());
+        assertEquals("replace", details.get(1).getOperation());
+        assertEquals("/items/1/v", details.get(1).getPath());
+    }
+
+    @Test
+    void testSummarySink_AggregatesDuringTheWalk() {
+        JsonNode a = engine.parseJson("{\"data\":{\"items\":[{\"id\":1},{\"id\":2}],\"flag\":true},\"name\":\"x\"}", "JSON A");
+        JsonNode b = engine.parseJson("{\"data\":{\"items\":[{\"id\":1}],\"flag\":\"yes\"},\"extra\":[1,2,3]}", "JSON B");
+
+        // Two path buckets, one largest change
+        SummarySink sink = new SummarySink(2, 2, 1);
+        engine.diff(DiffStrategy.TREE, a, b, DiffDeadline.none(), sink);
+        DiffSummary summary = sink.summary();
+
+        assertEquals(4, summary.getTotalChanges());
+        assertEquals(Map.of("add", 1L, "remove", 2L, "replace", 1L), summary.getByOperation());
+        assertEquals(Map.of("/data/items", 1L, "/data/flag", 1L), summary.getByPath());
+        assertEquals(2, summary.getOtherPaths());
+        assertEquals(Map.of("boolean->string", 1L), summary.getTypeChanges());
+        assertEquals(1, summary.getLargestChanges().size());
+        assertEquals("/extra", summary.getLargestChanges().get(0).getPath());
+        assertEquals(4, summary.getLargestChanges().get(0).getNodeCount());
+    }
+
+    @Test
+    void testSummarySink_TreeArraysWalkedWithoutAPatch() {
+        JsonNode a = engine.parseJson("{\"list\":[1,2,3,4]}", "JSON A");
+        JsonNode b = engine.parseJson("{\"list\":[0,1,3,4,5]}", "JSON B");
+
+        SummarySink sink = DiffSummarizer.defaults().newSink();
+        engine.diff(DiffStrategy.TREE, a, b, DiffDeadline.none(), sink);
+
+        // LCS [1,3,4]: 0 added before it, 2 removed from it, 5 added after it
+        assertEquals(3, sink.summary().getTotalChanges());
+        assertEquals(Map.of("add", 2L, "remove", 1L), sink.summary().getByOperation());
+    }
+
+    @Test
+    void testWalkedArrays_PatchTurnsAIntoB() {
+        String[][] pairs = {
+                {"[1,2,3,4]", "[0,1,3,4,5]"},
+                {"[{\"a\":1},{\"b\":2},{\"c\":3}]", "[{\"b\":2},{\"a\":2},{\"c\":[3]}]"},
+                {"[[1,2],[3],[4,5]]", "[[4,5],[1,2,6]]"},
+                {"[1,1,2,2]", "[2,1,2,1]"},
+                {"[]", "[1,{\"x\":[]}]"}
+        };
+        for (String[] pair : pairs) {
+            JsonNode a = engine.parseJson(pair[0], "JSON A");
+            JsonNode b = engine.parseJson(pair[1], "JSON B");
+            PatchSink patch = new PatchSink();
+            new KeyedArrayDiff(DiffDeadline.none(), patch, true).diff(a, b);
+
+            assertEquals(b, JsonPatch.apply(patch.patch(), a), "walked patch for " + pair[0]);
+        }
+    }
+
+    @Test
+    void testSummarySink_CountsMatchThePatch() {
+        DiffDeadline deadline = DiffDeadline.none();
+        String jsonA = records(5, 0);
+        String jsonB = records(5, 2);
+
+        SummarySink sink = DiffSummarizer.defaults().newSink();
+        engine.diff(DiffStrategy.STREAMING, jsonA, jsonB, deadline, sink);
+
+        assertEquals(engine.diff(DiffStrategy.STREAMING, jsonA, jsonB, deadline).size(), sink.summary().getTotalChanges());
+        assertEquals(Map.of("/items/0", 2L, "/items/1", 2L, "/items/2", 2L, "/items/3", 2L, "/items/4", 2L),
+                sink.summary().getByPath());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DiffStrategy.class)
+    void testMoveSink_PatchStillTurnsAIntoB(DiffStrategy strategy) {
+        DiffDeadline deadline = DiffDeadline.none();
+        String[][] pairs = Arrays.copyOf(STRATEGY_PAIRS, STRATEGY_PAIRS.length + 2);
+        pairs[STRATEGY_PAIRS.length] = new String[]{"{\"old\":{\"a\":[1,2]},\"b\":1}", "{\"b\":2,\"new\":{\"a\":[1,2]}}"};
+        pairs[STRATEGY_PAIRS.length + 1] = new String[]{"[[1],[2],[3],[4]]", "[[4],[1],[2],[3]]"};
+        for (String[] pair : pairs) {
+            PatchSink patch = new PatchSink();
+            MoveDetectingSink moves = MoveDetector.defaults().newSink(patch, deadline);
+            if (strategy.buildsTrees()) {
+                engine.diff(strategy, engine.parseJson(pair[0], "JSON A", deadline), engine.parseJson(pair[1], "JSON B", deadline), deadline, moves);
+            } else {
+                engine.diff(strategy, pair[0], pair[1], deadline, moves);
+            }
+            moves.finish();
+
+            JsonNode patched = JsonPatch.apply(patch.patch(), engine.parseJson(pair[0], "JSON A"));
+            assertEquals(engine.parseJson(pair[1], "JSON B"), patched, strategy + " patch for " + pair[0]);
+        }
+    }
+
+    @Test
+    void testMoveSink_RelocatedValuesStoredOnce() {
+        JsonNode big = engine.parseJson("{\"a\":[1,2,3]}", "JSON");
+        JsonNode record = engine.parseJson("{\"id\":3}", "JSON");
+        PatchSink patch = new PatchSink();
+        MoveDetectingSink sink = MoveDetector.defaults().newSink(patch, DiffDeadline.none());
+
+        sink.remove("/old", big);
+        sink.replace("/name", IntNode.valueOf(1), IntNode.valueOf(2));
+        sink.add("/new", big);
+        // A record moved to the front of its array: added first, removed from its shifted index
+        sink.add("/list/0", record);
+        sink.remove("/list/3", record);
+        sink.add("/copy", big);
+        // Too small to be worth a move
+        sink.remove("/n", IntNode.valueOf(1));
+        sink.add("/m", IntNode.valueOf(1));
+        sink.finish();
+
+        List<DiffDetail> details = engine.parseDiffDetails(patch.patch());
+        assertEquals(List.of("replace", "move", "move", "copy", "remove", "add"),
+                details.stream().map(DiffDetail::getOperation).toList());
+        assertEquals("/old", details.get(1).getFrom());
+        assertEquals("/new", details.get(1).getPath());
+        assertEquals("/list/2", details.get(2).getFrom());
+        assertEquals("/list/0", details.get(2).getPath());
+        assertEquals("/new", details.get(3).getFrom());
+        assertNull(details.get(3).getToValue());
+    }
+
+    @Test
+    void testMoveSink_KeepsPairsThatOtherOperationsWouldShift() {
+        JsonNode big = engine.parseJson("{\"a\":[1,2,3]}", "JSON");
+        PatchSink patch = new PatchSink();
+        MoveDetectingSink sink = MoveDetector.defaults().newSink(patch, DiffDeadline.none());
+
+        // Delaying the first remove would change which element the second one removes
+        sink.remove("/items/0", big);
+        sink.remove("/items/0", IntNode.valueOf(7));
+        sink.add("/moved", big);
+        sink.finish();
+
+        assertEquals(3, patch.patch().size());
+        assertEquals("add", patch.patch().get(2).get("op").asText());
+        assertTrue(MoveDetectingSink.affects("/items/0", "/items/4/a"));
+        assertFalse(MoveDetectingSink.affects("/items/0/a", "/items/4/a"));
+        assertFalse(MoveDetectingSink.affects("/x/k", "/x/k2"));
+    }
+
+    @Test
+    void testMoveSink_PassesOnOperationsOutsideTheWindow() {
+        JsonNode big = engine.parseJson("{\"a\":[1,2,3]}", "JSON");
+        PatchSink patch = new PatchSink();
+        MoveDetectingSink sink = new MoveDetectingSink(patch, 2, 2, DiffDeadline.none());
+
+        sink.remove("/old", big);
+        sink.add("/new", big);
+        sink.remove("/far", big);
+        for (int i = 0; i < 3; i++) {
+            sink.add("/n" + i, IntNode.valueOf(i));
+        }
+        // Held back: at most twice max-distance operations
+        assertEquals(List.of("move", "remove"), engine.parseDiffDetails(patch.patch()).stream()
+                .map(DiffDetail::getOperation).toList());
+
+        // Too far from its remove to pair
+        sink.add("/far", big);
+        sink.finish();
+
+        assertEquals(6, patch.patch().size());
+        assertEquals("add", patch.patch().get(5).get("op").asText());
+    }
+
+    // The NESTED format read back into a flat patch, in document order
+    private static ArrayNode flatten(JsonNode nested) {
+        ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode tree : nested) {
+            flatten(tree, "", patch);
+        }
+        return patch;
+    }
+
+    private static void flatten(JsonNode node, String path, ArrayNode patch) {
+        node.fields().forEachRemaining(field -> {
+            if (field.getKey().equals(NestedPatchSink.OPS_KEY)) {
+                field.getValue().forEach(op -> patch.add(((ObjectNode) op.deepCopy()).put("path", path)));
+            } else {
+                flatten(field.getValue(), path + "/" + field.getKey(), patch);
+            }
+        });
+    }
+
+    // {"items":[{"id":first,"v":first}, ...]} with count records
+    private static String records(int count, int first) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = first; i < first + count; i++) {
+            json.append(i > first ? "," : "").append("{\"id\":").append(i).append(",\"v\":").append(i).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
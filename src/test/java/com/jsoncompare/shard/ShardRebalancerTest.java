@@ -0,0 +1,139 @@
+package com.jsoncompare.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moves users from a single-shard ring onto a second embedded H2 shard
+ */
+class ShardRebalancerTest {
+
+    private static final ShardRing ONE_SHARD = new ShardRing(List.of("shard0"));
+    private static final ShardRing TWO_SHARDS = new ShardRing(List.of("shard0", "shard1"));
+
+    private Map<String, DataSource> shards;
+    private JdbcTemplate shard0;
+    private JdbcTemplate shard1;
+    private ShardRebalancer rebalancer;
+    private final List<UUID> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        shards = new LinkedHashMap<>();
+        shards.put("shard0", embedded("rebalance-shard0"));
+        shards.put("shard1", embedded("rebalance-shard1"));
+        shard0 = new JdbcTemplate(shards.get("shard0"));
+        shard1 = new JdbcTemplate(shards.get("shard1"));
+        rebalancer = new ShardRebalancer(shards, "shard0");
+
+        users.clear();
+        for (int i = 0; i < 40; i++) {
+            UUID userId = UUID.randomUUID();
+            UUID comparisonId = UUID.randomUUID();
+            shard0.update("INSERT INTO \"users\" (\"id\", \"email\") VALUES (?, ?)", userId, "user" + i + "@test.com");
+            shard0.update("INSERT INTO \"user_sessions\" (\"id\", \"user_id\") VALUES (?, ?)", UUID.randomUUID(), userId);
+            shard0.update("INSERT INTO \"comparison_diffs\" (\"id\", \"created_by_id\") VALUES (?, ?)",
+                    comparisonId, userId);
+            shard0.update("INSERT INTO \"comparison_archives\" (\"comparison_id\", \"payload\") VALUES (?, ?)",
+                    comparisonId, new byte[]{1, 2, 3});
+            users.add(userId);
+        }
+    }
+
+    @Test
+    void testRebalance_MovesOwnedRowsToNewShard() {
+        long moved = rebalancer.rebalance(ONE_SHARD, TWO_SHARDS);
+
+        assertTrue(moved > 0 && moved < users.size());
+        for (UUID userId : users) {
+            boolean onShard1 = TWO_SHARDS.shardFor(userId).equals("shard1");
+            JdbcTemplate home = onShard1 ? shard1 : shard0;
+            JdbcTemplate other = onShard1 ? shard0 : shard1;
+
+            assertEquals(1, count(home, "user_sessions", "user_id", userId));
+            assertEquals(1, count(home, "comparison_diffs", "created_by_id", userId));
+            assertEquals(0, count(other, "user_sessions", "user_id", userId));
+            assertEquals(0, count(other, "comparison_diffs", "created_by_id", userId));
+            // The directory keeps every users row
+            assertEquals(1, count(shard0, "users", "id", userId));
+        }
+        assertEquals(moved, count(shard1, "users", null, null));
+        assertEquals(moved, count(shard1, "comparison_archives", null, null));
+        assertEquals(users.size() - moved, count(shard0, "comparison_archives", null, null));
+    }
+
+    @Test
+    void testRebalance_RepeatedRunDoesNotDuplicateRows() {
+        long moved = rebalancer.rebalance(ONE_SHARD, TWO_SHARDS);
+        rebalancer.rebalance(ONE_SHARD, TWO_SHARDS);
+
+        assertEquals(moved, count(shard1, "users", null, null));
+        assertEquals(moved, count(shard1, "comparison_diffs", null, null));
+    }
+
+    @Test
+    void testRebalance_CopiesManyRowsInBatches() {
+        // A user homed on shard1 with more comparisons than several batches hold
+        UUID userId = users.stream().filter(id -> TWO_SHARDS.shardFor(id).equals("shard1")).findFirst().orElseThrow();
+        for (int i = 0; i < 10; i++) {
+            UUID comparisonId = UUID.randomUUID();
+            shard0.update("INSERT INTO \"comparison_diffs\" (\"id\", \"created_by_id\") VALUES (?, ?)",
+                    comparisonId, userId);
+            shard0.update("INSERT INTO \"comparison_archives\" (\"comparison_id\", \"payload\") VALUES (?, ?)",
+                    comparisonId, new byte[]{4});
+        }
+
+        new ShardRebalancer(shards, "shard0", 3).moveUser(userId, "shard0", "shard1");
+
+        assertEquals(11, count(shard1, "comparison_diffs", "created_by_id", userId));
+        assertEquals(0, count(shard0, "comparison_diffs", "created_by_id", userId));
+        assertEquals(11, shard1.queryForObject("SELECT COUNT(*) FROM \"comparison_archives\" a JOIN \"comparison_diffs\" c "
+                + "ON c.\"id\" = a.\"comparison_id\" WHERE c.\"created_by_id\" = ?", Long.class, userId));
+    }
+
+    @Test
+    void testMoveUser_SkipsRowsAlreadyOnTarget() {
+        UUID userId = users.get(0);
+        UUID comparisonId = shard0.queryForObject(
+                "SELECT \"id\" FROM \"comparison_diffs\" WHERE \"created_by_id\" = ?", UUID.class, userId);
+        // Left behind by a run that stopped between the two commits
+        shard1.update("INSERT INTO \"comparison_diffs\" (\"id\", \"created_by_id\") VALUES (?, ?)", comparisonId, userId);
+
+        new ShardRebalancer(shards, "shard0", 3).moveUser(userId, "shard0", "shard1");
+
+        assertEquals(1, count(shard1, "comparison_diffs", "created_by_id", userId));
+        assertEquals(1, count(shard1, "user_sessions", "user_id", userId));
+        assertEquals(0, count(shard0, "comparison_diffs", "created_by_id", userId));
+    }
+
+    private static long count(JdbcTemplate jdbc, String table, String column, UUID value) {
+        String sql = "SELECT COUNT(*) FROM \"" + table + "\"";
+        if (column == null) {
+            return jdbc.queryForObject(sql, Long.class);
+        }
+        return jdbc.queryForObject(sql + " WHERE \"" + column + "\" = ?", Long.class, value);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("DROP ALL OBJECTS");
+        setup.execute("CREATE TABLE \"users\" (\"id\" UUID PRIMARY KEY, \"email\" VARCHAR(255))");
+        setup.execute("CREATE TABLE \"user_sessions\" (\"id\" UUID PRIMARY KEY, \"user_id\" UUID)");
+        setup.execute("CREATE TABLE \"comparison_diffs\" (\"id\" UUID PRIMARY KEY, \"created_by_id\" UUID)");
+        setup.execute("CREATE TABLE \"comparison_archives\" (\"comparison_id\" UUID PRIMARY KEY, \"payload\" VARBINARY(64))");
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.jsoncompare.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRingTest {
+
+    private static final int USERS = 30_000;
+
+    @Test
+    void testShardFor_IsStable() {
+        ShardRing ring = new ShardRing(List.of("shard0", "shard1", "shard2"));
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(ring.shardFor(userId), new ShardRing(List.of("shard0", "shard1", "shard2")).shardFor(userId));
+    }
+
+    @Test
+    void testShardFor_SpreadsUsersEvenly() {
+        ShardRing ring = new ShardRing(List.of("shard0", "shard1", "shard2"));
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < USERS; i++) {
+            counts.merge(ring.shardFor(UUID.randomUUID()), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        int expected = USERS / 3;
+        counts.values().forEach(count -> assertTrue(Math.abs(count - expected) < expected * 0.2,
+                "Unbalanced shard: " + counts));
+    }
+
+    @Test
+    void testAddingShard_MovesOnlyItsShareOntoTheNewShard() {
+        ShardRing before = new ShardRing(List.of("shard0", "shard1", "shard2"));
+        ShardRing after = new ShardRing(List.of("shard0", "shard1", "shard2", "shard3"));
+        int moved = 0;
+
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = UUID.randomUUID();
+            String from = before.shardFor(userId);
+            String to = after.shardFor(userId);
+            if (!from.equals(to)) {
+                assertEquals("shard3", to);
+                moved++;
+            }
+        }
+
+        double share = (double) moved / USERS;
+        assertTrue(share > 0.15 && share < 0.35, "Moved share: " + share);
+    }
+
+    @Test
+    void testEmptyRing_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(List.of()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.jsoncompare.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes against two embedded H2 databases, each holding a row that names it
+ */
+class ShardRouterTest {
+
+    private ShardRouter router;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("shard0", embedded("router-shard0"));
+        shards.put("shard1", embedded("router-shard1"));
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards, new ShardRing(List.of("shard0", "shard1")));
+
+        router = new ShardRouter(routing);
+        DataSource proxy = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(proxy);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(proxy));
+    }
+
+    @Test
+    void testUnboundWorkUsesDirectory() {
+        assertEquals("router-shard0", whoAmI());
+        assertEquals("shard0", router.directoryShard());
+    }
+
+    @Test
+    void testUserWorkUsesHomeShard() {
+        UUID userId = userOn("shard1");
+
+        assertEquals("router-shard1", router.onUserShard(userId, this::whoAmI));
+        // Bound before the transaction starts; the connection is only fetched at the first statement
+        assertEquals("router-shard1", router.onUserShard(userId, () -> transaction.execute(status -> whoAmI())));
+        // The binding does not leak past the call
+        assertEquals("router-shard0", whoAmI());
+    }
+
+    @Test
+    void testFindOnAnyShard_StopsAtFirstHit() {
+        Optional<String> found = router.findOnAnyShard(() -> Optional.of(whoAmI()).filter(name -> name.endsWith("1")));
+
+        assertEquals(Optional.of("router-shard1"), found);
+    }
+
+    @Test
+    void testDisabledRouterRunsWorkDirectly() {
+        ShardRouter disabled = ShardRouter.disabled();
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(List.of(ShardRouter.DEFAULT_SHARD), disabled.shardNames());
+        assertEquals("ran", disabled.onUserShard(UUID.randomUUID(), () -> "ran"));
+    }
+
+    private UUID userOn(String shard) {
+        UUID userId;
+        do {
+            userId = UUID.randomUUID();
+        } while (!router.shardFor(userId).equals(shard));
+        return userId;
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        setup.execute("DELETE FROM node");
+        setup.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}